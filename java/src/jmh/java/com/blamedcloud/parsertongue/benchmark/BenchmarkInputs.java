@@ -0,0 +1,129 @@
+package com.blamedcloud.parsertongue.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.parser.Parser;
+
+// Grammars and generated inputs shared by the benchmarks. Paths are
+// relative to the java directory, the same as in the tests.
+public class BenchmarkInputs {
+
+    public static final String RESOURCES = "src/test/resources/";
+    public static final String EXAMPLES = "../examples/";
+
+    private static final String[] JSON_VALUES = {"1", "-23", "456", "\"x y\"", "[]", "{}"};
+
+    private BenchmarkInputs() {}
+
+    public static Parser getJsonParser() {
+        return Parser.newBuilder(new File(EXAMPLES + "json/json.ebnf"))
+                     .setDependentGrammarFiles(List.of(new File(EXAMPLES + "common.ebnf")))
+                     .setIgnoreWhiteSpaceDefault(true)
+                     .build();
+    }
+
+    public static Parser getCalculatorParser() {
+        return Parser.newBuilder(new File(RESOURCES + "calculator.ebnf"))
+                     .setIgnoreWhiteSpaceDefault(true)
+                     .build();
+    }
+
+    public static Parser getParser(String name) {
+        if (name.equals("json")) {
+            return getJsonParser();
+        } else if (name.equals("calculator")) {
+            return getCalculatorParser();
+        }
+        throw new RuntimeException("No benchmark grammar named: " + name);
+    }
+
+    public static String getInput(String name, int size) {
+        if (name.equals("json")) {
+            return getJsonDocument(size);
+        } else if (name.equals("calculator")) {
+            return getCalculatorExpression(size);
+        }
+        throw new RuntimeException("No benchmark grammar named: " + name);
+    }
+
+    // an array of size objects, each with a few members and a nested array.
+    // ids stay single digits, since common.ebnf's month terminals ('10'
+    // to '12') would otherwise be tokenized in place of two digits.
+    public static String getJsonDocument(int size) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("{\"id\" : ").append(i % 9 + 1)
+              .append(", \"name\" : \"item ").append(i)
+              .append("\", \"values\" : [").append(String.join(", ", JSON_VALUES)).append("]}");
+        }
+        return sb.append("]").toString();
+    }
+
+    // size terms joined by the four operators, with some nested groups
+    public static String getCalculatorExpression(int size) {
+        String[] operators = {" + ", " * ", " - ", " / "};
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(operators[i % operators.length]);
+            }
+            if (i % 5 == 4) {
+                sb.append("(").append(i).append(" - 2 ^ 3)");
+            } else {
+                sb.append(i % 7 == 0 ? -(i + 1) : i + 1);
+            }
+        }
+        return sb.toString();
+    }
+
+    // a chain of size rules full of groups, optionals, and repeats:
+    // r_i = 'a' , { r_(i+1) | 'b' } , [ 'c' , ( 'd' | r_(i+1) ) ] ;
+    public static Grammar getSugarGrammar(int size) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            String next = (i + 1 < size) ? "r_" + (i + 1) : "'e'";
+            sb.append("r_").append(i).append(" = 'a' , { ").append(next).append(" | 'b' } , [ 'c' , ( 'd' | ")
+              .append(next).append(" ) ] ;\n");
+        }
+        return buildGrammar(sb.toString());
+    }
+
+    // a chain of size rules, each directly left recursive, with every
+    // third rule also part of an indirectly left recursive pair:
+    // r_i = r_i , 'a' | r_(i+1) , 'b' | 'c' ;
+    public static Grammar getLeftRecursiveGrammar(int size) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            String next = (i + 1 < size) ? "r_" + (i + 1) : "'e'";
+            sb.append("r_").append(i).append(" = r_").append(i).append(" , 'a' | ").append(next).append(" , 'b' | 'c' ;\n");
+            if (i % 3 == 0) {
+                sb.append("s_").append(i).append(" = t_").append(i).append(" , 'x' | 'y' ;\n");
+                sb.append("t_").append(i).append(" = s_").append(i).append(" , 'z' | r_").append(i).append(" ;\n");
+            }
+        }
+        return buildGrammar(sb.toString());
+    }
+
+    private static Grammar buildGrammar(String grammarText) {
+        try {
+            Path grammarFile = Files.createTempFile("benchmark", ".ebnf");
+            try {
+                Files.writeString(grammarFile, grammarText);
+                return Grammar.newBuilder(grammarFile.toFile()).build();
+            } finally {
+                Files.delete(grammarFile);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write benchmark grammar");
+        }
+    }
+
+}
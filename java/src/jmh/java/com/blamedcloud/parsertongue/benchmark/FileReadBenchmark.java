@@ -0,0 +1,81 @@
+package com.blamedcloud.parsertongue.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerException;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+import com.blamedcloud.parsertongue.utility.MappedFiles;
+
+// Reading (and tokenizing) a whole file through a single mapping, against
+// Files.readString, which is what Parser::parseFile uses.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class FileReadBenchmark {
+
+    @Param({"json", "calculator"})
+    public String grammar;
+
+    @Param({"256", "16384"})
+    public int size;
+
+    private TokenizerTypeList ttl;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        ttl = BenchmarkInputs.getParser(grammar).getTTL();
+        file = Files.createTempFile("parsertongue", ".txt");
+        Files.writeString(file, BenchmarkInputs.getInput(grammar, size));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public CharSequence readString() throws IOException {
+        return Files.readString(file);
+    }
+
+    @Benchmark
+    public CharSequence readMapped() throws IOException {
+        return MappedFiles.decode(file);
+    }
+
+    @Benchmark
+    public Tokenizer tokenizeString() throws IOException, TokenizerException {
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize(Files.readString(file));
+        return tokens;
+    }
+
+    @Benchmark
+    public Tokenizer tokenizeMapped() throws IOException, TokenizerException {
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize(MappedFiles.decode(file));
+        return tokens;
+    }
+
+}
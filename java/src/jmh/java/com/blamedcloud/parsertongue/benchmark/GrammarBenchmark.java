@@ -0,0 +1,69 @@
+package com.blamedcloud.parsertongue.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.parser.Parser;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerException;
+
+// Grammar::tryParse over pre-tokenized input, so tokenizing isn't
+// measured (see TokenizerBenchmark for that).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class GrammarBenchmark {
+
+    @Param({"json", "calculator"})
+    public String grammar;
+
+    // the backtracking engine is far from linear on these, so the sizes are small
+    @Param({"1", "4", "16"})
+    public int size;
+
+    private Grammar parseGrammar;
+    private Tokenizer tokens;
+    private PackratMemo memo;
+
+    @Setup
+    public void setup() throws TokenizerException {
+        Parser parser = BenchmarkInputs.getParser(grammar);
+        parseGrammar = parser.getGrammar();
+        tokens = new Tokenizer(parser.getTTL(), true);
+        tokens.tokenize(BenchmarkInputs.getInput(grammar, size));
+        memo = new PackratMemo();
+        if (!parseGrammar.tryParse(tokens).isValid()) {
+            throw new RuntimeException("Benchmark input is not in the language");
+        }
+    }
+
+    @Benchmark
+    public ParseResultTransformer tryParse() {
+        tokens.setIndex(0, false);
+        return parseGrammar.tryParse(tokens);
+    }
+
+    @Benchmark
+    public ParseResultTransformer tryParsePackrat() {
+        tokens.setIndex(0, false);
+        return parseGrammar.tryParse(tokens, memo);
+    }
+
+}
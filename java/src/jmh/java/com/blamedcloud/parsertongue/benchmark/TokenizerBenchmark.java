@@ -0,0 +1,51 @@
+package com.blamedcloud.parsertongue.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerException;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class TokenizerBenchmark {
+
+    @Param({"json", "calculator"})
+    public String grammar;
+
+    @Param({"1", "16", "256"})
+    public int size;
+
+    private TokenizerTypeList ttl;
+    private String input;
+
+    @Setup
+    public void setup() throws TokenizerException {
+        ttl = BenchmarkInputs.getParser(grammar).getTTL();
+        input = BenchmarkInputs.getInput(grammar, size);
+    }
+
+    @Benchmark
+    public Tokenizer tokenize() throws TokenizerException {
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize(input);
+        return tokens;
+    }
+
+}
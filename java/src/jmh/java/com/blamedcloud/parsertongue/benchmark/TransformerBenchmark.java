@@ -0,0 +1,52 @@
+package com.blamedcloud.parsertongue.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.grammar.transformer.LeftRecursionTransformer;
+import com.blamedcloud.parsertongue.grammar.transformer.SugarTransformer;
+
+// The transformers on large generated grammars (see BenchmarkInputs).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TransformerBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int rules;
+
+    private Grammar sugarGrammar;
+    private Grammar leftRecursiveGrammar;
+
+    @Setup
+    public void setup() {
+        sugarGrammar = BenchmarkInputs.getSugarGrammar(rules);
+        leftRecursiveGrammar = BenchmarkInputs.getLeftRecursiveGrammar(rules);
+    }
+
+    @Benchmark
+    public Grammar sugar() {
+        return new SugarTransformer(sugarGrammar).getTransformedGrammar();
+    }
+
+    @Benchmark
+    public Grammar leftRecursion() {
+        return new LeftRecursionTransformer(leftRecursiveGrammar).getTransformedGrammar();
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.blamedcloud.parsertongue.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.grammar.ValidStringIterator;
+
+// Enumerates the first count strings of a language, which is mostly
+// rejecting the strings in between with Grammar::isInLanguage.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ValidStringIteratorBenchmark {
+
+    @Param({"palindrome", "matchedParens", "equalABs"})
+    public String grammar;
+
+    @Param({"10", "100"})
+    public int count;
+
+    private Grammar languageGrammar;
+
+    @Setup
+    public void setup() {
+        languageGrammar = Grammar.newBuilder(new File(BenchmarkInputs.RESOURCES + grammar + ".ebnf")).build();
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        ValidStringIterator iterator = new ValidStringIterator(languageGrammar, count, false);
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+}
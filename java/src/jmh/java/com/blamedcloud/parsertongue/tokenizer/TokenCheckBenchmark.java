@@ -0,0 +1,79 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.blamedcloud.parsertongue.benchmark.BenchmarkInputs;
+
+// The checked Token constructor, which tokenizers used to create every
+// token with, against Token.matched(), which they use now. Both are given
+// the same types, values and offsets, taken from a tokenized input before
+// anything is measured. (This is in the tokenizer package for matched().)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class TokenCheckBenchmark {
+
+    @Param({"json", "calculator"})
+    public String grammar;
+
+    @Param({"1", "16", "256"})
+    public int size;
+
+    private String input;
+    private TokenType[] types;
+    private String[] values;
+    private int[] starts;
+    private int[] ends;
+
+    @Setup
+    public void setup() throws TokenizerException {
+        input = BenchmarkInputs.getInput(grammar, size);
+        Tokenizer tokens = new Tokenizer(BenchmarkInputs.getParser(grammar).getTTL(), true);
+        tokens.tokenize(input);
+
+        int count = tokens.size();
+        types = new TokenType[count];
+        values = new String[count];
+        starts = new int[count];
+        ends = new int[count];
+        for (int i = 0; i < count; i++) {
+            Token token = tokens.currentToken();
+            types[i] = token.getType();
+            values[i] = token.getValue();
+            starts[i] = token.getStart();
+            ends[i] = token.getEnd();
+            tokens.nextToken();
+        }
+    }
+
+    @Benchmark
+    public void checked(Blackhole blackhole) {
+        for (int i = 0; i < types.length; i++) {
+            blackhole.consume(new Token(values[i], types[i], input, starts[i], ends[i]));
+        }
+    }
+
+    @Benchmark
+    public void matched(Blackhole blackhole) {
+        for (int i = 0; i < types.length; i++) {
+            blackhole.consume(Token.matched(values[i], types[i], input, starts[i], ends[i]));
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.blamedcloud.parsertongue.grammar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.expecterator.ParseContext;
+import com.blamedcloud.parsertongue.grammar.predictive.PredictiveTable;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.ScannerlessTokenizer;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerException;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+// An immutable snapshot of a linked Grammar, made by Grammar::compile or
+// Parser::compile. Every rule reachable from the start rule (including
+// those of external grammars) is copied and re-linked to the other
+// copies, and the TokenizerTypeList is copied and compiled up front, so
+// later changes to the original grammar, its rules and transformers, or
+// the parser don't affect it. Nothing it holds is handed out, and all
+// the state of a parse (tokenizer, expecterators, memo) belongs to that
+// call, so one CompiledGrammar can be used from many threads at once.
+// (The transformers themselves are shared, so they must be thread-safe.)
+public final class CompiledGrammar {
+
+    private final Rule startRule;
+    private final TokenizerTypeList ttl;
+    private final boolean ignoreWhiteSpaceDefault;
+    private final PredictiveTable predictiveTable;
+    private final boolean leftRecursive;
+    private final ParseEngine engine;
+    private final boolean deferredTransforms;
+    private final boolean greedyRepeats;
+    private final boolean scannerless;
+
+    CompiledGrammar(Rule grammarStartRule, TokenizerTypeList grammarTTL, boolean ignoreWS, boolean predictive, ParseEngine parseEngine, boolean deferred, boolean greedy, boolean scannerless) {
+        startRule = snapshot(grammarStartRule, new HashMap<>());
+        // the table is keyed on the copied rules, so it has to be rebuilt
+        predictiveTable = predictive ? new PredictiveTable(Collections.singleton(startRule)) : null;
+        leftRecursive = LeftRecursion.reachesLeftRecursion(Collections.singleton(startRule));
+        ttl = new TokenizerTypeList();
+        ttl.extend(grammarTTL);
+        ttl.compile();
+        ignoreWhiteSpaceDefault = ignoreWS;
+        engine = parseEngine;
+        deferredTransforms = deferred;
+        greedyRepeats = greedy;
+        this.scannerless = scannerless;
+    }
+
+    private static Rule snapshot(Rule rule, Map<Rule, Rule> copies) {
+        Rule copy = copies.get(rule);
+        if (copy == null) {
+            copy = rule.copy();
+            copy.setFirstSet(rule.getFirstSet());
+            copy.setLeftRecursive(rule.isLeftRecursive());
+            copies.put(rule, copy);
+            linkSnapshot(rule.rhs(), copy.rhs(), copies);
+        }
+        return copy;
+    }
+
+    // the copied tree has the same shape as the original
+    private static void linkSnapshot(RHSTree tree, RHSTree copy, Map<Rule, Rule> copies) {
+        copy.setFirstSet(tree.getFirstSet());
+        if (tree.getType() == RHSType.IDENTIFIER) {
+            copy.setLink(snapshot(tree.getLink(), copies));
+        } else if (tree.getKind() != RHSKind.LEAF) {
+            for (int i = 0; i < tree.size(); i++) {
+                linkSnapshot(tree.getChild(i), copy.getChild(i), copies);
+            }
+        }
+    }
+
+    public String getStartRuleName() {
+        return startRule.lhs().getValue();
+    }
+
+    public boolean getIgnoreWSDefault() {
+        return ignoreWhiteSpaceDefault;
+    }
+
+    // left-recursive grammars need a memo, see Grammar::tryParse
+    public ParseResultTransformer tryParse(Tokenizer tokens) {
+        PackratMemo memo = leftRecursive ? new PackratMemo() : null;
+        return Grammar.tryParse(startRule, new ParseContext(tokens, memo, predictiveTable, deferredTransforms, greedyRepeats), engine);
+    }
+
+    // the memo must not be shared with a concurrent parse
+    public ParseResultTransformer tryParse(Tokenizer tokens, PackratMemo memo) {
+        memo.clear();
+        return Grammar.tryParse(startRule, new ParseContext(tokens, memo, predictiveTable, deferredTransforms, greedyRepeats), engine);
+    }
+
+    public boolean isInLanguage(Tokenizer tokens) {
+        return tryParse(tokens).isValid();
+    }
+
+    public ParseResultTransformer parseString(String parseString) {
+        return parseString(parseString, ignoreWhiteSpaceDefault);
+    }
+
+    public ParseResultTransformer parseString(String parseString, boolean ignoreWhiteSpace) {
+        return parseString(parseString, ignoreWhiteSpace, null);
+    }
+
+    public ParseResultTransformer parseString(String parseString, boolean ignoreWhiteSpace, PackratMemo memo) {
+        return parseText(parseString, ignoreWhiteSpace, memo);
+    }
+
+    // as with Parser::parseFile, files too large to read at once are an error
+    public ParseResultTransformer parseFile(File parseFile) {
+        return parseFile(parseFile, ignoreWhiteSpaceDefault);
+    }
+
+    public ParseResultTransformer parseFile(File parseFile, boolean ignoreWhiteSpace) {
+        String parseText;
+        try {
+            if (Files.size(parseFile.toPath()) > Integer.MAX_VALUE) {
+                throw new RuntimeException("Parse file is too large to read at once");
+            }
+            parseText = Files.readString(parseFile.toPath());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read parse file");
+        }
+        return parseText(parseText, ignoreWhiteSpace, null);
+    }
+
+    private ParseResultTransformer parseText(CharSequence parseText, boolean ignoreWhiteSpace, PackratMemo memo) {
+        Tokenizer tokens = scannerless ? new ScannerlessTokenizer(ignoreWhiteSpace) : new Tokenizer(ttl, ignoreWhiteSpace);
+        try {
+            tokens.tokenize(parseText);
+        } catch (TokenizerException e) {
+            return new ParseResultTransformer(false, null, e.getMessage());
+        }
+        if (memo == null) {
+            return tryParse(tokens);
+        } else {
+            return tryParse(tokens, memo);
+        }
+    }
+
+    public boolean checkString(String parseString) {
+        return checkString(parseString, ignoreWhiteSpaceDefault);
+    }
+
+    public boolean checkString(String parseString, boolean ignoreWhiteSpace) {
+        return parseString(parseString, ignoreWhiteSpace).isValid();
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.blamedcloud.parsertongue.grammar;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.blamedcloud.parsertongue.tokenizer.ScannerlessTokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenType;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+
+// The FIRST set of a Rule or RHSTree: the terminals (token values) that
+// a match of it can start with, the regex leaves it can start with, and
+// whether it can match without consuming a token. A regex leaf matches a
+// merge of one or more tokens, so it can start with any token that is a
+// prefix of some match. Expecterators use it to skip children that can't
+// possibly match at the current token.
+public final class FirstSet {
+
+    private static final FirstSet EMPTY = new FirstSet(Collections.emptySet(), Collections.emptySet(), false, false);
+
+    private final Set<String> terminals;
+    private final Set<TokenType> regexTypes;
+    private final boolean anyToken;
+    private final boolean nullable;
+
+    private FirstSet(Set<String> terminals, Set<TokenType> regexTypes, boolean anyToken, boolean nullable) {
+        this.terminals = terminals;
+        this.regexTypes = regexTypes;
+        this.anyToken = anyToken;
+        this.nullable = nullable;
+    }
+
+    public Set<String> getTerminals() {
+        return terminals;
+    }
+
+    public Set<TokenType> getRegexTypes() {
+        return regexTypes;
+    }
+
+    public boolean matchesAnyToken() {
+        return anyToken;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    // false only if a match can't start at the tokenizer's current position
+    public boolean canStart(Tokenizer tokens) {
+        if (nullable) {
+            return true;
+        } else if (tokens.isExhausted() || tokens.isEmpty()) {
+            return false;
+        } else if (anyToken || tokens instanceof ScannerlessTokenizer) {
+            // (a character isn't a token to look up)
+            return true;
+        }
+        String value = tokens.currentToken().getValue();
+        if (terminals.contains(value)) {
+            return true;
+        }
+        for (TokenType regexType : regexTypes) {
+            if (canStartMatch(regexType.getPattern(), value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // hitEnd means that more text (merging more tokens) could still match
+    private static boolean canStartMatch(Pattern pattern, String value) {
+        Matcher matcher = pattern.matcher(value);
+        return matcher.matches() || matcher.hitEnd();
+    }
+
+    private FirstSet union(FirstSet other, boolean unionNullable) {
+        if (other.terminals.isEmpty() && other.regexTypes.isEmpty() && !other.anyToken && (nullable == unionNullable)) {
+            return this;
+        }
+        Set<String> unionTerminals = new HashSet<>(terminals);
+        unionTerminals.addAll(other.terminals);
+        Set<TokenType> unionRegexTypes = new HashSet<>(regexTypes);
+        unionRegexTypes.addAll(other.regexTypes);
+        return new FirstSet(Collections.unmodifiableSet(unionTerminals), Collections.unmodifiableSet(unionRegexTypes),
+                            anyToken || other.anyToken, unionNullable);
+    }
+
+    private FirstSet withNullable(boolean newNullable) {
+        if (nullable == newNullable) {
+            return this;
+        }
+        return new FirstSet(terminals, regexTypes, anyToken, newNullable);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof FirstSet) {
+            FirstSet first = (FirstSet) other;
+            return anyToken == first.anyToken && nullable == first.nullable
+                && terminals.equals(first.terminals) && regexTypes.equals(first.regexTypes);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return (terminals.hashCode() * 31 + regexTypes.hashCode()) * 4 + (anyToken ? 2 : 0) + (nullable ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "FirstSet(" + terminals + ", " + regexTypes + (anyToken ? ", any token" : "") + (nullable ? ", nullable" : "") + ")";
+    }
+
+    // Computes the FIRST sets of the given rules, and every rule reachable
+    // from them (through external rules too), and stores them on the rules
+    // and each of their RHSTree nodes. Recursive rules need a fixed point:
+    // every rule starts out as EMPTY and the sets only ever grow.
+    static void computeFirstSets(Collection<Rule> rules) {
+        Set<Rule> reachable = findReachableRules(rules);
+
+        Map<Rule, FirstSet> ruleSets = new HashMap<>();
+        for (Rule rule : reachable) {
+            ruleSets.put(rule, EMPTY);
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Rule rule : reachable) {
+                FirstSet first = compute(rule.rhs(), ruleSets, false);
+                if (!first.equals(ruleSets.get(rule))) {
+                    ruleSets.put(rule, first);
+                    changed = true;
+                }
+            }
+        }
+
+        for (Rule rule : reachable) {
+            rule.setFirstSet(ruleSets.get(rule));
+            compute(rule.rhs(), ruleSets, true);
+        }
+    }
+
+    private static Set<Rule> findReachableRules(Collection<Rule> rules) {
+        Set<Rule> reachable = new LinkedHashSet<>(rules);
+        Deque<RHSTree> trees = new ArrayDeque<>();
+        for (Rule rule : rules) {
+            trees.push(rule.rhs());
+        }
+        while (!trees.isEmpty()) {
+            RHSTree tree = trees.pop();
+            if (tree.getType() == RHSType.IDENTIFIER) {
+                if (tree.hasLink() && reachable.add(tree.getLink())) {
+                    trees.push(tree.getLink().rhs());
+                }
+            } else if (tree.getKind() != RHSKind.LEAF) {
+                for (RHSTree child : tree.getChildren()) {
+                    trees.push(child);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    private static FirstSet compute(RHSTree tree, Map<Rule, FirstSet> ruleSets, boolean store) {
+        FirstSet first;
+        RHSType type = tree.getType();
+        if (type == RHSType.TERMINAL) {
+            String terminal = tree.getNode().getValue();
+            if (terminal.length() == 0) {
+                first = EMPTY.withNullable(true);
+            } else {
+                first = new FirstSet(Collections.singleton(terminal), Collections.emptySet(), false, false);
+            }
+        } else if (type == RHSType.REGEX) {
+            TokenType regexType = tree.getRegexNode();
+            first = new FirstSet(Collections.emptySet(), Collections.singleton(regexType), false, regexType.isTypeOf(""));
+        } else if (type == RHSType.IDENTIFIER) {
+            if (tree.hasLink()) {
+                first = ruleSets.get(tree.getLink());
+            } else {
+                // not linked (yet), so nothing can be ruled out
+                first = new FirstSet(Collections.emptySet(), Collections.emptySet(), true, true);
+            }
+        } else if (type == RHSType.GROUP) {
+            first = compute(tree.getChild(), ruleSets, store);
+        } else if (type == RHSType.OPTIONAL || type == RHSType.REPEAT) {
+            first = compute(tree.getChild(), ruleSets, store).withNullable(true);
+        } else if (type == RHSType.ALTERNATION) {
+            first = EMPTY;
+            for (RHSTree child : tree.getChildren()) {
+                FirstSet childFirst = compute(child, ruleSets, store);
+                first = first.union(childFirst, first.nullable || childFirst.nullable);
+            }
+        } else if (type == RHSType.CONCATENATION) {
+            // a child only adds to the set if everything before it is nullable
+            first = EMPTY.withNullable(true);
+            for (RHSTree child : tree.getChildren()) {
+                if (first.nullable) {
+                    FirstSet childFirst = compute(child, ruleSets, store);
+                    first = first.union(childFirst, childFirst.nullable);
+                } else if (store) {
+                    compute(child, ruleSets, store);
+                } else {
+                    break;
+                }
+            }
+        } else {
+            throw new RuntimeException("Unknown RHSType: " + type);
+        }
+        if (store) {
+            tree.setFirstSet(first);
+        }
+        return first;
+    }
+
+}
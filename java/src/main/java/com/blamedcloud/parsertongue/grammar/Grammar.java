@@ -15,11 +15,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import com.blamedcloud.parsertongue.grammar.annotations.AnnotationManager;
+import com.blamedcloud.parsertongue.grammar.earley.EarleyParser;
+import com.blamedcloud.parsertongue.grammar.earley.ParseForest;
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.expecterator.ParseContext;
 import com.blamedcloud.parsertongue.grammar.expecterator.ParseResultExpecterator;
+import com.blamedcloud.parsertongue.grammar.predictive.PredictiveTable;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultFunction;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.grammar.stack.StackParser;
 import com.blamedcloud.parsertongue.smallstrings.SmallestStringIterator;
 import com.blamedcloud.parsertongue.tokenizer.Token;
 import com.blamedcloud.parsertongue.tokenizer.TokenType;
@@ -39,6 +48,13 @@ public class Grammar {
     private boolean linkageDone;
     private TokenizerTypeList additionalTokenTypes;
     private AnnotationManager annotationManager;
+    private PredictiveTable predictiveTable;
+    private boolean predictiveParsing;
+    private boolean leftRecursive;
+    private ParseEngine engine;
+    private boolean deferredTransforms;
+    private boolean greedyRepeats;
+    private boolean scannerless;
 
     public static Tokenizer newTokenizer() {
         return new Tokenizer();
@@ -135,6 +151,13 @@ public class Grammar {
         linkageDone = false;
         additionalTokenTypes = new TokenizerTypeList();
         annotationManager = null;
+        predictiveTable = null;
+        predictiveParsing = true;
+        leftRecursive = false;
+        engine = ParseEngine.BACKTRACKING;
+        deferredTransforms = false;
+        greedyRepeats = false;
+        scannerless = false;
     }
 
     private void parseRules(Builder builder) {
@@ -190,6 +213,9 @@ public class Grammar {
         }
 
         Rule rule = new Rule(splitTokenizers.get(0));
+        if (splitTokenizers.size() == 2) {
+            rule.setAnnotation(annotationText(splitTokenizers.get(1)));
+        }
         if (splitTokenizers.size() == 2 && annotationManager != null) {
             ParseResultFunction f = annotationManager.parseAnnotation(splitTokenizers.get(1));
             rule.setTransformer(f);
@@ -200,6 +226,22 @@ public class Grammar {
         return rule;
     }
 
+    private static String annotationText(Tokenizer annotationTokens) {
+        StringBuilder text = new StringBuilder();
+        if (annotationTokens.isEmpty()) {
+            return "";
+        }
+        annotationTokens.setIndex(0, false);
+        do {
+            if (text.length() > 0) {
+                text.append(" ");
+            }
+            text.append(annotationTokens.currentToken().getFullText());
+        } while (annotationTokens.nextToken());
+        annotationTokens.setIndex(0, false);
+        return text.toString();
+    }
+
     private void addRule(Rule rule) {
         if (rule.hasDependency()) {
             String dependencyName = rule.getDependencyName();
@@ -251,6 +293,10 @@ public class Grammar {
             for (Rule rule : rules) {
                 rule.createLinkage(ruleMap, externalRuleMaps);
             }
+            FirstSet.computeFirstSets(rules);
+            LeftRecursion.markRules(rules);
+            leftRecursive = LeftRecursion.reachesLeftRecursion(rules);
+            predictiveTable = new PredictiveTable(rules);
             linkageDone = true;
         }
     }
@@ -313,34 +359,239 @@ public class Grammar {
         return startRule.walk();
     }
 
+    public void setEngine(ParseEngine engine) {
+        this.engine = engine;
+    }
+
+    public ParseEngine getEngine() {
+        return engine;
+    }
+
+    // LL(1) rules are parsed without backtracking unless this is
+    // turned off (see PredictiveTable), it's on by default.
+    public void setPredictiveParsing(boolean predictive) {
+        predictiveParsing = predictive;
+    }
+
+    public boolean getPredictiveParsing() {
+        return predictiveParsing;
+    }
+
+    // With deferred transforms, the backtracking and stack engines leave
+    // every rule's transformer in a DeferredParseResult, and only apply
+    // them once a complete parse has been found, so transformers never
+    // run on a parse that is later backtracked out of. If one throws, the
+    // search goes on to the next complete parse, so the results are the
+    // same as without. It's off by default. (The Earley engine only ever
+    // transforms the parse it reads out of its chart anyway.)
+    public void setDeferredTransforms(boolean deferred) {
+        deferredTransforms = deferred;
+    }
+
+    public boolean getDeferredTransforms() {
+        return deferredTransforms;
+    }
+
+    // With greedy repeats, the backtracking engine's repeats try their
+    // longest match first, and back off an element at a time, instead of
+    // trying the empty match first and adding an element at a time. They
+    // match the same lists either way, so the same strings are accepted,
+    // but an ambiguous grammar may be given a different parse. (The
+    // exception is a cut after a repeat, which commits to whichever of its
+    // matches comes first.) It's off by default, and the other engines
+    // ignore it.
+    public void setGreedyRepeats(boolean greedy) {
+        greedyRepeats = greedy;
+    }
+
+    public boolean getGreedyRepeats() {
+        return greedyRepeats;
+    }
+
+    // In scannerless mode, Parser and CompiledGrammar parse text without
+    // tokenizing it first: they hand the grammar a ScannerlessTokenizer,
+    // and terminals and regexes are matched against the text at character
+    // offsets. Ignoring white space then means skipping it before each
+    // terminal and regex, rather than between tokens. Regexes can match
+    // across what would have been token boundaries, and terminals don't
+    // need to be whole tokens (so 'if' matches the start of "iffy"). Only
+    // the backtracking and stack engines can parse without tokens, and
+    // neither uses the predictive table or FIRST sets of terminals when
+    // they do. Streaming parses still tokenize. It's off by default.
+    public void setScannerless(boolean scannerless) {
+        this.scannerless = scannerless;
+    }
+
+    public boolean getScannerless() {
+        return scannerless;
+    }
+
+    // null before linking
+    public PredictiveTable getPredictiveTable() {
+        return predictiveTable;
+    }
+
     public ParseResultTransformer tryParse(Tokenizer tokens) {
+        return tryParse(newContext(tokens, null));
+    }
+
+    // packrat mode: the memo is cleared, then caches every
+    // (rule, token index) result for the duration of this parse.
+    public ParseResultTransformer tryParse(Tokenizer tokens, PackratMemo memo) {
+        memo.clear();
+        return tryParse(newContext(tokens, memo));
+    }
+
+    // Incremental mode: like packrat mode, but the memo isn't cleared, so
+    // the results it kept over an edit of the tokens (see
+    // PackratMemo::edit) are reused, and only the rules that looked at
+    // what changed are parsed again. The predictive table isn't used, so
+    // that every rule's results go in the memo. (The other engines don't
+    // use a memo, so they just parse the tokens again.)
+    public ParseResultTransformer reparse(Tokenizer tokens, PackratMemo memo) {
+        return tryParse(new ParseContext(tokens, memo, null, deferredTransforms, greedyRepeats));
+    }
+
+    // every parse of the tokens, whatever the engine (see ParseForest)
+    public ParseForest parseForest(Tokenizer tokens) {
         if (!linkageDone) {
             throw new RuntimeException("Cannot try a parse without linking");
         }
+        return new ParseForest(startRule, tokens);
+    }
+
+    // Left-recursive rules are only parsed by growing their results in a
+    // PackratMemo, so grammars that use them always get one.
+    private ParseContext newContext(Tokenizer tokens, PackratMemo memo) {
+        if (memo == null && leftRecursive) {
+            memo = new PackratMemo();
+        }
+        return new ParseContext(tokens, memo, predictiveParsing ? predictiveTable : null, deferredTransforms, greedyRepeats);
+    }
 
-        ParseResultExpecterator expecterator = startRule.getExpecterator(tokens);
+    private ParseResultTransformer tryParse(ParseContext context) {
+        if (!linkageDone) {
+            throw new RuntimeException("Cannot try a parse without linking");
+        }
+        return tryParse(startRule, context, engine);
+    }
+
+    // the Earley engine has no use for the memo or predictive table
+    static ParseResultTransformer tryParse(Rule startRule, ParseContext context, ParseEngine engine) {
+        if (engine == ParseEngine.EARLEY) {
+            return new EarleyParser(startRule, context.getTokenizer()).parse();
+        } else if (engine == ParseEngine.STACK) {
+            return new StackParser(startRule, context).parse();
+        }
+        return tryParse(startRule, context);
+    }
+
+    private static ParseResultTransformer tryParse(Rule startRule, ParseContext context) {
+        Tokenizer tokens = context.getTokenizer();
+        ParseResultExpecterator expecterator = startRule.getExpecterator(context);
         ParseResultTransformer result = null;
         while (expecterator.hasNext()) {
             Optional<ParseResultTransformer> optionalResult = expecterator.tryNext();
             if (optionalResult.isPresent()) {
                 result = optionalResult.get();
-                if (result.isValid()) {
-                    if (tokens.size() == 0) {
-                        return result;
-                    } else if (tokens.isExhausted()) {
+                if (result.isValid() && (tokens.isEmpty() || tokens.isExhausted())) {
+                    result = context.accept(result);
+                    if (result.isValid()) {
                         return result;
                     }
                 }
             }
         }
 
-        if ((result != null) && (!result.isValid() || tokens.isExhausted() || tokens.size() == 0)) {
+        if ((result != null) && (!result.isValid() || tokens.isExhausted() || tokens.isEmpty())) {
             return result;
         }
 
         return new ParseResultTransformer(false, null, "Tokens not Exhausted");
     }
 
+    // Snapshots the linked grammar (and everything it depends on) along
+    // with the TokenizerTypeList to parse with, see CompiledGrammar.
+    public CompiledGrammar compile(TokenizerTypeList ttl, boolean ignoreWhiteSpaceDefault) {
+        if (!linkageDone) {
+            throw new RuntimeException("Cannot compile without linking");
+        }
+        return new CompiledGrammar(startRule, ttl, ignoreWhiteSpaceDefault, predictiveParsing, engine, deferredTransforms, greedyRepeats, scannerless);
+    }
+
+    // Streaming mode: when the start rule is a repeat, each element of it
+    // is committed to as soon as it has a valid parse (using the first one
+    // found), and tokens before it are released from the tokenizer.
+    // That means an earlier element is never re-parsed to help a later one, but
+    // only the tokens of the current element are ever needed.
+    // If elementConsumer is given, each element's result is passed to it
+    // rather than kept, and the returned transformer holds no result.
+    // Start rules that are not repeats are parsed as usual, the elements
+    // of repeats always use the backtracking engine.
+    public ParseResultTransformer tryParseStreaming(Tokenizer tokens, Consumer<ParseResult> elementConsumer) {
+        if (!linkageDone) {
+            throw new RuntimeException("Cannot try a parse without linking");
+        }
+
+        RHSTree repeatTree = startRule.rhs();
+        while (repeatTree.getType() == RHSType.GROUP) {
+            repeatTree = repeatTree.getChild();
+        }
+        if (repeatTree.getType() != RHSType.REPEAT) {
+            ParseResultTransformer result = tryParse(tokens);
+            if (result.isValid() && elementConsumer != null) {
+                elementConsumer.accept(result.getResult());
+                return new ParseResultTransformer(true, null, null);
+            }
+            return result;
+        }
+
+        ParseContext context = newContext(tokens, null);
+        ListParseResult elements = new ListParseResult();
+        while (!tokens.isEmpty() && !tokens.isExhausted()) {
+            int startIndex = tokens.getIndex();
+            ParseResultExpecterator expecterator = repeatTree.getChild().getExpecterator(context);
+            ParseResultTransformer element = null;
+            String lastError = null;
+            while (element == null && expecterator.hasNext()) {
+                expecterator.reset();
+                Optional<ParseResultTransformer> optionalResult = expecterator.tryNext();
+                if (optionalResult.isPresent()) {
+                    ParseResultTransformer result = optionalResult.get();
+                    if (result.isValid() && (tokens.isExhausted() || tokens.getIndex() != startIndex)) {
+                        // an element that consumes nothing would repeat forever
+                        result = context.accept(result);
+                        if (result.isValid()) {
+                            element = result;
+                        }
+                    }
+                    if (!result.isValid()) {
+                        lastError = result.getError();
+                    }
+                }
+            }
+
+            if (element == null) {
+                if (lastError == null) {
+                    lastError = "Tokens not Exhausted";
+                }
+                return new ParseResultTransformer(false, null, lastError);
+            }
+
+            tokens.commit(tokens.getIndex());
+            if (elementConsumer != null) {
+                elementConsumer.accept(element.getResult());
+            } else {
+                elements.add(element.getResult());
+            }
+        }
+
+        if (elementConsumer != null) {
+            return new ParseResultTransformer(true, null, null);
+        }
+        return new ParseResultTransformer(true, elements, null).transform(startRule.getTransformer());
+    }
+
     public Set<String> getAlphabet() {
         return getAlphabet(true);
     }
@@ -1,5 +1,7 @@
 package com.blamedcloud.parsertongue.grammar;
 
+import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.CUT;
+
 public class GrammarSaver {
 
     public static final String DEFAULT_RULE_SPLIT = "\n";
@@ -53,9 +55,18 @@ public class GrammarSaver {
             // iterate over all but the last child
             for (int i = 0; i < tree.size() - 1; i++) {
                 RHSTree child = tree.getChild(i);
+                if (i == tree.getCutIndex()) {
+                    treeString += CUT + separator;
+                }
                 treeString += saveRHS(child) + separator;
             }
+            if (tree.size() - 1 == tree.getCutIndex()) {
+                treeString += CUT + separator;
+            }
             treeString += saveRHS(tree.getChild(tree.size()-1));
+            if (tree.size() == tree.getCutIndex()) {
+                treeString += separator + CUT;
+            }
         }
 
         return treeString;
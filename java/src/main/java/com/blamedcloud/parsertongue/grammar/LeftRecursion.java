@@ -0,0 +1,95 @@
+package com.blamedcloud.parsertongue.grammar;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+// Finds the left-recursive rules: those that can call themselves at
+// the same token position, through every rule that can be called
+// before anything is consumed (their left corners). The expecterators
+// would recurse on these forever, so the PackratMemo grows their
+// results instead. Needs the FIRST sets to know what can be skipped.
+final class LeftRecursion {
+
+    private LeftRecursion() {
+    }
+
+    // marks each of the given rules, returns true if any were left-recursive
+    static boolean markRules(Collection<Rule> rules) {
+        boolean any = false;
+        for (Rule rule : rules) {
+            boolean leftRecursive = isLeftCornerOf(rule, rule);
+            rule.setLeftRecursive(leftRecursive);
+            any |= leftRecursive;
+        }
+        return any;
+    }
+
+    // true if anything reachable from the given rules is left-recursive
+    // (external rules are marked when their own grammar is linked)
+    static boolean reachesLeftRecursion(Collection<Rule> rules) {
+        Set<Rule> seen = new HashSet<>(rules);
+        Deque<Rule> toVisit = new ArrayDeque<>(rules);
+        while (!toVisit.isEmpty()) {
+            Rule rule = toVisit.pop();
+            if (rule.isLeftRecursive()) {
+                return true;
+            }
+            Deque<RHSTree> trees = new ArrayDeque<>();
+            trees.push(rule.rhs());
+            while (!trees.isEmpty()) {
+                RHSTree tree = trees.pop();
+                if (tree.getType() == RHSType.IDENTIFIER) {
+                    if (tree.hasLink() && seen.add(tree.getLink())) {
+                        toVisit.push(tree.getLink());
+                    }
+                } else if (tree.getKind() != RHSKind.LEAF) {
+                    for (RHSTree child : tree.getChildren()) {
+                        trees.push(child);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLeftCornerOf(Rule target, Rule rule) {
+        Set<Rule> seen = new HashSet<>();
+        Deque<Rule> toVisit = new ArrayDeque<>();
+        addLeftCorners(rule.rhs(), toVisit);
+        while (!toVisit.isEmpty()) {
+            Rule corner = toVisit.pop();
+            if (corner == target) {
+                return true;
+            }
+            if (seen.add(corner)) {
+                addLeftCorners(corner.rhs(), toVisit);
+            }
+        }
+        return false;
+    }
+
+    private static void addLeftCorners(RHSTree tree, Deque<Rule> corners) {
+        RHSType type = tree.getType();
+        if (type == RHSType.IDENTIFIER) {
+            if (tree.hasLink()) {
+                corners.push(tree.getLink());
+            }
+        } else if (type == RHSType.CONCATENATION) {
+            for (RHSTree child : tree.getChildren()) {
+                addLeftCorners(child, corners);
+                FirstSet childFirst = child.getFirstSet();
+                if (childFirst != null && !childFirst.isNullable()) {
+                    break;
+                }
+            }
+        } else if (tree.getKind() != RHSKind.LEAF) {
+            for (RHSTree child : tree.getChildren()) {
+                addLeftCorners(child, corners);
+            }
+        }
+    }
+
+}
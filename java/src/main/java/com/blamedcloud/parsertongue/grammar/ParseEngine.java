@@ -0,0 +1,13 @@
+package com.blamedcloud.parsertongue.grammar;
+
+// Which algorithm Grammar::tryParse uses. BACKTRACKING is the
+// expecterator engine (with the packrat and predictive modes), EARLEY
+// is an EarleyParser, which never backtracks and so stays polynomial
+// on ambiguous grammars. STACK is the backtracking engine run from an
+// explicit stack on the heap (see StackParser), for inputs too long for
+// the expecterators' recursion.
+public enum ParseEngine {
+    BACKTRACKING,
+    EARLEY,
+    STACK;
+}
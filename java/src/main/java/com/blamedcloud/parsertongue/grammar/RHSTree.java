@@ -8,13 +8,17 @@ import java.util.Set;
 
 import com.blamedcloud.parsertongue.grammar.expecterator.AlternationExpecterator;
 import com.blamedcloud.parsertongue.grammar.expecterator.ConcatenationExpecterator;
+import com.blamedcloud.parsertongue.grammar.expecterator.GreedyRepeatExpecterator;
 import com.blamedcloud.parsertongue.grammar.expecterator.GroupExpecterator;
 import com.blamedcloud.parsertongue.grammar.expecterator.IdentifierExpecterator;
 import com.blamedcloud.parsertongue.grammar.expecterator.OptionalExpecterator;
+import com.blamedcloud.parsertongue.grammar.expecterator.ParseContext;
 import com.blamedcloud.parsertongue.grammar.expecterator.ParseResultExpecterator;
 import com.blamedcloud.parsertongue.grammar.expecterator.RegexExpecterator;
 import com.blamedcloud.parsertongue.grammar.expecterator.RepeatExpecterator;
 import com.blamedcloud.parsertongue.grammar.expecterator.TerminalExpecterator;
+import com.blamedcloud.parsertongue.tokenizer.CompiledTokenizerTypeList;
+import com.blamedcloud.parsertongue.tokenizer.ScannerlessTokenizer;
 import com.blamedcloud.parsertongue.tokenizer.Token;
 import com.blamedcloud.parsertongue.tokenizer.TokenType;
 import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
@@ -32,6 +36,9 @@ public class RHSTree {
     private Token node;
     private TokenType regexNode;
     private Rule link;
+    private FirstSet firstSet;
+    private int cutIndex;
+    private TerminalId terminalId;
 
     public RHSTree(RHSType type) {
         levelType = type;
@@ -40,6 +47,9 @@ public class RHSTree {
         node = null;
         regexNode = null;
         link = null;
+        firstSet = null;
+        cutIndex = -1;
+        terminalId = null;
     }
 
     public void addChild(RHSTree child) {
@@ -70,6 +80,19 @@ public class RHSTree {
         }
     }
 
+    public boolean hasLink() {
+        return link != null;
+    }
+
+    // used to link snapshot copies, see CompiledGrammar
+    void setLink(Rule rule) {
+        if (levelType == RHSType.IDENTIFIER) {
+            link = rule;
+        } else {
+            throw new RuntimeException("Can't link RHSTree of type: " + levelType);
+        }
+    }
+
     public Set<String> nonLinkedTerminals() {
         Set<String> terminals = new HashSet<>();
         if (levelType == RHSType.TERMINAL) {
@@ -163,6 +186,87 @@ public class RHSTree {
         }
     }
 
+    // A concatenation with a cut ("a, b, !, c") commits to what its
+    // children before the cut matched once it gets that far: they aren't
+    // tried again, and if the concatenation is an alternative (of the
+    // nearest alternation around it, looking through groups) neither are
+    // the alternatives after it. The cut index is the number of children
+    // before the cut, or -1 if there isn't one.
+    public boolean hasCut() {
+        return cutIndex >= 0;
+    }
+
+    public int getCutIndex() {
+        return cutIndex;
+    }
+
+    public void setCutIndex(int index) {
+        if (levelType != RHSType.CONCATENATION) {
+            throw new RuntimeException("Can't cut RHSTree of type: " + levelType);
+        } else if (index < 0 || index > children.size()) {
+            throw new RuntimeException("Invalid cut index: " + index);
+        }
+        cutIndex = index;
+    }
+
+    // computed when the grammar is linked, null before then
+    public FirstSet getFirstSet() {
+        return firstSet;
+    }
+
+    void setFirstSet(FirstSet first) {
+        firstSet = first;
+    }
+
+    // true unless this tree's FIRST set rules out a match at the current token
+    public boolean canStart(Tokenizer tokens) {
+        return firstSet == null || firstSet.canStart(tokens);
+    }
+
+    // the id of a TERMINAL's value in some token types (see
+    // CompiledTokenizerTypeList::getExactId), kept for the last types asked
+    // about
+    private static final class TerminalId {
+
+        private final CompiledTokenizerTypeList tokenTypes;
+        private final int id;
+
+        private TerminalId(CompiledTokenizerTypeList tokenTypes, int id) {
+            this.tokenTypes = tokenTypes;
+            this.id = id;
+        }
+
+    }
+
+    // Whether the current (non-exhausted) token is this TERMINAL. Tokens
+    // of ExactToken types are compared by id, and others by their value.
+    public boolean matchesTerminal(Tokenizer tokens) {
+        int exactId = tokens.currentExactId();
+        if (exactId < 0) {
+            return tokens.currentValueEquals(node.getValue());
+        }
+        CompiledTokenizerTypeList tokenTypes = tokens.getTokenTypes();
+        TerminalId cached = terminalId;
+        if (cached == null || cached.tokenTypes != tokenTypes) {
+            cached = new TerminalId(tokenTypes, tokenTypes.getExactId(node.getValue()));
+            terminalId = cached;
+        }
+        return exactId == cached.id;
+    }
+
+    // Moves past this (non-empty) TERMINAL if it's next, returning whether
+    // it was. Without a tokenization pass, it's matched against the text.
+    public boolean acceptTerminal(Tokenizer tokens) {
+        tokens.skipIgnored();
+        if (tokens instanceof ScannerlessTokenizer) {
+            return ((ScannerlessTokenizer) tokens).acceptText(node.getValue());
+        } else if (!tokens.isExhausted() && matchesTerminal(tokens)) {
+            tokens.nextToken();
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         return representation("", "    ");
@@ -172,6 +276,9 @@ public class RHSTree {
         StringBuilder sb = new StringBuilder();
         sb.append(previousIndent).append("RHSType: ").append(levelType).append("\n");
         sb.append(previousIndent).append("RHSKind: ").append(levelKind).append("\n");
+        if (hasCut()) {
+            sb.append(previousIndent).append("Cut: ").append(cutIndex).append("\n");
+        }
         if (node != null) {
             sb.append(previousIndent).append("Node: ").append(node.toString()).append("\n");
         } else {
@@ -185,22 +292,29 @@ public class RHSTree {
     }
 
     public ParseResultExpecterator getExpecterator(Tokenizer tokens) {
+        return getExpecterator(new ParseContext(tokens));
+    }
+
+    public ParseResultExpecterator getExpecterator(ParseContext context) {
         if (levelType == RHSType.TERMINAL) {
-            return new TerminalExpecterator(this, tokens);
+            return new TerminalExpecterator(this, context);
         } else if (levelType == RHSType.REGEX) {
-            return new RegexExpecterator(this, tokens);
+            return new RegexExpecterator(this, context);
         } else if (levelType == RHSType.IDENTIFIER) {
-            return new IdentifierExpecterator(this, tokens);
+            return new IdentifierExpecterator(this, context);
         } else if (levelType == RHSType.GROUP) {
-            return new GroupExpecterator(this, tokens);
+            return new GroupExpecterator(this, context);
         } else if (levelType == RHSType.OPTIONAL) {
-            return new OptionalExpecterator(this, tokens);
+            return new OptionalExpecterator(this, context);
         } else if (levelType == RHSType.ALTERNATION) {
-            return new AlternationExpecterator(this, tokens);
+            return new AlternationExpecterator(this, context);
         } else if (levelType == RHSType.REPEAT) {
-            return new RepeatExpecterator(this, tokens);
+            if (context.hasGreedyRepeats()) {
+                return new GreedyRepeatExpecterator(this, context);
+            }
+            return new RepeatExpecterator(this, context);
         } else if (levelType == RHSType.CONCATENATION) {
-            return new ConcatenationExpecterator(this, 0, tokens);
+            return new ConcatenationExpecterator(this, 0, context);
         }
         throw new RuntimeException("unknown level type");
     }
@@ -261,6 +375,7 @@ public class RHSTree {
             for (RHSTree child : children) {
                 newTree.addChild(child.copy());
             }
+            newTree.cutIndex = cutIndex;
         }
 
         if (levelKind == RHSKind.LEAF) {
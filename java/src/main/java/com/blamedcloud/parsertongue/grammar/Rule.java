@@ -6,6 +6,7 @@ import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.CON
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.CONTROL_NAME;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.CONTROL_SEPARATOR_TOKENS;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.CONTROL_START_TOKENS;
+import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.CUT_NAME;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.DEFINE_NAME;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.EXTERNAL_NAME;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.GROUP_END;
@@ -19,10 +20,14 @@ import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.REP
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.TERMINAL_NAME;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.blamedcloud.parsertongue.grammar.expecterator.MemoizedRuleExpecterator;
+import com.blamedcloud.parsertongue.grammar.expecterator.ParseContext;
 import com.blamedcloud.parsertongue.grammar.expecterator.ParseResultExpecterator;
+import com.blamedcloud.parsertongue.grammar.expecterator.PredictiveRuleExpecterator;
 import com.blamedcloud.parsertongue.grammar.expecterator.RuleExpecterator;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultFunction;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
@@ -43,6 +48,9 @@ public class Rule {
     private String externalName;
     private boolean regex;
     private TokenType regexTokenType;
+    private FirstSet firstSet;
+    private boolean leftRecursive;
+    private String annotation;
 
     private static final int MIN_TOKEN_COUNT = 3;
     private static final int EXTERNAL_RULE_SIZE = 5;
@@ -121,6 +129,9 @@ public class Rule {
         externalName = builder.externalName;
         regex = builder.regex;
         regexTokenType = builder.regexTokenType;
+        firstSet = null;
+        leftRecursive = false;
+        annotation = null;
     }
 
     public Rule(Tokenizer tokens) {
@@ -132,6 +143,9 @@ public class Rule {
         externalName = null;
         regex = false;
         regexTokenType = null;
+        firstSet = null;
+        leftRecursive = false;
+        annotation = null;
         parseRule();
     }
 
@@ -146,7 +160,9 @@ public class Rule {
         if (regex) {
             builder.setRegexTokenType(regexTokenType);
         }
-        return builder.build();
+        Rule copy = builder.build();
+        copy.setAnnotation(annotation);
+        return copy;
     }
 
     public static ParseResultFunction compose(ParseResultFunction outer, ParseResultFunction inner) {
@@ -165,6 +181,16 @@ public class Rule {
         return transformer;
     }
 
+    // the text of the rule's annotation in its grammar file (or null), which
+    // is kept whether or not the grammar had an AnnotationManager to apply it
+    public void setAnnotation(String annotationText) {
+        annotation = annotationText;
+    }
+
+    public String getAnnotation() {
+        return annotation;
+    }
+
     public boolean hasDependency() {
         return external;
     }
@@ -181,8 +207,36 @@ public class Rule {
         return regexTokenType;
     }
 
+    // computed when the grammar is linked, null before then
+    public FirstSet getFirstSet() {
+        return firstSet;
+    }
+
+    void setFirstSet(FirstSet first) {
+        firstSet = first;
+    }
+
+    // computed when the grammar is linked, see LeftRecursion
+    public boolean isLeftRecursive() {
+        return leftRecursive;
+    }
+
+    void setLeftRecursive(boolean leftRecursive) {
+        this.leftRecursive = leftRecursive;
+    }
+
     public ParseResultExpecterator getExpecterator(Tokenizer tokens) {
-        return new RuleExpecterator(this, tokens);
+        return getExpecterator(new ParseContext(tokens));
+    }
+
+    public ParseResultExpecterator getExpecterator(ParseContext context) {
+        if (context.isPredictive(this)) {
+            return new PredictiveRuleExpecterator(this, context);
+        } else if (context.hasMemo()) {
+            return new MemoizedRuleExpecterator(this, context);
+        } else {
+            return new RuleExpecterator(this, context);
+        }
     }
 
     public FixedPair<Boolean, Integer> walk() {
@@ -306,6 +360,7 @@ public class Rule {
         if (!external && !regex) {
             ruleTokens.setIndex(index, exhausted);
             rhsTree = parseRHS();
+            foldCuts(rhsTree);
         }
 
         if (!ruleTokens.isExhausted()) {
@@ -318,7 +373,7 @@ public class Rule {
         TokenType currentType = currentTokenType();
         String currentTokenValue = ruleTokens.currentToken().getValue();
 
-        if (currentType.isSameAs(getTTByName(IDENTIFIER_NAME)) || currentType.isSameAs(getTTByName(TERMINAL_NAME))) {
+        if (currentType.isSameAs(getTTByName(IDENTIFIER_NAME)) || currentType.isSameAs(getTTByName(TERMINAL_NAME)) || isCutType(currentType)) {
             tree = new RHSTree(getRHSLeafTypeFromTokenType(currentType, ruleTokens.getTTL()));
             tree.createNode(ruleTokens.currentToken());
             if (ruleTokens.nextToken()) {
@@ -448,6 +503,40 @@ public class Rule {
         }
     }
 
+    private boolean isCutType(TokenType type) {
+        TokenType cutType = getTTByName(CUT_NAME);
+        return cutType != null && type.isSameAs(cutType);
+    }
+
+    private boolean isCut(RHSTree tree) {
+        return tree.getType() == RHSType.TERMINAL && isCutType(tree.getNode().getType());
+    }
+
+    // cuts are parsed as (terminal) leaves, then taken out of the
+    // concatenations they're in and recorded as their cut index
+    private void foldCuts(RHSTree tree) {
+        if (isCut(tree)) {
+            throw new RuntimeException("ERROR: a cut must be part of a concatenation in rule: " + lhsToken.getValue());
+        } else if (tree.getKind() != RHSKind.LEAF) {
+            List<RHSTree> children = tree.getChildren();
+            int cutIndex = -1;
+            for (int i = 0; i < children.size(); i++) {
+                if (tree.getType() == RHSType.CONCATENATION && isCut(children.get(i))) {
+                    if (cutIndex >= 0) {
+                        throw new RuntimeException("ERROR: more than one cut in a concatenation in rule: " + lhsToken.getValue());
+                    }
+                    cutIndex = i;
+                    children.remove(i--);
+                } else {
+                    foldCuts(children.get(i));
+                }
+            }
+            if (cutIndex >= 0) {
+                tree.setCutIndex(cutIndex);
+            }
+        }
+    }
+
     private boolean currentTokenIsConcatenation() {
         Token concatenationSepToken = new Token(CONCATENATION_SEP, getTTByName(CONTROL_NAME));
         return ruleTokens.currentToken().isSameAs(concatenationSepToken);
@@ -458,7 +547,7 @@ public class Rule {
         TokenType currentType = currentTokenType();
         String currentTokenValue = ruleTokens.currentToken().getValue();
 
-        if (currentType.isSameAs(getTTByName(IDENTIFIER_NAME)) || currentType.isSameAs(getTTByName(TERMINAL_NAME))) {
+        if (currentType.isSameAs(getTTByName(IDENTIFIER_NAME)) || currentType.isSameAs(getTTByName(TERMINAL_NAME)) || isCutType(currentType)) {
             tree = new RHSTree(getRHSLeafTypeFromTokenType(currentType, ruleTokens.getTTL()));
             tree.createNode(ruleTokens.currentToken());
             ruleTokens.nextToken();
@@ -491,7 +580,7 @@ public class Rule {
     private static RHSType getRHSLeafTypeFromTokenType(TokenType tt, TokenizerTypeList ttl) {
         if (tt.isSameAs(ttl.get(IDENTIFIER_NAME))) {
             return RHSType.IDENTIFIER;
-        } else if (tt.isSameAs(ttl.get(TERMINAL_NAME))) {
+        } else if (tt.isSameAs(ttl.get(TERMINAL_NAME)) || tt.isSameAs(ttl.get(CUT_NAME))) {
             return RHSType.TERMINAL;
         } else {
             throw new RuntimeException("getRHSLeafTypeFromTokenType: ERROR invalid tokentype");
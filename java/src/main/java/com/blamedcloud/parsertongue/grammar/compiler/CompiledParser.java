@@ -0,0 +1,79 @@
+package com.blamedcloud.parsertongue.grammar.compiler;
+
+import java.lang.invoke.MethodHandle;
+
+import com.blamedcloud.parsertongue.grammar.result.ParseResultFunction;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.TokenType;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerException;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+// A grammar compiled by GrammarCompiler, used like Parser::parseString.
+// Like CompiledGrammar it is an immutable snapshot, and each parse gets
+// its own instance of the generated class, so it can be shared between
+// threads (as long as the transformers are thread-safe).
+public final class CompiledParser {
+
+    private final MethodHandle constructor;
+    private final ParseResultFunction[] transformers;
+    private final TokenType[] regexes;
+    private final TokenizerTypeList ttl;
+    private final boolean ignoreWhiteSpaceDefault;
+    private final String source;
+
+    CompiledParser(MethodHandle constructor, ParseResultFunction[] transformers, TokenType[] regexes, TokenizerTypeList parserTTL, boolean ignoreWS, String source) {
+        this.constructor = constructor;
+        this.transformers = transformers;
+        this.regexes = regexes;
+        ttl = new TokenizerTypeList();
+        ttl.extend(parserTTL);
+        ttl.compile();
+        ignoreWhiteSpaceDefault = ignoreWS;
+        this.source = source;
+    }
+
+    // the generated source, for debugging
+    public String getSource() {
+        return source;
+    }
+
+    public boolean getIgnoreWSDefault() {
+        return ignoreWhiteSpaceDefault;
+    }
+
+    public ParseResultTransformer tryParse(Tokenizer tokens) {
+        return newRules().parse(CompiledRules.tokenValues(tokens));
+    }
+
+    private CompiledRules newRules() {
+        try {
+            return (CompiledRules) constructor.invoke(transformers, regexes);
+        } catch (Throwable e) {
+            throw new RuntimeException("Unable to create compiled rules", e);
+        }
+    }
+
+    public ParseResultTransformer parseString(String parseString) {
+        return parseString(parseString, ignoreWhiteSpaceDefault);
+    }
+
+    public ParseResultTransformer parseString(String parseString, boolean ignoreWhiteSpace) {
+        Tokenizer tokens = new Tokenizer(ttl, ignoreWhiteSpace);
+        try {
+            tokens.tokenize(parseString);
+        } catch (TokenizerException e) {
+            return new ParseResultTransformer(false, null, e.getMessage());
+        }
+        return tryParse(tokens);
+    }
+
+    public boolean checkString(String parseString) {
+        return checkString(parseString, ignoreWhiteSpaceDefault);
+    }
+
+    public boolean checkString(String parseString, boolean ignoreWhiteSpace) {
+        return parseString(parseString, ignoreWhiteSpace).isValid();
+    }
+
+}
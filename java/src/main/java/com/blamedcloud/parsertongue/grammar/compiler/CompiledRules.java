@@ -0,0 +1,218 @@
+package com.blamedcloud.parsertongue.grammar.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultFunction;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
+import com.blamedcloud.parsertongue.tokenizer.ScannerlessTokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenType;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+
+// What the classes ParserSourceGenerator writes have in common. A
+// generated class has a method per rule and per compound node, each of
+// which tries every way its node can match at pos, in the order the
+// expecterators would, and hands each match to its continuation with
+// ret(). A continuation is a Frame whose id says what comes next (the
+// next child of a concatenation, another repetition, or a rule's
+// transformer), and the generated resume() switches on it. ret()
+// returns true once the whole parse has been accepted, which stops every
+// method up the stack from trying anything else.
+//
+// One instance is used for one parse, and isn't thread-safe.
+public abstract class CompiledRules {
+
+    protected static final StringParseResult EMPTY = new StringParseResult("");
+
+    protected final ParseResultFunction[] transformers;
+    protected final TokenType[] regexes;
+
+    protected String[] tokens;
+    protected int size;
+
+    // the token values one after another, where each one starts in it, and
+    // a Matcher over it per regex (made when it's first needed)
+    private String text;
+    private int[] offsets;
+    private Matcher[] matchers;
+
+    private ParseResultTransformer accepted;
+    private ParseResultTransformer last;
+
+    protected CompiledRules(ParseResultFunction[] transformers, TokenType[] regexes) {
+        this.transformers = transformers;
+        this.regexes = regexes;
+    }
+
+    // what to do with a match: id is the generated case, list what a
+    // concatenation or repeat has matched so far, and start where the
+    // current repetition started
+    public static final class Frame {
+
+        public final int id;
+        public final Frame parent;
+        public final Cell list;
+        public final int start;
+
+        private Frame(int id, Frame parent, Cell list, int start) {
+            this.id = id;
+            this.parent = parent;
+            this.list = list;
+            this.start = start;
+        }
+
+    }
+
+    // a list of results, last first (null is the empty list)
+    public static final class Cell {
+
+        private final Object head;
+        private final Cell tail;
+        private final int size;
+
+        private Cell(Object head, Cell tail) {
+            this.head = head;
+            this.tail = tail;
+            size = tail == null ? 1 : tail.size + 1;
+        }
+
+    }
+
+    // a matched concatenation or repeat, whose ListParseResult isn't built
+    // until a rule's transformer needs it
+    private static final class Pending {
+
+        private final Cell list;
+
+        private Pending(Cell list) {
+            this.list = list;
+        }
+
+    }
+
+    protected static Frame frame(int id, Frame parent, Cell list, int start) {
+        return new Frame(id, parent, list, start);
+    }
+
+    protected static Cell cons(Object result, Cell list) {
+        return new Cell(result, list);
+    }
+
+    protected static Object pending(Cell list) {
+        return new Pending(list);
+    }
+
+    // the values of all of the tokens, which is all a parse needs of them
+    public static String[] tokenValues(Tokenizer tokens) {
+        if (tokens instanceof ScannerlessTokenizer) {
+            throw new RuntimeException("Compiled rules can't parse scannerless input");
+        }
+        List<String> values = new ArrayList<>();
+        if (!tokens.isEmpty()) {
+            tokens.setIndex(0, false);
+            do {
+                values.add(tokens.currentToken().getValue());
+            } while (tokens.nextToken());
+        }
+        return values.toArray(new String[0]);
+    }
+
+    public ParseResultTransformer parse(String[] tokenValues) {
+        tokens = tokenValues;
+        size = tokens.length;
+        StringBuilder sb = new StringBuilder();
+        offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[i] = sb.length();
+            sb.append(tokens[i]);
+        }
+        offsets[size] = sb.length();
+        text = sb.toString();
+        matchers = new Matcher[regexes.length];
+        accepted = null;
+        last = null;
+        if (start(0)) {
+            return accepted;
+        } else if (last != null) {
+            return last;
+        }
+        return new ParseResultTransformer(false, null, "Tokens not Exhausted");
+    }
+
+    protected abstract boolean start(int pos);
+
+    protected abstract boolean resume(Frame k, int pos, Object result);
+
+    protected final boolean ret(Frame k, int pos, Object result) {
+        return resume(k, pos, result);
+    }
+
+    // the end of rule number index's match
+    protected final boolean rule(int index, Frame k, int pos, Object result) {
+        ParseResultTransformer transformed = new ParseResultTransformer(true, build(result), null).transform(transformers[index]);
+        if (k.parent != null) {
+            return transformed.isValid() && ret(k.parent, pos, transformed.getResult());
+        }
+        // the start rule, which must have used up all the tokens
+        if (!transformed.isValid()) {
+            last = transformed;
+            return false;
+        } else if (pos == size) {
+            accepted = transformed;
+            return true;
+        }
+        last = null;
+        return false;
+    }
+
+    // merges one token at a time (like RegexExpecterator, the empty string
+    // is only tried once the tokens run out), matching the merged tokens in
+    // place as a region of the text, and stops once the regex fails
+    // without reaching the end of them (so no longer merge could match)
+    protected final boolean regex(int index, int pos, Frame k) {
+        TokenType regex = regexes[index];
+        if (pos == size) {
+            return regex.isTypeOf("") && ret(k, pos, EMPTY);
+        }
+        if (matchers[index] == null) {
+            matchers[index] = regex.getPattern().matcher(text);
+        }
+        Matcher matcher = matchers[index];
+        for (int end = pos + 1; end <= size; end++) {
+            // (ret() can use the matcher too, so its region is set every time)
+            matcher.region(offsets[pos], offsets[end]);
+            if (matcher.matches()) {
+                if (ret(k, end, new StringParseResult(text.substring(offsets[pos], offsets[end])))) {
+                    return true;
+                }
+            } else if (!matcher.hitEnd()) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // turns Pending lists into ListParseResults, copying the results in
+    // them (which other parses share) so that a transformer can change them
+    private static ParseResult build(Object result) {
+        if (!(result instanceof Pending)) {
+            return ((ParseResult) result).copy();
+        }
+        Cell list = ((Pending) result).list;
+        ParseResult[] elements = new ParseResult[list == null ? 0 : list.size];
+        for (int i = elements.length - 1; i >= 0; i--) {
+            elements[i] = build(list.head);
+            list = list.tail;
+        }
+        ListParseResult listResult = new ListParseResult();
+        for (ParseResult element : elements) {
+            listResult.add(element);
+        }
+        return listResult;
+    }
+
+}
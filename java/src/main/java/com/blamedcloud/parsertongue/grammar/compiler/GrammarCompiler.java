@@ -0,0 +1,126 @@
+package com.blamedcloud.parsertongue.grammar.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultFunction;
+import com.blamedcloud.parsertongue.parser.Parser;
+import com.blamedcloud.parsertongue.tokenizer.TokenType;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+// Compiles a linked grammar into a class of its own at runtime: the
+// source from ParserSourceGenerator is compiled in memory with the
+// platform's Java compiler, and the class is defined as a hidden class
+// in this package (so it can't be looked up by name, and is unloaded
+// along with its CompiledParser). Hidden classes need Java 15, so before
+// that it is an ordinary class of this package instead, which lives as
+// long as the library's class loader. That needs a JDK rather than just
+// a JRE, and the library on the class path (to compile against).
+public final class GrammarCompiler {
+
+    private static final String CLASS_NAME = "GeneratedRules";
+    // (ordinary classes can't share a name)
+    private static final AtomicInteger classCount = new AtomicInteger();
+
+    private GrammarCompiler() {}
+
+    // a snapshot of the parser's grammar, transformers, TokenizerTypeList
+    // and white space default, like Parser::compile
+    public static CompiledParser compile(Parser parser) {
+        return compile(parser.getGrammar(), parser.getTTL(), parser.getIgnoreWSDefault());
+    }
+
+    public static CompiledParser compile(Grammar grammar, TokenizerTypeList ttl, boolean ignoreWhiteSpaceDefault) {
+        if (!grammar.hasLinked()) {
+            throw new RuntimeException("Cannot compile without linking");
+        }
+        ParserSourceGenerator generator = new ParserSourceGenerator(grammar.getStartRule());
+        String className = CLASS_NAME + classCount.incrementAndGet();
+        String source = generator.generate(GrammarCompiler.class.getPackageName(), className);
+        MethodHandle constructor = define(compileSource(source, className));
+
+        ParseResultFunction[] transformers = generator.getTransformers();
+        TokenType[] regexes = generator.getRegexes().toArray(new TokenType[0]);
+        return new CompiledParser(constructor, transformers, regexes, ttl, ignoreWhiteSpaceDefault, source);
+    }
+
+    private static byte[] compileSource(String source, String className) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new RuntimeException("Cannot compile a grammar without a Java compiler (a JDK is needed)");
+        }
+        JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        JavaFileManager fileManager = new ForwardingJavaFileManager<JavaFileManager>(compiler.getStandardFileManager(null, null, null)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + ".class"), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return classBytes;
+                    }
+                };
+            }
+        };
+
+        StringWriter errors = new StringWriter();
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"), "-proc:none", "-g:none");
+        boolean success = compiler.getTask(errors, fileManager, null, options, null, List.of(sourceFile)).call();
+        if (!success) {
+            throw new RuntimeException("Unable to compile grammar: " + errors);
+        }
+        return classBytes.toByteArray();
+    }
+
+    private static MethodHandle define(byte[] classBytes) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Method defineHidden = findDefineHiddenClass();
+            if (defineHidden != null) {
+                Object noOptions = Array.newInstance(defineHidden.getParameterTypes()[2].getComponentType(), 0);
+                lookup = (MethodHandles.Lookup) defineHidden.invoke(lookup, classBytes, true, noOptions);
+            } else {
+                lookup = MethodHandles.privateLookupIn(lookup.defineClass(classBytes), lookup);
+            }
+            MethodType type = MethodType.methodType(void.class, ParseResultFunction[].class, TokenType[].class);
+            return lookup.findConstructor(lookup.lookupClass(), type);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Unable to load compiled grammar", e);
+        }
+    }
+
+    // Lookup::defineHiddenClass is only available from Java 15
+    private static Method findDefineHiddenClass() {
+        try {
+            Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            return MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, Array.newInstance(classOption, 0).getClass());
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.blamedcloud.parsertongue.grammar.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.blamedcloud.parsertongue.grammar.Rule;
+import com.blamedcloud.parsertongue.parser.Parser;
+import com.blamedcloud.parsertongue.tokenizer.ExactToken;
+import com.blamedcloud.parsertongue.tokenizer.TokenType;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+// Generates the Java source of a parser for a grammar ahead of time, so
+// that nothing has to be read, tokenized or linked when it's used. A
+// parser class (say JsonParser) holds the TokenizerTypeList, regexes and
+// rule annotations as tables, and parses with the rules class
+// (JsonParserRules) written by ParserSourceGenerator. The parser class
+// has parseString and checkString like Parser, setRuleTransform for
+// transformers, and a constructor taking an AnnotationManager that
+// resolves the rules' annotations just as loading the grammar would.
+// The generated code still needs this library to run, but not the
+// grammar files.
+//
+// The grammar is loaded with Parser.Builder, so external grammars are
+// resolved by the DependencyManager as usual. From the command line:
+//   ParserGenerator <grammar.ebnf> <output directory> <package.ClassName>
+//       [-d <dependency.ebnf>]... [-s <start symbol>] [-w]
+// where -w ignores white space by default.
+public final class ParserGenerator {
+
+    private ParserGenerator() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: ParserGenerator <grammar.ebnf> <output directory> <package.ClassName> [-d <dependency.ebnf>]... [-s <start symbol>] [-w]");
+            System.exit(1);
+        }
+        Parser.Builder builder = Parser.newBuilder(new File(args[0]));
+        List<File> dependencies = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("-d") && i + 1 < args.length) {
+                dependencies.add(new File(args[++i]));
+            } else if (args[i].equals("-s") && i + 1 < args.length) {
+                builder.setStartSymbol(args[++i]);
+            } else if (args[i].equals("-w")) {
+                builder.setIgnoreWhiteSpaceDefault(true);
+            } else {
+                throw new RuntimeException("Unknown argument: '" + args[i] + "'");
+            }
+        }
+        if (!dependencies.isEmpty()) {
+            builder.setDependentGrammarFiles(dependencies);
+        }
+
+        String qualifiedName = args[2];
+        int lastDot = qualifiedName.lastIndexOf('.');
+        String packageName = lastDot < 0 ? "" : qualifiedName.substring(0, lastDot);
+        String className = qualifiedName.substring(lastDot + 1);
+        for (Path file : write(builder.build(), Paths.get(args[1]), packageName, className)) {
+            System.out.println("Wrote " + file);
+        }
+    }
+
+    // writes both classes under outputDirectory (in their package's
+    // directories), returning their paths
+    public static List<Path> write(Parser parser, Path outputDirectory, String packageName, String className) throws IOException {
+        Path directory = outputDirectory;
+        if (packageName.length() > 0) {
+            directory = outputDirectory.resolve(packageName.replace('.', File.separatorChar));
+        }
+        Files.createDirectories(directory);
+
+        ParserSourceGenerator generator = new ParserSourceGenerator(parser.getGrammar().getStartRule());
+        String rulesName = className + "Rules";
+        Path parserFile = directory.resolve(className + ".java");
+        Path rulesFile = directory.resolve(rulesName + ".java");
+        Files.write(parserFile, generateParser(parser, generator, packageName, className).getBytes(StandardCharsets.UTF_8));
+        Files.write(rulesFile, generator.generate(packageName, rulesName).getBytes(StandardCharsets.UTF_8));
+
+        List<Path> files = new ArrayList<>();
+        files.add(parserFile);
+        files.add(rulesFile);
+        return files;
+    }
+
+    public static String generateParser(Parser parser, ParserSourceGenerator generator, String packageName, String className) {
+        StringBuilder source = new StringBuilder();
+        if (packageName.length() > 0) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.blamedcloud.parsertongue.grammar.Grammar;\n");
+        source.append("import com.blamedcloud.parsertongue.grammar.annotations.AnnotationManager;\n");
+        source.append("import com.blamedcloud.parsertongue.grammar.compiler.CompiledRules;\n");
+        source.append("import com.blamedcloud.parsertongue.grammar.result.ParseResultFunction;\n");
+        source.append("import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;\n");
+        source.append("import com.blamedcloud.parsertongue.tokenizer.ExactToken;\n");
+        source.append("import com.blamedcloud.parsertongue.tokenizer.RegexToken;\n");
+        source.append("import com.blamedcloud.parsertongue.tokenizer.TokenType;\n");
+        source.append("import com.blamedcloud.parsertongue.tokenizer.Tokenizer;\n");
+        source.append("import com.blamedcloud.parsertongue.tokenizer.TokenizerException;\n");
+        source.append("import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;\n\n");
+        source.append("// generated from the rule '").append(ParserSourceGenerator.escape(generator.getRuleNames().get(0))).append("' by ParserGenerator\n");
+        source.append("public final class ").append(className).append(" {\n\n");
+
+        source.append("    private static final String[] RULE_NAMES = {\n");
+        for (String name : generator.getRuleNames()) {
+            source.append("        ").append(literal(name)).append(",\n");
+        }
+        source.append("    };\n\n");
+
+        source.append("    private static final String[] ANNOTATIONS = {\n");
+        for (Rule rule : generator.getRules()) {
+            source.append("        ").append(literal(rule.getAnnotation())).append(",\n");
+        }
+        source.append("    };\n\n");
+
+        source.append("    private static final TokenType[] REGEXES = {\n");
+        for (TokenType regex : generator.getRegexes()) {
+            source.append("        ").append(tokenType(regex)).append(",\n");
+        }
+        source.append("    };\n\n");
+
+        source.append("    private static final TokenizerTypeList TTL = tokenizerTypes();\n\n");
+        source.append("    private final ParseResultFunction[] transformers;\n");
+        source.append("    private boolean ignoreWhiteSpaceDefault;\n\n");
+
+        source.append("    public ").append(className).append("() {\n");
+        source.append("        this(null);\n");
+        source.append("    }\n\n");
+        source.append("    // annotated rules get their transformers from annotations\n");
+        source.append("    public ").append(className).append("(AnnotationManager annotations) {\n");
+        source.append("        transformers = new ParseResultFunction[RULE_NAMES.length];\n");
+        source.append("        for (int i = 0; i < transformers.length; i++) {\n");
+        source.append("            transformers[i] = ParseResultTransformer.identity;\n");
+        source.append("            if (annotations != null && ANNOTATIONS[i] != null) {\n");
+        source.append("                Tokenizer tokens = Grammar.newTokenizer();\n");
+        source.append("                try {\n");
+        source.append("                    tokens.tokenize(ANNOTATIONS[i]);\n");
+        source.append("                } catch (TokenizerException e) {\n");
+        source.append("                    throw new RuntimeException(\"Unable to tokenize annotation of: '\" + RULE_NAMES[i] + \"'\");\n");
+        source.append("                }\n");
+        source.append("                transformers[i] = annotations.parseAnnotation(tokens);\n");
+        source.append("            }\n");
+        source.append("        }\n");
+        source.append("        ignoreWhiteSpaceDefault = ").append(parser.getIgnoreWSDefault()).append(";\n");
+        source.append("    }\n\n");
+
+        source.append("    private static TokenizerTypeList tokenizerTypes() {\n");
+        source.append("        TokenizerTypeList ttl = new TokenizerTypeList();\n");
+        for (TokenType type : parser.getTTL()) {
+            source.append("        ttl.add(").append(tokenType(type)).append(");\n");
+        }
+        source.append("        ttl.compile();\n");
+        source.append("        return ttl;\n");
+        source.append("    }\n\n");
+
+        source.append("    public void setRuleTransform(String ruleName, ParseResultFunction f) {\n");
+        source.append("        for (int i = 0; i < RULE_NAMES.length; i++) {\n");
+        source.append("            if (RULE_NAMES[i].equals(ruleName)) {\n");
+        source.append("                transformers[i] = f;\n");
+        source.append("                return;\n");
+        source.append("            }\n");
+        source.append("        }\n");
+        source.append("        throw new RuntimeException(\"No rule named: '\" + ruleName + \"'\");\n");
+        source.append("    }\n\n");
+
+        source.append("    public void setIgnoreWSDefault(boolean ignoreWS) {\n");
+        source.append("        ignoreWhiteSpaceDefault = ignoreWS;\n");
+        source.append("    }\n\n");
+
+        source.append("    public ParseResultTransformer tryParse(Tokenizer tokens) {\n");
+        source.append("        return new ").append(className).append("Rules(transformers.clone(), REGEXES).parse(CompiledRules.tokenValues(tokens));\n");
+        source.append("    }\n\n");
+
+        source.append("    public ParseResultTransformer parseString(String parseString) {\n");
+        source.append("        return parseString(parseString, ignoreWhiteSpaceDefault);\n");
+        source.append("    }\n\n");
+        source.append("    public ParseResultTransformer parseString(String parseString, boolean ignoreWhiteSpace) {\n");
+        source.append("        Tokenizer tokens = new Tokenizer(TTL, ignoreWhiteSpace);\n");
+        source.append("        try {\n");
+        source.append("            tokens.tokenize(parseString);\n");
+        source.append("        } catch (TokenizerException e) {\n");
+        source.append("            return new ParseResultTransformer(false, null, e.getMessage());\n");
+        source.append("        }\n");
+        source.append("        return tryParse(tokens);\n");
+        source.append("    }\n\n");
+
+        source.append("    public boolean checkString(String parseString) {\n");
+        source.append("        return checkString(parseString, ignoreWhiteSpaceDefault);\n");
+        source.append("    }\n\n");
+        source.append("    public boolean checkString(String parseString, boolean ignoreWhiteSpace) {\n");
+        source.append("        return parseString(parseString, ignoreWhiteSpace).isValid();\n");
+        source.append("    }\n\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private static String tokenType(TokenType type) {
+        String kind = type instanceof ExactToken ? "ExactToken" : "RegexToken";
+        return "new " + kind + "(" + literal(type.getName()) + ", " + literal(type.getExpression()) + ", " + type.isIgnored() + ")";
+    }
+
+    private static String literal(String value) {
+        if (value == null) {
+            return "null";
+        }
+        return "\"" + ParserSourceGenerator.escape(value) + "\"";
+    }
+
+}
@@ -0,0 +1,266 @@
+package com.blamedcloud.parsertongue.grammar.compiler;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.blamedcloud.parsertongue.grammar.RHSTree;
+import com.blamedcloud.parsertongue.grammar.RHSType;
+import com.blamedcloud.parsertongue.grammar.Rule;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultFunction;
+import com.blamedcloud.parsertongue.tokenizer.TokenType;
+
+// Writes the Java source of a CompiledRules subclass for the rules
+// reachable from a linked start rule: a method per rule and per
+// alternation, optional, repeat, concatenation and regex node, with
+// terminals compared inline and groups and identifiers calling straight
+// through. Rule transformers and regex token types aren't written out;
+// they're passed to the generated constructor in the order of
+// getRules() and getRegexes().
+//
+// The methods backtrack through every choice just like the
+// expecterators, so the results are the same, but each match is handed
+// on by a call, so (as with the expecterators) the stack grows with the
+// input. Left recursion would never return, so it isn't allowed, and
+// neither are cuts (a match can't take back the choices of the calls
+// below it).
+public class ParserSourceGenerator {
+
+    private final List<Rule> rules;
+    private final List<String> ruleNames;
+    private final Map<Rule, Integer> ruleIndices;
+    private final List<TokenType> regexes;
+    private final Map<RHSTree, Integer> nodeIds;
+    private final List<RHSTree> nodes;
+
+    private final StringBuilder methods;
+    private final StringBuilder cases;
+    private int frameIds;
+
+    public ParserSourceGenerator(Rule startRule) {
+        rules = new ArrayList<>();
+        ruleNames = new ArrayList<>();
+        ruleIndices = new IdentityHashMap<>();
+        regexes = new ArrayList<>();
+        nodeIds = new IdentityHashMap<>();
+        nodes = new ArrayList<>();
+        methods = new StringBuilder();
+        cases = new StringBuilder();
+        frameIds = 0;
+
+        addRule(startRule, "");
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            if (rule.isLeftRecursive()) {
+                throw new RuntimeException("Cannot compile left-recursive rule: '" + ruleNames.get(i) + "'");
+            }
+            // the rules of external grammars are named like 'common:float'
+            String prefix = rule.hasDependency() ? rule.getDependencyName() + ":" : namePrefix(ruleNames.get(i));
+            addNodes(rule.rhs(), prefix);
+        }
+    }
+
+    private static String namePrefix(String ruleName) {
+        return ruleName.substring(0, ruleName.lastIndexOf(':') + 1);
+    }
+
+    private void addRule(Rule rule, String prefix) {
+        if (!ruleIndices.containsKey(rule)) {
+            ruleIndices.put(rule, rules.size());
+            rules.add(rule);
+            ruleNames.add(prefix + rule.lhs().getValue());
+        }
+    }
+
+    private void addNodes(RHSTree node, String prefix) {
+        RHSType type = node.getType();
+        if (type == RHSType.IDENTIFIER) {
+            addRule(node.getLink(), prefix);
+        } else if (type == RHSType.REGEX) {
+            nodeIds.put(node, regexes.size());
+            regexes.add(node.getRegexNode());
+        } else if (type != RHSType.TERMINAL) {
+            if (node.hasCut()) {
+                throw new RuntimeException("Cannot compile a grammar with cuts");
+            }
+            if (type != RHSType.GROUP) {
+                nodeIds.put(node, nodes.size());
+                nodes.add(node);
+            }
+            for (RHSTree child : node.getChildren()) {
+                addNodes(child, prefix);
+            }
+        }
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    // the start rule's name, and then the names the other rules are used by
+    public List<String> getRuleNames() {
+        return ruleNames;
+    }
+
+    public List<TokenType> getRegexes() {
+        return regexes;
+    }
+
+    // the transformers of getRules(), as they are now
+    public ParseResultFunction[] getTransformers() {
+        ParseResultFunction[] transformers = new ParseResultFunction[rules.size()];
+        for (int i = 0; i < transformers.length; i++) {
+            transformers[i] = rules.get(i).getTransformer();
+        }
+        return transformers;
+    }
+
+    public String generate(String packageName, String className) {
+        methods.setLength(0);
+        cases.setLength(0);
+        frameIds = 0;
+
+        for (int i = 0; i < rules.size(); i++) {
+            writeRule(i);
+        }
+        for (RHSTree node : nodes) {
+            writeNode(node);
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (packageName != null && packageName.length() > 0) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.blamedcloud.parsertongue.grammar.compiler.CompiledRules;\n");
+        source.append("import com.blamedcloud.parsertongue.grammar.result.ParseResultFunction;\n");
+        source.append("import com.blamedcloud.parsertongue.grammar.result.StringParseResult;\n");
+        source.append("import com.blamedcloud.parsertongue.tokenizer.TokenType;\n\n");
+        source.append("// generated from the rule '").append(escape(ruleNames.get(0))).append("' by ParserSourceGenerator\n");
+        source.append("public final class ").append(className).append(" extends CompiledRules {\n\n");
+        source.append("    public ").append(className).append("(ParseResultFunction[] transformers, TokenType[] regexes) {\n");
+        source.append("        super(transformers, regexes);\n");
+        source.append("    }\n\n");
+        source.append("    @Override\n");
+        source.append("    protected boolean start(int pos) {\n");
+        source.append("        return r0(pos, null);\n");
+        source.append("    }\n\n");
+        source.append("    @Override\n");
+        source.append("    protected boolean resume(Frame k, int pos, Object result) {\n");
+        source.append("        switch (k.id) {\n");
+        source.append(cases);
+        source.append("            default:\n");
+        source.append("                throw new IllegalStateException(\"Unknown frame: \" + k.id);\n");
+        source.append("        }\n");
+        source.append("    }\n");
+        source.append(methods);
+        source.append("\n}\n");
+        return source.toString();
+    }
+
+    // rule i's method matches its rhs, then applies its transformer
+    private void writeRule(int index) {
+        Rule rule = rules.get(index);
+        int id = frameIds++;
+        methods.append("\n    // ").append(escape(ruleNames.get(index))).append("\n");
+        methods.append("    private boolean r").append(index).append("(int pos, Frame k) {\n");
+        methods.append("        return ").append(call(rule.rhs(), "pos", "frame(" + id + ", k, null, 0)")).append(";\n");
+        methods.append("    }\n");
+        cases.append("            case ").append(id).append(":\n");
+        cases.append("                return rule(").append(index).append(", k, pos, result);\n");
+    }
+
+    private void writeNode(RHSTree node) {
+        int nodeId = nodeIds.get(node);
+        RHSType type = node.getType();
+        if (type == RHSType.REPEAT) {
+            // the shortest match first: the repetitions so far, then one more
+            int id = frameIds++;
+            methods.append("\n    private boolean n").append(nodeId).append("(int pos, Cell list, Frame k) {\n");
+            methods.append("        return ret(k, pos, pending(list))\n");
+            methods.append("                || ").append(call(node.getChild(), "pos", "frame(" + id + ", k, list, pos)")).append(";\n");
+            methods.append("    }\n");
+            // (a repetition that matched nothing would repeat forever)
+            cases.append("            case ").append(id).append(": {\n");
+            cases.append("                Cell list = cons(result, k.list);\n");
+            cases.append("                if (pos == size || pos == k.start) {\n");
+            cases.append("                    return ret(k.parent, pos, pending(list));\n");
+            cases.append("                }\n");
+            cases.append("                return n").append(nodeId).append("(pos, list, k.parent);\n");
+            cases.append("            }\n");
+            return;
+        }
+
+        methods.append("\n    private boolean n").append(nodeId).append("(int pos, Frame k) {\n");
+        if (type == RHSType.ALTERNATION) {
+            methods.append("        return ");
+            for (int i = 0; i < node.size(); i++) {
+                if (i > 0) {
+                    methods.append("\n                || ");
+                }
+                methods.append(call(node.getChild(i), "pos", "k"));
+            }
+            methods.append(";\n");
+        } else if (type == RHSType.OPTIONAL) {
+            methods.append("        return ret(k, pos, EMPTY)\n");
+            methods.append("                || ").append(call(node.getChild(), "pos", "k")).append(";\n");
+        } else {
+            // each child's frame goes on to the next child, the last one's
+            // hands the whole list on
+            int firstId = frameIds;
+            frameIds += node.size();
+            methods.append("        return ").append(call(node.getChild(0), "pos", "frame(" + firstId + ", k, null, 0)")).append(";\n");
+            for (int i = 0; i < node.size(); i++) {
+                cases.append("            case ").append(firstId + i).append(":\n");
+                if (i + 1 < node.size()) {
+                    String next = "frame(" + (firstId + i + 1) + ", k.parent, cons(result, k.list), 0)";
+                    cases.append("                return ").append(call(node.getChild(i + 1), "pos", next)).append(";\n");
+                } else {
+                    cases.append("                return ret(k.parent, pos, pending(cons(result, k.list)));\n");
+                }
+            }
+        }
+        methods.append("    }\n");
+    }
+
+    // a boolean expression matching node at pos and continuing with k
+    private String call(RHSTree node, String pos, String k) {
+        RHSType type = node.getType();
+        if (type == RHSType.TERMINAL) {
+            String value = node.getNode().getValue();
+            if (value.length() == 0) {
+                return "ret(" + k + ", " + pos + ", EMPTY)";
+            }
+            String literal = "\"" + escape(value) + "\"";
+            return "(" + pos + " < size && " + literal + ".equals(tokens[" + pos + "]) && ret(" + k + ", " + pos + " + 1, new StringParseResult(" + literal + ")))";
+        } else if (type == RHSType.REGEX) {
+            return "regex(" + nodeIds.get(node) + ", " + pos + ", " + k + ")";
+        } else if (type == RHSType.IDENTIFIER) {
+            return "r" + ruleIndices.get(node.getLink()) + "(" + pos + ", " + k + ")";
+        } else if (type == RHSType.GROUP) {
+            return call(node.getChild(), pos, k);
+        } else if (type == RHSType.REPEAT) {
+            return "n" + nodeIds.get(node) + "(" + pos + ", null, " + k + ")";
+        } else {
+            return "n" + nodeIds.get(node) + "(" + pos + ", " + k + ")";
+        }
+    }
+
+    // as the contents of a Java string literal (or comment). Control
+    // characters are written in octal, since a \\u escape of one would be
+    // turned back into the character before the literal is read.
+    static String escape(String value) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c == 0x7f) {
+                sb.append(String.format("\\%03o", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+}
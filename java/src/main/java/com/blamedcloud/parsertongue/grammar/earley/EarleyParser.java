@@ -0,0 +1,491 @@
+package com.blamedcloud.parsertongue.grammar.earley;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+
+import com.blamedcloud.parsertongue.grammar.RHSTree;
+import com.blamedcloud.parsertongue.grammar.RHSType;
+import com.blamedcloud.parsertongue.grammar.Rule;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
+import com.blamedcloud.parsertongue.tokenizer.ScannerlessTokenizer;
+import com.blamedcloud.parsertongue.tokenizer.Token;
+import com.blamedcloud.parsertongue.tokenizer.TokenType;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+
+// An Earley parser that works on the linked RHSTrees directly. Every
+// compound node is its own "production": a concatenation item moves
+// through its children one at a time, an alternation item waits on all
+// of its children at once, and optional and repeat items count as
+// complete at their current position as well as waiting on their child
+// (a repeat item goes back to waiting after each repetition). Terminal
+// and regex leaves are scanned, a regex leaf merging as many tokens as
+// its pattern can take. Identifiers wait on their rule's tree, so rules
+// share items between every place they are used.
+//
+// The chart is built for the whole input in O(n^3) at worst, and one
+// parse is then read back out of it. At each choice the reading prefers
+// what the expecterators would try first (see preferredEnds), so for
+// most ambiguous inputs it picks the same parse they would. Results have
+// the same shapes the expecterators give, and rule transformers are
+// applied as usual (if one throws, the next choice is tried).
+public class EarleyParser {
+
+    private final Rule startRule;
+    private final Tokenizer tokens;
+
+    private List<Token> input;
+    private List<List<Item>> items;
+    private List<Set<Item>> itemSets;
+    private List<Map<RHSTree, List<Item>>> waiting;
+    private List<Map<RHSTree, Set<Integer>>> completed;
+    private List<Set<RHSTree>> predicted;
+    private List<List<Scan>> scans;
+    private String error;
+
+    public EarleyParser(Rule startRule, Tokenizer tokens) {
+        if (tokens instanceof ScannerlessTokenizer) {
+            throw new RuntimeException("The Earley engine can't parse scannerless input");
+        }
+        this.startRule = startRule;
+        this.tokens = tokens;
+    }
+
+    // an (in progress) match of node that started at origin
+    private static final class Item {
+
+        private final RHSTree node;
+        private final int dot;
+        private final int origin;
+
+        private Item(RHSTree node, int dot, int origin) {
+            this.node = node;
+            this.dot = dot;
+            this.origin = origin;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Item)) {
+                return false;
+            }
+            Item other = (Item) o;
+            return node == other.node && dot == other.dot && origin == other.origin;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(node), dot, origin);
+        }
+
+    }
+
+    // a leaf that matched from origin up to the position it is filed under
+    private static final class Scan {
+
+        private final RHSTree leaf;
+        private final int origin;
+
+        private Scan(RHSTree leaf, int origin) {
+            this.leaf = leaf;
+            this.origin = origin;
+        }
+
+    }
+
+    public ParseResultTransformer parse() {
+        if (!recognize()) {
+            return new ParseResultTransformer(false, null, error);
+        }
+        int size = input.size();
+        ParseResult result = build(startRule.rhs(), 0, size);
+        if (size > 0) {
+            tokens.setIndex(size - 1, true);
+        }
+        if (result == null) {
+            return new ParseResultTransformer(false, null, "ERROR: No parse had valid results");
+        }
+        return new ParseResultTransformer(true, result, null).transform(startRule.getTransformer());
+    }
+
+    // builds the chart, returning whether the start rule matches all of the tokens
+    boolean recognize() {
+        readInput();
+        int size = input.size();
+        RHSTree root = startRule.rhs();
+
+        int furthest = 0;
+        for (int position = 0; position <= size; position++) {
+            for (Scan scan : scans.get(position)) {
+                complete(scan.leaf, scan.origin, position);
+            }
+            if (position == 0) {
+                expect(null, root, 0);
+            }
+            List<Item> current = items.get(position);
+            for (int i = 0; i < current.size(); i++) {
+                process(current.get(i), position);
+            }
+            if (!current.isEmpty() || !completed.get(position).isEmpty()) {
+                furthest = position;
+            }
+        }
+
+        if (!completes(root, 0, size)) {
+            tokens.setIndex(0, false);
+            if (furthest < size) {
+                error = "ERROR: Unexpected token: '" + input.get(furthest).getValue() + "'";
+            } else {
+                error = "ERROR: Unexpected end of input";
+            }
+            return false;
+        }
+        error = null;
+        return true;
+    }
+
+    String getError() {
+        return error;
+    }
+
+    Rule getStartRule() {
+        return startRule;
+    }
+
+    int inputSize() {
+        return input.size();
+    }
+
+    // the tokens from start to end, merged (as a regex leaf matches them)
+    String merged(int start, int end) {
+        StringBuilder merged = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            merged.append(input.get(i).getValue());
+        }
+        return merged.toString();
+    }
+
+    private void readInput() {
+        input = new ArrayList<>();
+        if (!tokens.isEmpty()) {
+            tokens.setIndex(0, false);
+            do {
+                input.add(tokens.currentToken());
+            } while (tokens.nextToken());
+        }
+
+        items = new ArrayList<>();
+        itemSets = new ArrayList<>();
+        waiting = new ArrayList<>();
+        completed = new ArrayList<>();
+        predicted = new ArrayList<>();
+        scans = new ArrayList<>();
+        for (int i = 0; i <= input.size(); i++) {
+            items.add(new ArrayList<>());
+            itemSets.add(new HashSet<>());
+            waiting.add(new HashMap<>());
+            completed.add(new HashMap<>());
+            predicted.add(new HashSet<>());
+            scans.add(new ArrayList<>());
+        }
+    }
+
+    private void process(Item item, int position) {
+        RHSTree node = item.node;
+        RHSType type = node.getType();
+        if (type == RHSType.CONCATENATION) {
+            if (node.hasCut()) {
+                // the chart holds every parse at once, so there's nothing to cut
+                throw new RuntimeException("The Earley engine doesn't support cuts");
+            }
+            if (item.dot == node.size()) {
+                complete(node, item.origin, position);
+            } else {
+                expect(item, node.getChild(item.dot), position);
+            }
+        } else if (item.dot == 1) {
+            complete(node, item.origin, position);
+        } else if (type == RHSType.IDENTIFIER) {
+            expect(item, node.getLink().rhs(), position);
+        } else if (type == RHSType.ALTERNATION) {
+            for (RHSTree child : node.getChildren()) {
+                expect(item, child, position);
+            }
+        } else if (type == RHSType.OPTIONAL || type == RHSType.REPEAT) {
+            complete(node, item.origin, position);
+            expect(item, node.getChild(), position);
+        } else {
+            expect(item, node.getChild(), position);
+        }
+    }
+
+    // item (null for the start) waits on node at position
+    private void expect(Item item, RHSTree node, int position) {
+        if (item != null) {
+            waiting.get(position).computeIfAbsent(node, n -> new ArrayList<>()).add(item);
+            // it may already have matched the empty string here
+            if (completes(node, position, position)) {
+                advance(item, position);
+            }
+        }
+        if (predicted.get(position).add(node)) {
+            RHSType type = node.getType();
+            if (type == RHSType.TERMINAL) {
+                scanTerminal(node, position);
+            } else if (type == RHSType.REGEX) {
+                scanRegex(node, position);
+            } else {
+                add(new Item(node, 0, position), position);
+            }
+        }
+    }
+
+    private void scanTerminal(RHSTree leaf, int position) {
+        String value = leaf.getNode().getValue();
+        if (value.length() == 0) {
+            complete(leaf, position, position);
+        } else if (position < input.size() && value.equals(input.get(position).getValue())) {
+            scans.get(position + 1).add(new Scan(leaf, position));
+        }
+    }
+
+    // like RegexExpecterator, the empty string is only tried once the tokens run out
+    private void scanRegex(RHSTree leaf, int position) {
+        TokenType regex = leaf.getRegexNode();
+        if (position == input.size()) {
+            if (regex.isTypeOf("")) {
+                complete(leaf, position, position);
+            }
+            return;
+        }
+        StringBuilder merged = new StringBuilder();
+        for (int end = position + 1; end <= input.size(); end++) {
+            merged.append(input.get(end - 1).getValue());
+            Matcher matcher = regex.getPattern().matcher(merged);
+            boolean matches = matcher.matches();
+            if (matches) {
+                scans.get(end).add(new Scan(leaf, position));
+            } else if (!matcher.hitEnd()) {
+                // no longer merge can match either
+                break;
+            }
+        }
+    }
+
+    private void add(Item item, int position) {
+        if (itemSets.get(position).add(item)) {
+            items.get(position).add(item);
+        }
+    }
+
+    private void advance(Item item, int position) {
+        RHSType type = item.node.getType();
+        if (type == RHSType.REPEAT) {
+            add(new Item(item.node, 0, item.origin), position);
+        } else if (type == RHSType.CONCATENATION) {
+            add(new Item(item.node, item.dot + 1, item.origin), position);
+        } else {
+            add(new Item(item.node, 1, item.origin), position);
+        }
+    }
+
+    private void complete(RHSTree node, int origin, int position) {
+        if (completed.get(position).computeIfAbsent(node, n -> new HashSet<>()).add(origin)) {
+            List<Item> waiters = waiting.get(origin).get(node);
+            if (waiters != null) {
+                // (more can be added to this while it is walked)
+                for (int i = 0; i < waiters.size(); i++) {
+                    advance(waiters.get(i), position);
+                }
+            }
+        }
+    }
+
+    boolean completes(RHSTree node, int start, int end) {
+        Set<Integer> origins = completed.get(end).get(node);
+        return origins != null && origins.contains(start);
+    }
+
+    boolean hasItem(RHSTree node, int dot, int origin, int position) {
+        return itemSets.get(position).contains(new Item(node, dot, origin));
+    }
+
+    Set<Integer> origins(RHSTree node, int end) {
+        Set<Integer> origins = completed.get(end).get(node);
+        return origins != null ? origins : Collections.emptySet();
+    }
+
+    // a parse of node from start to end (which the chart says exists),
+    // or null if the transformers reject every one that was tried
+    private ParseResult build(RHSTree node, int start, int end) {
+        RHSType type = node.getType();
+        if (type == RHSType.TERMINAL) {
+            return new StringParseResult(node.getNode().getValue());
+        } else if (type == RHSType.REGEX) {
+            return new StringParseResult(merged(start, end));
+        } else if (type == RHSType.IDENTIFIER) {
+            Rule rule = node.getLink();
+            ParseResult result = build(rule.rhs(), start, end);
+            if (result == null) {
+                return null;
+            }
+            ParseResultTransformer transformed = new ParseResultTransformer(true, result, null).transform(rule.getTransformer());
+            return transformed.isValid() ? transformed.getResult() : null;
+        } else if (type == RHSType.GROUP) {
+            return build(node.getChild(), start, end);
+        } else if (type == RHSType.OPTIONAL) {
+            if (start == end) {
+                return new StringParseResult("");
+            }
+            return build(node.getChild(), start, end);
+        } else if (type == RHSType.ALTERNATION) {
+            for (RHSTree child : node.getChildren()) {
+                if (completes(child, start, end)) {
+                    ParseResult result = build(child, start, end);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+            }
+            return null;
+        } else if (type == RHSType.REPEAT) {
+            return buildRepeat(node, start, end);
+        } else {
+            return buildConcatenation(node, start, end);
+        }
+    }
+
+    // First works back from the last child to find where each child can
+    // start and still reach the end (and where it can end from there),
+    // then reads the children forwards, choosing each one's end with
+    // preferredEnds.
+    private ParseResult buildConcatenation(RHSTree node, int start, int end) {
+        int size = node.size();
+        List<Map<Integer, List<Integer>>> childEnds = new ArrayList<>();
+        Set<Integer> reachable = Collections.singleton(end);
+        for (int i = size - 1; i >= 0; i--) {
+            Map<Integer, List<Integer>> ends = new HashMap<>();
+            for (int childEnd : reachable) {
+                for (int childStart : origins(node.getChild(i), childEnd)) {
+                    if (childStart >= start && hasItem(node, i, start, childStart)) {
+                        ends.computeIfAbsent(childStart, k -> new ArrayList<>()).add(childEnd);
+                    }
+                }
+            }
+            childEnds.add(0, ends);
+            reachable = ends.keySet();
+        }
+
+        ListParseResult list = new ListParseResult();
+        int childStart = start;
+        for (int i = 0; i < size; i++) {
+            RHSTree child = node.getChild(i);
+            int childEnd = buildChild(child, childStart, childEnds.get(i).get(childStart), list);
+            if (childEnd < 0) {
+                return null;
+            }
+            childStart = childEnd;
+        }
+        return list;
+    }
+
+    // the same, for any number of (non-empty) repetitions of the child
+    private ParseResult buildRepeat(RHSTree node, int start, int end) {
+        RHSTree child = node.getChild();
+        Map<Integer, List<Integer>> childEnds = new HashMap<>();
+        Set<Integer> reachable = new HashSet<>();
+        reachable.add(end);
+        List<Integer> toVisit = new ArrayList<>(reachable);
+        while (!toVisit.isEmpty()) {
+            int childEnd = toVisit.remove(toVisit.size() - 1);
+            for (int childStart : origins(child, childEnd)) {
+                if (childStart >= start && childStart < childEnd && hasItem(node, 0, start, childStart)) {
+                    childEnds.computeIfAbsent(childStart, k -> new ArrayList<>()).add(childEnd);
+                    if (reachable.add(childStart)) {
+                        toVisit.add(childStart);
+                    }
+                }
+            }
+        }
+
+        ListParseResult list = new ListParseResult();
+        int childStart = start;
+        while (childStart < end) {
+            childStart = buildChild(child, childStart, childEnds.get(childStart), list);
+            if (childStart < 0) {
+                return null;
+            }
+        }
+        return list;
+    }
+
+    // adds a parse of child from start to one of ends to the list,
+    // returning the end it took (or -1 if there was none)
+    private int buildChild(RHSTree child, int start, List<Integer> ends, ListParseResult list) {
+        if (ends == null) {
+            return -1;
+        }
+        for (int end : preferredEnds(child, start, ends)) {
+            ParseResult result = build(child, start, end);
+            if (result != null) {
+                list.add(result);
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    // The ends node can reach from start, ordered roughly the way the
+    // expecterators would find them: earlier alternatives first, an
+    // optional's empty match first, and otherwise the shortest first.
+    private List<Integer> preferredEnds(RHSTree node, int start, List<Integer> ends) {
+        List<Integer> ordered = new ArrayList<>(ends);
+        Collections.sort(ordered);
+        if (ordered.size() > 1) {
+            Integer preferred = preferredEnd(node, start, ordered, new HashSet<>());
+            ordered.remove(preferred);
+            ordered.add(0, preferred);
+        }
+        return ordered;
+    }
+
+    // ends is sorted, and node can reach every one of them
+    private int preferredEnd(RHSTree node, int start, List<Integer> ends, Set<RHSTree> visited) {
+        RHSType type = node.getType();
+        if (!visited.add(node)) {
+            return ends.get(0);
+        } else if (type == RHSType.OPTIONAL) {
+            return ends.get(0) == start ? start : preferredEnd(node.getChild(), start, ends, visited);
+        } else if (type == RHSType.GROUP) {
+            return preferredEnd(node.getChild(), start, ends, visited);
+        } else if (type == RHSType.IDENTIFIER) {
+            return preferredEnd(node.getLink().rhs(), start, ends, visited);
+        } else if (type == RHSType.ALTERNATION) {
+            for (RHSTree child : node.getChildren()) {
+                List<Integer> childEnds = new ArrayList<>();
+                for (int end : ends) {
+                    if (completes(child, start, end)) {
+                        childEnds.add(end);
+                    }
+                }
+                if (!childEnds.isEmpty()) {
+                    return preferredEnd(child, start, childEnds, visited);
+                }
+            }
+        }
+        return ends.get(0);
+    }
+
+}
@@ -0,0 +1,326 @@
+package com.blamedcloud.parsertongue.grammar.earley;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.blamedcloud.parsertongue.grammar.RHSTree;
+import com.blamedcloud.parsertongue.grammar.RHSType;
+import com.blamedcloud.parsertongue.grammar.Rule;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+
+// Every parse of the tokens, kept as a shared packed parse forest. The
+// forest is the Earley chart itself: a node matching from start to end is
+// a symbol node, and its packed children (the alternatives that matched
+// the same span, or the places a concatenation or repeat can be split)
+// are read back out of the chart when they are needed, so nothing but the
+// chart (O(n^2) items) and the counts (one per node that is asked about)
+// is ever stored.
+//
+// Parses are numbered in a fixed order: an optional's empty match first,
+// then alternatives in order, and then concatenations and repeats with
+// their earlier children taking the shorter spans first. A parse can be
+// picked by its number without building any of the others, and
+// parses() walks through them one at a time. Repeats only count
+// non-empty repetitions, so that their parses are finite, but a grammar
+// with a cycle of rules that match the same span (a = b | 'x'; b = a;)
+// still has infinitely many parses, and counting them throws.
+public class ParseForest {
+
+    private final EarleyParser chart;
+    private final boolean valid;
+    private final int size;
+
+    private final Map<Span, BigInteger> counts;
+    private final Set<Span> counting;
+
+    public ParseForest(Rule startRule, Tokenizer tokens) {
+        chart = new EarleyParser(startRule, tokens);
+        valid = chart.recognize();
+        size = chart.inputSize();
+        counts = new HashMap<>();
+        counting = new HashSet<>();
+    }
+
+    // a node's match from start to end (dot < 0), or the first dot
+    // children of a concatenation (or the repetitions of a repeat, with
+    // dot 0) matching from start to end
+    private static final class Span {
+
+        private final RHSTree node;
+        private final int dot;
+        private final int start;
+        private final int end;
+
+        private Span(RHSTree node, int dot, int start, int end) {
+            this.node = node;
+            this.dot = dot;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Span)) {
+                return false;
+            }
+            Span other = (Span) o;
+            return node == other.node && dot == other.dot && start == other.start && end == other.end;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(node), dot, start, end);
+        }
+
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public String getError() {
+        return chart.getError();
+    }
+
+    public BigInteger countParses() {
+        if (!valid) {
+            return BigInteger.ZERO;
+        }
+        return count(chart.getStartRule().rhs(), 0, size);
+    }
+
+    public ParseResultTransformer getParse(long index) {
+        return getParse(BigInteger.valueOf(index));
+    }
+
+    // the index'th parse, with the transformers applied. It is invalid if
+    // one of them throws.
+    public ParseResultTransformer getParse(BigInteger index) {
+        if (!valid) {
+            return new ParseResultTransformer(false, null, getError());
+        }
+        if (index.signum() < 0 || index.compareTo(countParses()) >= 0) {
+            throw new RuntimeException("No parse " + index + ", there are " + countParses());
+        }
+        Rule startRule = chart.getStartRule();
+        ParseResult result = build(startRule.rhs(), 0, size, index);
+        if (result == null) {
+            return new ParseResultTransformer(false, null, "ERROR: Parse " + index + " was rejected by a transformer");
+        }
+        return new ParseResultTransformer(true, result, null).transform(startRule.getTransformer());
+    }
+
+    // every parse the transformers accept, built as the stream reaches it
+    public Stream<ParseResult> parses() {
+        BigInteger total = countParses();
+        return Stream.iterate(BigInteger.ZERO, i -> i.compareTo(total) < 0, i -> i.add(BigInteger.ONE))
+                .map(this::getParse)
+                .filter(ParseResultTransformer::isValid)
+                .map(ParseResultTransformer::getResult);
+    }
+
+    // the number of parses of node from start to end
+    private BigInteger count(RHSTree node, int start, int end) {
+        if (!chart.completes(node, start, end)) {
+            return BigInteger.ZERO;
+        }
+        Span span = new Span(node, -1, start, end);
+        BigInteger count = counts.get(span);
+        if (count != null) {
+            return count;
+        }
+        if (!counting.add(span)) {
+            throw new RuntimeException("Infinitely many parses: a rule can derive itself from " + start + " to " + end);
+        }
+        RHSType type = node.getType();
+        if (type == RHSType.TERMINAL || type == RHSType.REGEX) {
+            count = BigInteger.ONE;
+        } else if (type == RHSType.IDENTIFIER) {
+            count = count(node.getLink().rhs(), start, end);
+        } else if (type == RHSType.GROUP) {
+            count = count(node.getChild(), start, end);
+        } else if (type == RHSType.OPTIONAL) {
+            count = count(node.getChild(), start, end);
+            if (start == end) {
+                count = count.add(BigInteger.ONE);
+            }
+        } else if (type == RHSType.ALTERNATION) {
+            count = BigInteger.ZERO;
+            for (RHSTree child : node.getChildren()) {
+                count = count.add(count(child, start, end));
+            }
+        } else if (type == RHSType.REPEAT) {
+            count = countRepeat(node, start, end);
+        } else {
+            count = countPrefix(node, node.size(), start, end);
+        }
+        counting.remove(span);
+        counts.put(span, count);
+        return count;
+    }
+
+    // the number of ways the first dot children of node can match from start to end
+    private BigInteger countPrefix(RHSTree node, int dot, int start, int end) {
+        if (dot == 0) {
+            return start == end ? BigInteger.ONE : BigInteger.ZERO;
+        }
+        Span span = new Span(node, dot, start, end);
+        BigInteger count = counts.get(span);
+        if (count == null) {
+            count = BigInteger.ZERO;
+            RHSTree child = node.getChild(dot - 1);
+            for (int split : splits(node, dot - 1, start, end)) {
+                count = count.add(countPrefix(node, dot - 1, start, split).multiply(count(child, split, end)));
+            }
+            counts.put(span, count);
+        }
+        return count;
+    }
+
+    // the number of ways node can repeat its child from start to end
+    private BigInteger countRepeat(RHSTree node, int start, int end) {
+        // the shorter spans are counted first, so this never recurses
+        // once per repetition
+        for (int position = start; position < end; position++) {
+            if (chart.hasItem(node, 0, start, position)) {
+                repetitions(node, start, position);
+            }
+        }
+        return repetitions(node, start, end);
+    }
+
+    private BigInteger repetitions(RHSTree node, int start, int end) {
+        if (start == end) {
+            return BigInteger.ONE;
+        }
+        Span span = new Span(node, 0, start, end);
+        BigInteger count = counts.get(span);
+        if (count == null) {
+            count = BigInteger.ZERO;
+            RHSTree child = node.getChild();
+            for (int split : splits(node, 0, start, end)) {
+                if (split < end) {
+                    count = count.add(repetitions(node, start, split).multiply(count(child, split, end)));
+                }
+            }
+            counts.put(span, count);
+        }
+        return count;
+    }
+
+    // where the child node is waiting on at dot can start, if it is to end
+    // at end, in ascending order
+    private List<Integer> splits(RHSTree node, int dot, int start, int end) {
+        RHSTree child = node.getType() == RHSType.REPEAT ? node.getChild() : node.getChild(dot);
+        List<Integer> splits = new ArrayList<>();
+        for (int split : chart.origins(child, end)) {
+            if (split >= start && chart.hasItem(node, dot, start, split)) {
+                splits.add(split);
+            }
+        }
+        Collections.sort(splits);
+        return splits;
+    }
+
+    // the index'th parse of node from start to end, or null if a
+    // transformer rejected it
+    private ParseResult build(RHSTree node, int start, int end, BigInteger index) {
+        RHSType type = node.getType();
+        if (type == RHSType.TERMINAL) {
+            return new StringParseResult(node.getNode().getValue());
+        } else if (type == RHSType.REGEX) {
+            return new StringParseResult(chart.merged(start, end));
+        } else if (type == RHSType.IDENTIFIER) {
+            Rule rule = node.getLink();
+            ParseResult result = build(rule.rhs(), start, end, index);
+            if (result == null) {
+                return null;
+            }
+            ParseResultTransformer transformed = new ParseResultTransformer(true, result, null).transform(rule.getTransformer());
+            return transformed.isValid() ? transformed.getResult() : null;
+        } else if (type == RHSType.GROUP) {
+            return build(node.getChild(), start, end, index);
+        } else if (type == RHSType.OPTIONAL) {
+            if (start == end) {
+                if (index.signum() == 0) {
+                    return new StringParseResult("");
+                }
+                index = index.subtract(BigInteger.ONE);
+            }
+            return build(node.getChild(), start, end, index);
+        } else if (type == RHSType.ALTERNATION) {
+            for (RHSTree child : node.getChildren()) {
+                BigInteger count = count(child, start, end);
+                if (index.compareTo(count) < 0) {
+                    return build(child, start, end, index);
+                }
+                index = index.subtract(count);
+            }
+            throw new RuntimeException("No parse " + index + " from " + start + " to " + end);
+        } else {
+            return buildList(node, start, end, index);
+        }
+    }
+
+    // Works back from the last child (or repetition), choosing where it
+    // starts by how many parses each split covers.
+    private ParseResult buildList(RHSTree node, int start, int end, BigInteger index) {
+        boolean repeat = node.getType() == RHSType.REPEAT;
+        if (repeat) {
+            countRepeat(node, start, end);
+        }
+        List<ParseResult> results = new ArrayList<>();
+        int dot = repeat ? 0 : node.size();
+        while (repeat ? end > start : dot > 0) {
+            RHSTree child = repeat ? node.getChild() : node.getChild(dot - 1);
+            boolean found = false;
+            for (int split : splits(node, repeat ? 0 : dot - 1, start, end)) {
+                if (repeat && split == end) {
+                    continue;
+                }
+                BigInteger childCount = count(child, split, end);
+                BigInteger rest = repeat ? repetitions(node, start, split) : countPrefix(node, dot - 1, start, split);
+                BigInteger covered = rest.multiply(childCount);
+                if (index.compareTo(covered) < 0) {
+                    BigInteger[] parts = index.divideAndRemainder(childCount);
+                    ParseResult result = build(child, split, end, parts[1]);
+                    if (result == null) {
+                        return null;
+                    }
+                    results.add(result);
+                    index = parts[0];
+                    end = split;
+                    found = true;
+                    break;
+                }
+                index = index.subtract(covered);
+            }
+            if (!found) {
+                throw new RuntimeException("No parse " + index + " from " + start + " to " + end);
+            }
+            dot--;
+        }
+        Collections.reverse(results);
+        ListParseResult list = new ListParseResult();
+        for (ParseResult result : results) {
+            list.add(result);
+        }
+        return list;
+    }
+
+}
@@ -1,10 +1,14 @@
 package com.blamedcloud.parsertongue.grammar.expecterator;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
+import com.blamedcloud.parsertongue.grammar.FirstSet;
 import com.blamedcloud.parsertongue.grammar.RHSTree;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
-import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenType;
 
 public class AlternationExpecterator extends ParseResultExpecterator {
 
@@ -15,20 +19,53 @@ public class AlternationExpecterator extends ParseResultExpecterator {
     private boolean firstIteration;
     private String lastError;
 
-    public AlternationExpecterator(RHSTree tree, Tokenizer tokenizer) {
-        super(tokenizer);
+    public AlternationExpecterator(RHSTree tree, ParseContext context) {
+        super(context);
         this.tree = tree;
         childExpecterator = null;
-        childIndex = 0;
         numChildren = tree.size();
+        childIndex = nextViableChild(0);
         firstIteration = true;
         lastError = null;
     }
 
+    // children whose FIRST set rules out the current token are skipped
+    private int nextViableChild(int index) {
+        while (index < numChildren && !tree.getChild(index).canStart(tokens)) {
+            index++;
+        }
+        return index;
+    }
+
+    // The error the children would have given, had none of them been
+    // skipped: what they can start with, and the current token.
+    private String expectedError() {
+        FirstSet first = tree.getFirstSet();
+        List<String> expected = new ArrayList<>();
+        for (String terminal : first.getTerminals()) {
+            expected.add("'" + terminal + "'");
+        }
+        for (TokenType regexType : first.getRegexTypes()) {
+            expected.add("token of type: '" + regexType.getName() + "'");
+        }
+        // (the sets have no order of their own)
+        Collections.sort(expected);
+        String got = tokens.isExhausted() || tokens.isEmpty() ? "" : tokens.currentToken().getValue();
+        return "ERROR: Expected " + String.join(" or ", expected) + ", got: '" + got + "'";
+    }
+
+    // a cut in the current alternative rules out the rest
+    private boolean hasAlternatives() {
+        return childIndex < numChildren && (childExpecterator == null || !childExpecterator.isCommitted());
+    }
+
     @Override
     public boolean hasNext() {
-        if (firstIteration || childIndex < numChildren) {
+        if (hasAlternatives()) {
             return true;
+        } else if (childExpecterator == null) {
+            // (once, for the error, if every child was skipped)
+            return firstIteration;
         } else {
             return childExpecterator.hasNext();
         }
@@ -37,8 +74,12 @@ public class AlternationExpecterator extends ParseResultExpecterator {
     @Override
     public Optional<ParseResultTransformer> tryNext() {
         if (firstIteration) {
-            childExpecterator = tree.getChild(childIndex).getExpecterator(tokens);
-            childIndex++;
+            if (childIndex >= numChildren) {
+                firstIteration = false;
+                return Optional.of(new ParseResultTransformer(false, null, expectedError()));
+            }
+            childExpecterator = tree.getChild(childIndex).getExpecterator(context);
+            childIndex = nextViableChild(childIndex + 1);
         }
 
         if (childExpecterator.hasNext()) {
@@ -59,7 +100,7 @@ public class AlternationExpecterator extends ParseResultExpecterator {
                 return tryNext();
             }
         } else {
-            if (childIndex < numChildren) {
+            if (hasAlternatives()) {
                 firstIteration = true;
                 reset();
                 return tryNext();
@@ -4,8 +4,8 @@ import java.util.Optional;
 
 import com.blamedcloud.parsertongue.grammar.RHSTree;
 import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
-import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 
 public class ConcatenationExpecterator extends ParseResultExpecterator {
 
@@ -17,12 +17,19 @@ public class ConcatenationExpecterator extends ParseResultExpecterator {
 
     private boolean useChild;
     private ParseResultExpecterator concatExpecterator;
-    private ListParseResult childResult;
+    private ParseResult childResult;
     private boolean firstConcatIteration;
 
-    public ConcatenationExpecterator(RHSTree tree, int index, Tokenizer tokenizer) {
-        super(tokenizer);
+    private final Cut cut;
+
+    public ConcatenationExpecterator(RHSTree tree, int index, ParseContext context) {
+        this(tree, index, context, tree.hasCut() ? new Cut() : null);
+    }
+
+    private ConcatenationExpecterator(RHSTree tree, int index, ParseContext context, Cut cut) {
+        super(context);
         this.tree = tree;
+        this.cut = cut;
         childIndex = index;
         childExpecterator = null;
         firstIteration = true;
@@ -32,6 +39,33 @@ public class ConcatenationExpecterator extends ParseResultExpecterator {
         concatExpecterator = null;
         childResult = null;
         firstConcatIteration = false;
+
+        passed(childIndex);
+    }
+
+    // whether the cut has been passed, shared by the expecterators of
+    // each child of one match of the concatenation
+    private static final class Cut {
+
+        private boolean passed = false;
+
+    }
+
+    // count children of the concatenation have matched
+    private void passed(int count) {
+        if (cut != null && count == tree.getCutIndex()) {
+            cut.passed = true;
+        }
+    }
+
+    // this child came before the cut, so it can't be tried again
+    private boolean isCutOff() {
+        return cut != null && cut.passed && childIndex < tree.getCutIndex();
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return cut != null && cut.passed;
     }
 
     @Override
@@ -39,19 +73,21 @@ public class ConcatenationExpecterator extends ParseResultExpecterator {
         if (firstIteration || firstConcatIteration || !useChild) {
             return true;
         } else {
-            return childExpecterator.hasNext();
+            return !isCutOff() && childExpecterator.hasNext();
         }
     }
 
     @Override
     public Optional<ParseResultTransformer> tryNext() {
         if (firstIteration) {
-            childExpecterator = tree.getChild(childIndex).getExpecterator(tokens);
+            childExpecterator = tree.getChild(childIndex).getExpecterator(context);
             useChild = true;
         }
 
         if (useChild) {
-            if (childExpecterator.hasNext()) {
+            if (isCutOff()) {
+                childExpecterator = null;
+            } else if (childExpecterator.hasNext()) {
                 if (firstIteration) {
                     firstIteration = false;
                 } else {
@@ -63,12 +99,13 @@ public class ConcatenationExpecterator extends ParseResultExpecterator {
                     if (actualResult.isValid()) {
                         ParseResultTransformer newResult = actualResult.transform(ListParseResult::wrapInList);
                         if (childIndex + 1 == tree.size()) {
+                            passed(tree.size());
                             return Optional.of(newResult);
                         } else {
-                            concatExpecterator = new ConcatenationExpecterator(tree, childIndex + 1, tokens);
+                            concatExpecterator = new ConcatenationExpecterator(tree, childIndex + 1, context, cut);
                             useChild = false;
                             firstConcatIteration = true;
-                            childResult = (ListParseResult) newResult.getResult();
+                            childResult = actualResult.getResult();
                             return tryNext();
                         }
                     } else {
@@ -79,6 +116,10 @@ public class ConcatenationExpecterator extends ParseResultExpecterator {
                 firstIteration = false;
             }
         } else {
+            if (isCutOff()) {
+                // (so it can be collected while the rest is matched)
+                childExpecterator = null;
+            }
             if (concatExpecterator.hasNext()) {
                 if (firstConcatIteration) {
                     firstConcatIteration = false;
@@ -89,11 +130,10 @@ public class ConcatenationExpecterator extends ParseResultExpecterator {
                 if (optionalResult.isPresent()) {
                     ParseResultTransformer actualResult = optionalResult.get();
                     if (actualResult.isValid()) {
-                        ParseResultTransformer newResult = actualResult.transform(r -> {
-                            ListParseResult listResult = childResult.copy();
-                            listResult.extend((ListParseResult)r);
-                            return listResult;
-                        });
+                        // (sharing the rest's list, but with a copy of this child's
+                        // result, so a transformer that changes it doesn't change
+                        // the other lists it's the first element of)
+                        ParseResultTransformer newResult = actualResult.transform(r -> ((ListParseResult) r).prepend(childResult.copy()));
                         return Optional.of(newResult);
                     } else {
                         lastError = actualResult.getError();
@@ -0,0 +1,167 @@
+package com.blamedcloud.parsertongue.grammar.expecterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.blamedcloud.parsertongue.grammar.RHSTree;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+
+// A repeat that yields its longest match first. RepeatExpecterator yields
+// the empty match first and nests another RepeatExpecterator for each
+// element, so a list of n elements is found only after every shorter one
+// has been tried (and its continuation has failed), n expecterators deep.
+// This matches elements in a loop for as long as it can, keeping an Entry
+// per element, and yields the whole list. Each time it's asked for
+// another match it backs off: it tries the last element's next match (and
+// then extends that as far as it can again), and once that element has no
+// more matches, it drops it and yields the list without it. So the
+// matches are the same as RepeatExpecterator's, just longest first.
+//
+// Like RepeatExpecterator, it doesn't go on once the tokens run out, or
+// after an element that matched nothing (which could repeat forever).
+public class GreedyRepeatExpecterator extends ParseResultExpecterator {
+
+    private final RHSTree tree;
+    private final List<Entry> entries;
+    private boolean extendNext;
+    private boolean done;
+
+    // one matched element: where its match ended, and the expecterator for
+    // its other matches (null once it has none)
+    private static final class Entry {
+
+        private ParseResultExpecterator expecterator;
+        private ParseResult result;
+        private int endIndex;
+        private boolean endExhausted;
+
+        private Entry(ParseResultExpecterator expecterator) {
+            this.expecterator = expecterator;
+        }
+
+    }
+
+    public GreedyRepeatExpecterator(RHSTree tree, ParseContext context) {
+        super(context);
+        this.tree = tree;
+        entries = new ArrayList<>();
+        extendNext = true;
+        done = false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !done;
+    }
+
+    @Override
+    public Optional<ParseResultTransformer> tryNext() {
+        if (done) {
+            return Optional.empty();
+        }
+        while (true) {
+            if (extendNext) {
+                extendNext = false;
+                if (canExtend()) {
+                    ParseResultExpecterator child = tree.getChild().getExpecterator(context);
+                    entries.add(new Entry(child));
+                    Optional<ParseResultTransformer> invalid = advance(entries.get(entries.size() - 1), true);
+                    if (invalid != null) {
+                        return invalid;
+                    }
+                    continue;
+                }
+                // every longer match has been tried, so this one is next
+                return Optional.of(new ParseResultTransformer(true, current(), null));
+            }
+
+            if (entries.isEmpty()) {
+                done = true;
+                return Optional.empty();
+            }
+            Entry last = entries.get(entries.size() - 1);
+            if (last.expecterator == null) {
+                entries.remove(entries.size() - 1);
+                moveToEnd();
+                return Optional.of(new ParseResultTransformer(true, current(), null));
+            }
+            Optional<ParseResultTransformer> invalid = advance(last, false);
+            if (invalid != null) {
+                return invalid;
+            }
+        }
+    }
+
+    // Tries entry's next match. If there is one, it's extended next; if
+    // there isn't, entry is left without an expecterator so it's dropped.
+    // Invalid matches are handed back (as RepeatExpecterator does) so their
+    // errors aren't lost.
+    private Optional<ParseResultTransformer> advance(Entry entry, boolean first) {
+        ParseResultExpecterator child = entry.expecterator;
+        if (!child.hasNext()) {
+            entry.expecterator = null;
+            return null;
+        }
+        if (!first) {
+            child.reset();
+        }
+        Optional<ParseResultTransformer> optionalResult = child.tryNext();
+        if (!child.hasNext()) {
+            entry.expecterator = null;
+        }
+        if (!optionalResult.isPresent()) {
+            return null;
+        }
+        ParseResultTransformer actualResult = optionalResult.get();
+        if (!actualResult.isValid()) {
+            return Optional.of(actualResult);
+        }
+        entry.result = actualResult.getResult();
+        entry.endIndex = tokens.getIndex();
+        entry.endExhausted = tokens.isExhausted();
+        extendNext = true;
+        return null;
+    }
+
+    // whether another element could follow the ones in entries (with the
+    // tokens at the end of them)
+    private boolean canExtend() {
+        if (!entries.isEmpty()) {
+            Entry last = entries.get(entries.size() - 1);
+            if (last.endExhausted || !madeProgress(entries.size() - 1)) {
+                return false;
+            }
+        }
+        return tree.getChild().canStart(tokens);
+    }
+
+    private boolean madeProgress(int index) {
+        int startIndex = index == 0 ? initialIndex : entries.get(index - 1).endIndex;
+        boolean startExhausted = index == 0 ? initialExhausted : entries.get(index - 1).endExhausted;
+        Entry entry = entries.get(index);
+        return entry.endIndex != startIndex || entry.endExhausted != startExhausted;
+    }
+
+    private void moveToEnd() {
+        if (entries.isEmpty()) {
+            reset();
+        } else {
+            Entry last = entries.get(entries.size() - 1);
+            tokens.setIndex(last.endIndex, last.endExhausted);
+        }
+    }
+
+    // (with copies of the entries' results, which the lists yielded after
+    // this one share, as RepeatExpecterator does)
+    private ListParseResult current() {
+        ListParseResult list = new ListParseResult();
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            list = list.prepend(entries.get(i).result.copy());
+        }
+        return list;
+    }
+
+}
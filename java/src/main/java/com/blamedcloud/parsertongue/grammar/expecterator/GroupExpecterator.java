@@ -4,7 +4,6 @@ import java.util.Optional;
 
 import com.blamedcloud.parsertongue.grammar.RHSTree;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
-import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 
 public class GroupExpecterator extends ParseResultExpecterator {
 
@@ -13,8 +12,8 @@ public class GroupExpecterator extends ParseResultExpecterator {
     private boolean firstIteration;
     private String lastError;
 
-    public GroupExpecterator(RHSTree tree, Tokenizer tokenizer) {
-        super(tokenizer);
+    public GroupExpecterator(RHSTree tree, ParseContext context) {
+        super(context);
         this.tree = tree;
         childExpecterator = null;
         firstIteration = true;
@@ -30,10 +29,15 @@ public class GroupExpecterator extends ParseResultExpecterator {
         }
     }
 
+    @Override
+    public boolean isCommitted() {
+        return childExpecterator != null && childExpecterator.isCommitted();
+    }
+
     @Override
     public Optional<ParseResultTransformer> tryNext() {
         if (firstIteration) {
-            childExpecterator = tree.getChild().getExpecterator(tokens);
+            childExpecterator = tree.getChild().getExpecterator(context);
         }
 
         if (childExpecterator.hasNext()) {
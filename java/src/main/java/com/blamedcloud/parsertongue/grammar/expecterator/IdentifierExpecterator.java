@@ -4,7 +4,6 @@ import java.util.Optional;
 
 import com.blamedcloud.parsertongue.grammar.RHSTree;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
-import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 
 public class IdentifierExpecterator extends ParseResultExpecterator {
 
@@ -13,8 +12,8 @@ public class IdentifierExpecterator extends ParseResultExpecterator {
     private boolean firstIteration;
     private String lastError;
 
-    public IdentifierExpecterator(RHSTree tree, Tokenizer tokenizer) {
-        super(tokenizer);
+    public IdentifierExpecterator(RHSTree tree, ParseContext context) {
+        super(context);
         this.tree = tree;
         linkExpecterator = null;
         firstIteration = true;
@@ -33,7 +32,7 @@ public class IdentifierExpecterator extends ParseResultExpecterator {
     @Override
     public Optional<ParseResultTransformer> tryNext() {
         if (firstIteration) {
-            linkExpecterator = tree.getLink().getExpecterator(tokens);
+            linkExpecterator = tree.getLink().getExpecterator(context);
         }
 
         if (linkExpecterator.hasNext()) {
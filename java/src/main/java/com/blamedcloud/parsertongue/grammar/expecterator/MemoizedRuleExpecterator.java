@@ -0,0 +1,71 @@
+package com.blamedcloud.parsertongue.grammar.expecterator;
+
+import java.util.Optional;
+
+import com.blamedcloud.parsertongue.grammar.Rule;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+
+// Reads the results of a rule at a position out of the
+// PackratMemo, only advancing the shared RuleExpecterator
+// when this reader has replayed everything cached so far.
+public class MemoizedRuleExpecterator extends ParseResultExpecterator {
+
+    private PackratMemo.Entry entry;
+    private int cursor;
+    private boolean blocked;
+
+    public MemoizedRuleExpecterator(Rule rule, ParseContext context) {
+        super(context);
+        entry = context.getMemo().lookup(rule, context);
+        cursor = entry.replayStart();
+        blocked = false;
+        looked();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (cursor < entry.size()) {
+            return true;
+        } else if (blocked) {
+            return false;
+        } else {
+            return entry.hasMore();
+        }
+    }
+
+    @Override
+    public Optional<ParseResultTransformer> tryNext() {
+        if (cursor < entry.size()) {
+            return Optional.of(replay(entry.get(cursor++)));
+        }
+
+        if (entry.isEvaluating()) {
+            // this rule is being asked for itself at the same position
+            // (left recursion), so nothing beyond what is cached can be given.
+            blocked = true;
+            return Optional.empty();
+        }
+
+        if (entry.hasMore() && entry.advance()) {
+            return Optional.of(replay(entry.get(cursor++)));
+        }
+
+        reset();
+        return Optional.empty();
+    }
+
+    // Whatever the rule looked at to find its results, the reader has in
+    // effect looked at too (see PackratMemo::edit).
+    private void looked() {
+        tokens.setFurthest(Math.max(tokens.getFurthest(), entry.getFurthest()));
+    }
+
+    // results are handed out as copies so that no caller
+    // can change what the next reader of this entry sees.
+    private ParseResultTransformer replay(PackratMemo.Result cached) {
+        tokens.setIndex(cached.index, cached.exhausted);
+        looked();
+        return new ParseResultTransformer(true, cached.result.getResult().copy(), null);
+    }
+
+}
@@ -5,7 +5,6 @@ import java.util.Optional;
 import com.blamedcloud.parsertongue.grammar.RHSTree;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
 import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
-import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 
 public class OptionalExpecterator extends ParseResultExpecterator {
 
@@ -13,14 +12,16 @@ public class OptionalExpecterator extends ParseResultExpecterator {
     private ParseResultExpecterator childExpecterator;
     private boolean firstIteration;
     private boolean secondIteration;
+    private boolean childViable;
     private String lastError;
 
-    public OptionalExpecterator(RHSTree tree, Tokenizer tokenizer) {
-        super(tokenizer);
+    public OptionalExpecterator(RHSTree tree, ParseContext context) {
+        super(context);
         this.tree = tree;
         childExpecterator = null;
         firstIteration = true;
         secondIteration = false;
+        childViable = tree.getChild().canStart(tokens);
         lastError = null;
     }
 
@@ -28,6 +29,8 @@ public class OptionalExpecterator extends ParseResultExpecterator {
     public boolean hasNext() {
         if (firstIteration || secondIteration) {
             return true;
+        } else if (childExpecterator == null) {
+            return false;
         } else {
             return childExpecterator.hasNext();
         }
@@ -38,13 +41,16 @@ public class OptionalExpecterator extends ParseResultExpecterator {
         // for the very first iteration, just try not returning from this optional
         if (firstIteration) {
             firstIteration = false;
-            secondIteration = true;
+            // the child is skipped if its FIRST set rules out the current token
+            secondIteration = childViable;
             return Optional.of(new ParseResultTransformer(true, new StringParseResult(""), null));
         }
 
         // the second and onward iterations should be the same as a GroupExpecterator
-        if (secondIteration) {
-            childExpecterator = tree.getChild().getExpecterator(tokens);
+        if (childExpecterator == null && !secondIteration) {
+            return Optional.empty();
+        } else if (secondIteration) {
+            childExpecterator = tree.getChild().getExpecterator(context);
         }
 
         if (childExpecterator.hasNext()) {
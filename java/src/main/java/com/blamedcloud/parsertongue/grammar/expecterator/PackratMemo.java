@@ -0,0 +1,381 @@
+package com.blamedcloud.parsertongue.grammar.expecterator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.blamedcloud.parsertongue.grammar.Rule;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.TokenEdit;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.utility.FixedPair;
+
+// A packrat cache for one parse. Each (rule, token position)
+// pair maps to the ordered list of results that rule has
+// produced at that position so far, along with the single
+// underlying RuleExpecterator that can produce more of them.
+// The budget is the maximum number of cached results; once it
+// is exceeded the least recently used entries are dropped.
+//
+// Left-recursive rules would call themselves forever, so their results
+// are grown instead (after Warth et al.): the rule is evaluated over and
+// over, with its recursive calls at the same position seeing only what
+// the previous round found, until a round finds no new end position.
+// Only the first result for each end position is kept, so e.g.
+// `expr = expr, '-', num | num ;` grows one left-associative result per
+// prefix, without needing LeftRecursionTransformer.
+//
+// Each entry also records how far its rule has looked at the tokens, so
+// that after the tokens are edited, edit() can keep the entries that
+// didn't look at anything that changed (see Grammar::reparse).
+public class PackratMemo {
+
+    public static final int DEFAULT_BUDGET = 1 << 20;
+
+    private final int budget;
+    private final LinkedHashMap<FixedPair<Rule, Integer>, Entry> entries;
+    private int cachedResults;
+    private final Deque<Entry> growing;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public PackratMemo() {
+        this(DEFAULT_BUDGET);
+    }
+
+    public PackratMemo(int budget) {
+        if (budget < 1) {
+            throw new RuntimeException("Packrat budget must be positive, got: " + budget);
+        }
+        this.budget = budget;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        growing = new ArrayDeque<>();
+        clear();
+    }
+
+    public void clear() {
+        entries.clear();
+        cachedResults = 0;
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getCachedResults() {
+        return cachedResults;
+    }
+
+    @Override
+    public String toString() {
+        return "{hits: " + hits + "; misses: " + misses + "; evictions: " + evictions + "; cached: " + cachedResults + "}";
+    }
+
+    public static int getPosition(Tokenizer tokens) {
+        if (tokens.isExhausted()) {
+            return tokens.size();
+        } else {
+            return tokens.getIndex();
+        }
+    }
+
+    Entry lookup(Rule rule, ParseContext context) {
+        int position = getPosition(context.getTokenizer());
+        FixedPair<Rule, Integer> key = new FixedPair<>(rule, position);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+            if (entry.resumable) {
+                entry.resume(rule, context);
+            }
+        } else {
+            misses++;
+            if (rule.isLeftRecursive()) {
+                entry = new Entry(null);
+                entries.put(key, entry);
+                for (Entry head : growing) {
+                    // anything left-recursive called at the same position
+                    // while a rule grows can depend on its results
+                    if (head.position == position) {
+                        head.involved.add(key);
+                    }
+                }
+                grow(entry, key, context);
+            } else {
+                entry = new Entry(new RuleExpecterator(rule, context));
+                entry.furthest = position;
+                entries.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    private void grow(Entry entry, FixedPair<Rule, Integer> key, ParseContext context) {
+        Tokenizer tokens = context.getTokenizer();
+        int startIndex = tokens.getIndex();
+        boolean startExhausted = tokens.isExhausted();
+        Set<Integer> ends = new HashSet<>();
+
+        entry.position = key.right;
+        entry.involved = new ArrayList<>();
+        entry.evaluating = true;
+        growing.push(entry);
+        int outerFurthest = tokens.getFurthest();
+        tokens.setFurthest(getPosition(tokens));
+        try {
+            boolean grew = true;
+            while (grew) {
+                int previousSize = entry.results.size();
+                // results found with older seeds are stale
+                forget(entry.involved);
+                tokens.setIndex(startIndex, startExhausted);
+                ParseResultExpecterator source = new RuleExpecterator(key.left, context);
+                while (source.hasNext()) {
+                    source.reset();
+                    Optional<ParseResultTransformer> optionalResult = source.tryNext();
+                    if (optionalResult.isPresent() && optionalResult.get().isValid() && ends.add(getPosition(tokens))) {
+                        entry.results.add(new Result(optionalResult.get(), tokens.getIndex(), tokens.isExhausted()));
+                        recorded(entry);
+                    }
+                }
+                grew = entry.results.size() > previousSize;
+                entry.frontier = previousSize;
+            }
+        } finally {
+            entry.furthest = tokens.getFurthest();
+            tokens.setFurthest(Math.max(outerFurthest, entry.furthest));
+            growing.pop();
+            entry.evaluating = false;
+            entry.frontier = 0;
+            // they only saw the results of the last round
+            forget(entry.involved);
+            entry.involved = null;
+            tokens.setIndex(startIndex, startExhausted);
+        }
+    }
+
+    private void forget(List<FixedPair<Rule, Integer>> keys) {
+        for (FixedPair<Rule, Integer> key : keys) {
+            Entry forgotten = entries.remove(key);
+            if (forgotten != null && !forgotten.evicted) {
+                forgotten.evicted = true;
+                cachedResults -= forgotten.results.size();
+            }
+        }
+        keys.clear();
+    }
+
+    private void recorded(Entry entry) {
+        if (!entry.evicted) {
+            cachedResults++;
+            if (cachedResults > budget) {
+                evict();
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<FixedPair<Rule, Integer>, Entry>> iterator = entries.entrySet().iterator();
+        while (cachedResults > budget && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            eldest.evicted = true;
+            cachedResults -= eldest.results.size();
+            evictions++;
+        }
+    }
+
+    // Carries the entries over an edit of the tokens, in which tokens
+    // [start, oldEnd) were replaced by tokens [start, newEnd) (see
+    // Tokenizer::edit). Entries that only looked at tokens before start
+    // are kept as they are, and those at or after oldEnd are moved along
+    // with their tokens. The rest are dropped. A kept entry whose rule
+    // could still produce more results gets a new RuleExpecterator when
+    // it's next looked up, which skips the results it already has. The
+    // statistics start over.
+    public void edit(TokenEdit edit) {
+        int shift = edit.getShift();
+        List<FixedPair<Rule, Integer>> shiftedKeys = new ArrayList<>();
+        List<Entry> shifted = new ArrayList<>();
+        Iterator<Map.Entry<FixedPair<Rule, Integer>, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<FixedPair<Rule, Integer>, Entry> mapEntry = iterator.next();
+            FixedPair<Rule, Integer> key = mapEntry.getKey();
+            Entry entry = mapEntry.getValue();
+            boolean more = entry.hasMore();
+            boolean keep = entry.furthest < edit.getStart();
+            if (!keep && key.right >= edit.getOldEnd() && shift != 0) {
+                iterator.remove();
+                shiftedKeys.add(new FixedPair<>(key.left, key.right + shift));
+                shifted.add(entry);
+                entry.shift(shift);
+            } else if (!keep && key.right < edit.getOldEnd() || more && entry.results.isEmpty()) {
+                // (an entry with nothing to reuse is dropped too)
+                iterator.remove();
+                entry.evicted = true;
+                cachedResults -= entry.results.size();
+                continue;
+            }
+            entry.source = null;
+            entry.resumable = more;
+        }
+        for (int i = 0; i < shifted.size(); i++) {
+            entries.put(shiftedKeys.get(i), shifted.get(i));
+        }
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    // A single result along with the position the tokenizer
+    // was left at after producing it.
+    static class Result {
+
+        final ParseResultTransformer result;
+        final int index;
+        final boolean exhausted;
+
+        Result(ParseResultTransformer result, int index, boolean exhausted) {
+            this.result = result;
+            this.index = index;
+            this.exhausted = exhausted;
+        }
+
+    }
+
+    class Entry {
+
+        private ParseResultExpecterator source;
+        private final List<Result> results;
+        private boolean evaluating;
+        private boolean evicted;
+
+        // the furthest position looked at (see Tokenizer::getFurthest),
+        // and, once carried over an edit, whether a new source is needed
+        // and how many of the results it will find again first
+        private int furthest;
+        private boolean resumable;
+        private int skip;
+
+        // only used while a left-recursive rule's results are grown
+        private int position;
+        private int frontier;
+        private List<FixedPair<Rule, Integer>> involved;
+
+        Entry(ParseResultExpecterator source) {
+            this.source = source;
+            results = new ArrayList<>();
+            evaluating = false;
+            evicted = false;
+            position = -1;
+            frontier = 0;
+            involved = null;
+            furthest = 0;
+            resumable = false;
+            skip = 0;
+        }
+
+        int getFurthest() {
+            return furthest;
+        }
+
+        private void resume(Rule rule, ParseContext context) {
+            source = new RuleExpecterator(rule, context);
+            resumable = false;
+            skip = results.size();
+        }
+
+        private void shift(int shift) {
+            for (int i = 0; i < results.size(); i++) {
+                Result result = results.get(i);
+                results.set(i, new Result(result.result, result.index + shift, result.exhausted));
+            }
+            furthest += shift;
+        }
+
+        // where a reader starts replaying: a growing rule's recursive
+        // calls only need the results the previous round added
+        int replayStart() {
+            return frontier;
+        }
+
+        int size() {
+            return results.size();
+        }
+
+        Result get(int index) {
+            return results.get(index);
+        }
+
+        boolean isEvaluating() {
+            return evaluating;
+        }
+
+        boolean hasMore() {
+            if (source != null && !source.hasNext()) {
+                source = null;
+            }
+            return source != null || resumable;
+        }
+
+        // advance the underlying expecterator by one step. Returns
+        // true iff a new result was recorded, in which case the
+        // tokenizer is left at the end of that result.
+        boolean advance() {
+            Tokenizer tokens = source.tokens;
+            source.reset();
+            evaluating = true;
+            int outerFurthest = tokens.getFurthest();
+            tokens.setFurthest(getPosition(tokens));
+            Optional<ParseResultTransformer> optionalResult;
+            try {
+                optionalResult = source.tryNext();
+            } finally {
+                evaluating = false;
+                furthest = Math.max(furthest, tokens.getFurthest());
+                tokens.setFurthest(Math.max(outerFurthest, furthest));
+            }
+            if (optionalResult.isPresent() && optionalResult.get().isValid()) {
+                if (skip > 0) {
+                    // one it had before the edit
+                    skip--;
+                    return false;
+                }
+                results.add(new Result(optionalResult.get(), tokens.getIndex(), tokens.isExhausted()));
+                recorded(this);
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.blamedcloud.parsertongue.grammar.expecterator;
+
+import com.blamedcloud.parsertongue.grammar.Rule;
+import com.blamedcloud.parsertongue.grammar.predictive.PredictiveTable;
+import com.blamedcloud.parsertongue.grammar.result.DeferredParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.ScannerlessTokenizer;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+
+// Everything an expecterator tree needs for the
+// duration of a single parse. The tokenizer holds
+// the current position, and the (optional) memo
+// holds packrat results keyed on that position. The
+// (optional) predictive table marks the LL(1) rules
+// that can be parsed without backtracking. If
+// transformers are deferred, rules leave theirs in a
+// DeferredParseResult instead of applying them, and
+// with greedy repeats, repeats try their longest
+// match first.
+public class ParseContext {
+
+    private final Tokenizer tokens;
+    private final PackratMemo memo;
+    private final PredictiveTable predictiveTable;
+    private final boolean deferTransforms;
+    private final boolean greedyRepeats;
+
+    public ParseContext(Tokenizer tokenizer) {
+        this(tokenizer, null, null);
+    }
+
+    public ParseContext(Tokenizer tokenizer, PackratMemo memo) {
+        this(tokenizer, memo, null);
+    }
+
+    public ParseContext(Tokenizer tokenizer, PackratMemo memo, PredictiveTable table) {
+        this(tokenizer, memo, table, false);
+    }
+
+    public ParseContext(Tokenizer tokenizer, PackratMemo memo, PredictiveTable table, boolean deferTransforms) {
+        this(tokenizer, memo, table, deferTransforms, false);
+    }
+
+    public ParseContext(Tokenizer tokenizer, PackratMemo memo, PredictiveTable table, boolean deferTransforms, boolean greedyRepeats) {
+        tokens = tokenizer;
+        this.memo = memo;
+        // the table is keyed on tokens, which scannerless input doesn't have
+        predictiveTable = tokenizer instanceof ScannerlessTokenizer ? null : table;
+        this.deferTransforms = deferTransforms;
+        this.greedyRepeats = greedyRepeats;
+    }
+
+    public Tokenizer getTokenizer() {
+        return tokens;
+    }
+
+    public boolean hasMemo() {
+        return memo != null;
+    }
+
+    public PackratMemo getMemo() {
+        return memo;
+    }
+
+    public boolean isPredictive(Rule rule) {
+        return predictiveTable != null && predictiveTable.isLL1(rule);
+    }
+
+    public PredictiveTable getPredictiveTable() {
+        return predictiveTable;
+    }
+
+    public boolean defersTransforms() {
+        return deferTransforms;
+    }
+
+    public boolean hasGreedyRepeats() {
+        return greedyRepeats;
+    }
+
+    // the end of a match of rule
+    public ParseResultTransformer transform(Rule rule, ParseResultTransformer result) {
+        if (deferTransforms && result.isValid()) {
+            return new ParseResultTransformer(true, new DeferredParseResult(rule.getTransformer(), result.getResult()), null);
+        }
+        return result.transform(rule.getTransformer());
+    }
+
+    // a complete parse, with its deferred transformers applied
+    public ParseResultTransformer accept(ParseResultTransformer result) {
+        if (deferTransforms) {
+            return DeferredParseResult.evaluate(result);
+        }
+        return result;
+    }
+
+}
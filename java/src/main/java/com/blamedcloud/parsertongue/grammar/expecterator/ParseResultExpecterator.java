@@ -5,14 +5,22 @@ import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 
 public abstract class ParseResultExpecterator implements Expecterator<ParseResultTransformer> {
 
+    protected ParseContext context;
     protected Tokenizer tokens;
     protected int initialIndex;
     protected boolean initialExhausted;
 
-    protected ParseResultExpecterator(Tokenizer tokenizer) {
-        tokens = tokenizer;
-        initialIndex = tokenizer.getIndex();
-        initialExhausted = tokenizer.isExhausted();
+    protected ParseResultExpecterator(ParseContext context) {
+        this.context = context;
+        tokens = context.getTokenizer();
+        initialIndex = tokens.getIndex();
+        initialExhausted = tokens.isExhausted();
+    }
+
+    // true once a cut in this expecterator's concatenation has been passed,
+    // so an alternation shouldn't go on to its next alternative
+    public boolean isCommitted() {
+        return false;
     }
 
     @Override
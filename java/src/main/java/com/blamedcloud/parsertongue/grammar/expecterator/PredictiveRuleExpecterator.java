@@ -0,0 +1,39 @@
+package com.blamedcloud.parsertongue.grammar.expecterator;
+
+import java.util.Optional;
+
+import com.blamedcloud.parsertongue.grammar.Rule;
+import com.blamedcloud.parsertongue.grammar.predictive.PredictiveParser;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+
+// An LL(1) rule has at most one parse that anything around it can
+// use, so it is parsed once by a PredictiveParser instead of being
+// enumerated. Like RuleExpecterator, invalid results are swallowed.
+public class PredictiveRuleExpecterator extends ParseResultExpecterator {
+
+    private Rule rule;
+    private boolean firstIteration;
+
+    public PredictiveRuleExpecterator(Rule rule, ParseContext context) {
+        super(context);
+        this.rule = rule;
+        firstIteration = true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return firstIteration;
+    }
+
+    @Override
+    public Optional<ParseResultTransformer> tryNext() {
+        firstIteration = false;
+        ParseResultTransformer result = new PredictiveParser(context).parse(rule);
+        if (result.isValid()) {
+            return Optional.of(result);
+        }
+        reset();
+        return Optional.empty();
+    }
+
+}
@@ -1,31 +1,36 @@
 package com.blamedcloud.parsertongue.grammar.expecterator;
 
 import java.util.Optional;
+import java.util.regex.Matcher;
 
 import com.blamedcloud.parsertongue.grammar.RHSTree;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
 import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
+import com.blamedcloud.parsertongue.tokenizer.TokenText;
 import com.blamedcloud.parsertongue.tokenizer.TokenType;
-import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 
+// Tries merging one more token each time, and matching the regex against
+// the merged values. They're merged into a TokenText, so nothing is copied
+// and one Matcher does for every try. If a try fails without the matcher
+// reaching the end of the merged text, no longer one can match either, so
+// there is nothing left to try. (Anything ignored before the regex, which
+// only a ScannerlessTokenizer has, is skipped first.)
 public class RegexExpecterator extends ParseResultExpecterator {
 
     private TokenType regexNode;
 
     private boolean haveNext;
-    private int consumableTokens;
-    private int tokensConsumed;
+    private int startIndex;
+    private TokenText text;
+    private Matcher matcher;
 
-    public RegexExpecterator(RHSTree tree, Tokenizer tokenizer) {
-        super(tokenizer);
+    public RegexExpecterator(RHSTree tree, ParseContext context) {
+        super(context);
         regexNode = tree.getRegexNode();
         haveNext = true;
-        tokensConsumed = 0;
-        if (tokens.isExhausted()) {
-            consumableTokens = 0;
-        } else {
-            consumableTokens = tokenizer.size() - tokenizer.getIndex();
-        }
+        startIndex = 0;
+        text = null;
+        matcher = null;
     }
 
     @Override
@@ -35,7 +40,8 @@ public class RegexExpecterator extends ParseResultExpecterator {
 
     @Override
     public Optional<ParseResultTransformer> tryNext() {
-        if (tokens.isExhausted() || tokens.size() == 0) {
+        tokens.skipIgnored();
+        if (tokens.isExhausted() || tokens.isEmpty()) {
             haveNext = false;
             if (regexNode.isTypeOf("")) {
                 return Optional.of(new ParseResultTransformer(true, new StringParseResult(""), null));
@@ -44,30 +50,30 @@ public class RegexExpecterator extends ParseResultExpecterator {
                 return Optional.of(new ParseResultTransformer(false, null, error));
             }
         } else {
-            tokensConsumed++;
-            if (tokensConsumed == consumableTokens) {
+            if (text == null) {
+                startIndex = tokens.getIndex();
+                text = tokens.textFrom(startIndex);
+                matcher = regexNode.getPattern().matcher(text);
+            }
+            text.addToken();
+            tokens.setIndex(startIndex + text.tokenCount() - 1, false);
+            tokens.nextToken();
+            // once every remaining token has been merged there is nothing left to try
+            if (tokens.isExhausted()) {
                 haveNext = false;
             }
-            reset();
-            String mergedTokens = getNextNTokens(tokensConsumed);
-            if (regexNode.isTypeOf(mergedTokens)) {
-                return Optional.of(new ParseResultTransformer(true, new StringParseResult(mergedTokens), null));
+            matcher.region(0, text.length());
+            if (matcher.matches()) {
+                return Optional.of(new ParseResultTransformer(true, new StringParseResult(text.toString()), null));
             } else {
+                if (!matcher.hitEnd()) {
+                    haveNext = false;
+                }
                 reset();
-                String error = "ERROR: Expected token of type: '" + regexNode.getName() + "', got: '" + mergedTokens + "'";
+                String error = "ERROR: Expected token of type: '" + regexNode.getName() + "', got: '" + text + "'";
                 return Optional.of(new ParseResultTransformer(false, null, error));
             }
         }
     }
 
-    private String getNextNTokens(int n) {
-        StringBuilder mergedTokens = new StringBuilder();
-        while (n > 0) {
-            mergedTokens.append(tokens.currentToken().getValue());
-            tokens.nextToken();
-            n--;
-        }
-        return mergedTokens.toString();
-    }
-
 }
@@ -4,8 +4,8 @@ import java.util.Optional;
 
 import com.blamedcloud.parsertongue.grammar.RHSTree;
 import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
-import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 
 public class RepeatExpecterator extends ParseResultExpecterator {
 
@@ -13,19 +13,21 @@ public class RepeatExpecterator extends ParseResultExpecterator {
     private ParseResultExpecterator childExpecterator;
     private boolean firstIteration;
     private boolean secondIteration;
+    private boolean childViable;
     private String lastError;
 
     private boolean useChild;
     private ParseResultExpecterator repeatExpecterator;
-    private ListParseResult childResult;
+    private ParseResult childResult;
     private boolean firstRepeatIteration;
 
-    public RepeatExpecterator(RHSTree tree, Tokenizer tokenizer) {
-        super(tokenizer);
+    public RepeatExpecterator(RHSTree tree, ParseContext context) {
+        super(context);
         this.tree = tree;
         childExpecterator = null;
         firstIteration = true;
         secondIteration = false;
+        childViable = tree.getChild().canStart(tokens);
         lastError = null;
 
         useChild = false;
@@ -36,7 +38,11 @@ public class RepeatExpecterator extends ParseResultExpecterator {
 
     @Override
     public boolean hasNext() {
-        if (firstIteration || secondIteration || firstRepeatIteration || !useChild) {
+        if (firstIteration) {
+            return true;
+        } else if (!childViable) {
+            return false;
+        } else if (secondIteration || firstRepeatIteration || !useChild) {
             return true;
         } else {
             return childExpecterator.hasNext();
@@ -52,8 +58,13 @@ public class RepeatExpecterator extends ParseResultExpecterator {
             return Optional.of(new ParseResultTransformer(true, new ListParseResult(), null));
         }
 
+        // no repetitions are possible if the child's FIRST set rules out the current token
+        if (!childViable) {
+            return Optional.empty();
+        }
+
         if (secondIteration) {
-            childExpecterator = tree.getChild().getExpecterator(tokens);
+            childExpecterator = tree.getChild().getExpecterator(context);
             useChild = true;
         }
 
@@ -70,10 +81,10 @@ public class RepeatExpecterator extends ParseResultExpecterator {
                     if (actualResult.isValid()) {
                         ParseResultTransformer newResult = actualResult.transform(ListParseResult::wrapInList);
                         if (!tokens.isExhausted()) {
-                            repeatExpecterator = tree.getExpecterator(tokens);
+                            repeatExpecterator = tree.getExpecterator(context);
                             useChild = false;
                             firstRepeatIteration = true;
-                            childResult = (ListParseResult)newResult.getResult();
+                            childResult = actualResult.getResult();
                             return tryNext();
                         } else {
                             return Optional.of(newResult);
@@ -96,11 +107,8 @@ public class RepeatExpecterator extends ParseResultExpecterator {
                 if (optionalResult.isPresent()) {
                     ParseResultTransformer actualResult = optionalResult.get();
                     if (actualResult.isValid()) {
-                        ParseResultTransformer newResult = actualResult.transform(r -> {
-                            ListParseResult listResult = childResult.copy();
-                            listResult.extend((ListParseResult)r);
-                            return listResult;
-                        });
+                        // (a copy of the child's result, as for a concatenation)
+                        ParseResultTransformer newResult = actualResult.transform(r -> ((ListParseResult) r).prepend(childResult.copy()));
                         return Optional.of(newResult);
                     } else {
                         lastError = actualResult.getError();
@@ -4,7 +4,6 @@ import java.util.Optional;
 
 import com.blamedcloud.parsertongue.grammar.Rule;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
-import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 
 public class RuleExpecterator extends ParseResultExpecterator {
 
@@ -12,8 +11,8 @@ public class RuleExpecterator extends ParseResultExpecterator {
     private ParseResultExpecterator rhsExpecterator;
     private boolean firstIteration;
 
-    public RuleExpecterator(Rule rule, Tokenizer tokenizer) {
-        super(tokenizer);
+    public RuleExpecterator(Rule rule, ParseContext context) {
+        super(context);
         this.rule = rule;
         rhsExpecterator = null;
         firstIteration = true;
@@ -31,7 +30,7 @@ public class RuleExpecterator extends ParseResultExpecterator {
     @Override
     public Optional<ParseResultTransformer> tryNext() {
         if (firstIteration) {
-            rhsExpecterator = rule.rhs().getExpecterator(tokens);
+            rhsExpecterator = rule.rhs().getExpecterator(context);
             firstIteration = false;
         }
 
@@ -40,7 +39,7 @@ public class RuleExpecterator extends ParseResultExpecterator {
             if (optionalResult.isPresent()) {
                 ParseResultTransformer actualResult = optionalResult.get();
                 if (actualResult.isValid()) {
-                    ParseResultTransformer newResult = actualResult.transform(rule.getTransformer());
+                    ParseResultTransformer newResult = context.transform(rule, actualResult);
                     return Optional.of(newResult);
                 }
             }
@@ -5,20 +5,18 @@ import java.util.Optional;
 import com.blamedcloud.parsertongue.grammar.RHSTree;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
 import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
-import com.blamedcloud.parsertongue.tokenizer.Token;
-import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 
 public class TerminalExpecterator extends ParseResultExpecterator {
 
-    private Token node;
+    private RHSTree tree;
     private String nodeValue;
 
     private boolean haveNext;
 
-    public TerminalExpecterator(RHSTree tree, Tokenizer tokenizer) {
-        super(tokenizer);
-        node = tree.getNode();
-        nodeValue = node.getValue();
+    public TerminalExpecterator(RHSTree tree, ParseContext context) {
+        super(context);
+        this.tree = tree;
+        nodeValue = tree.getNode().getValue();
         haveNext = true;
     }
 
@@ -33,8 +31,7 @@ public class TerminalExpecterator extends ParseResultExpecterator {
 
         if (nodeValue.length() == 0) {
             return Optional.of(new ParseResultTransformer(true, new StringParseResult(""), null));
-        } else if (!tokens.isExhausted() && nodeValue.equals(tokens.currentToken().getValue())) {
-            tokens.nextToken();
+        } else if (tree.acceptTerminal(tokens)) {
             return Optional.of(new ParseResultTransformer(true, new StringParseResult(nodeValue), null));
         } else {
             String error = "ERROR: Expected '" + nodeValue + "', got: '" + tokens.currentToken().getValue() + "'";
@@ -0,0 +1,161 @@
+package com.blamedcloud.parsertongue.grammar.predictive;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.blamedcloud.parsertongue.grammar.RHSTree;
+import com.blamedcloud.parsertongue.grammar.RHSType;
+import com.blamedcloud.parsertongue.grammar.Rule;
+import com.blamedcloud.parsertongue.grammar.expecterator.ParseContext;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+
+// Parses an LL(1) rule (see PredictiveTable) in a single pass, deciding
+// every choice from the current token alone. Rather than recursing, the
+// trees still being parsed are kept on an explicit stack. The results
+// have the same shape as the ones the expecterators build, and each
+// rule's transformer is applied as its parse finishes.
+public class PredictiveParser {
+
+    private final PredictiveTable table;
+    private final Tokenizer tokens;
+    private final ParseContext context;
+
+    public PredictiveParser(PredictiveTable table, Tokenizer tokens) {
+        this(new ParseContext(tokens, null, table));
+    }
+
+    // uses the context's table, and defers transformers if it does
+    public PredictiveParser(ParseContext context) {
+        this.context = context;
+        table = context.getPredictiveTable();
+        tokens = context.getTokenizer();
+    }
+
+    // a tree being parsed, or a rule waiting for its tree's result
+    private static class Frame {
+
+        private final Rule rule;
+        private final RHSTree tree;
+        private int index;
+        private ListParseResult results;
+
+        private Frame(Rule rule, RHSTree tree) {
+            this.rule = rule;
+            this.tree = tree;
+            index = 0;
+            results = null;
+        }
+
+    }
+
+    // Leaves the tokenizer wherever the parse stopped,
+    // the caller is expected to reset it on failure.
+    public ParseResultTransformer parse(Rule rule) {
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(rule, null));
+        ParseResult returned = null;
+
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (frame.tree == null) {
+                if (frame.index == 0) {
+                    frame.index = 1;
+                    stack.push(new Frame(null, frame.rule.rhs()));
+                } else {
+                    stack.pop();
+                    ParseResultTransformer result = context.transform(frame.rule, new ParseResultTransformer(true, returned, null));
+                    if (!result.isValid()) {
+                        return result;
+                    }
+                    returned = result.getResult();
+                }
+                continue;
+            }
+
+            RHSTree tree = frame.tree;
+            RHSType type = tree.getType();
+            if (type == RHSType.TERMINAL) {
+                stack.pop();
+                String nodeValue = tree.getNode().getValue();
+                if (nodeValue.length() > 0) {
+                    if (tokens.isEmpty() || tokens.isExhausted() || !tree.matchesTerminal(tokens)) {
+                        return failure("ERROR: Expected '" + nodeValue + "', got: '" + tokens.currentToken().getValue() + "'");
+                    }
+                    tokens.nextToken();
+                }
+                returned = new StringParseResult(nodeValue);
+            } else if (type == RHSType.IDENTIFIER) {
+                stack.pop();
+                stack.push(new Frame(tree.getLink(), null));
+            } else if (type == RHSType.GROUP) {
+                stack.pop();
+                stack.push(new Frame(null, tree.getChild()));
+            } else if (type == RHSType.ALTERNATION) {
+                stack.pop();
+                int childIndex = table.predictAlternative(tree, currentValue());
+                if (childIndex < 0) {
+                    return failure("ERROR: Unexpected token: '" + tokens.currentToken().getValue() + "'");
+                }
+                stack.push(new Frame(null, tree.getChild(childIndex)));
+            } else if (type == RHSType.OPTIONAL) {
+                stack.pop();
+                if (canEnter(tree.getChild())) {
+                    stack.push(new Frame(null, tree.getChild()));
+                } else {
+                    returned = new StringParseResult("");
+                }
+            } else if (type == RHSType.REPEAT) {
+                if (frame.results == null) {
+                    frame.results = new ListParseResult();
+                } else {
+                    frame.results.add(returned);
+                }
+                if (canEnter(tree.getChild())) {
+                    stack.push(new Frame(null, tree.getChild()));
+                } else {
+                    stack.pop();
+                    returned = frame.results;
+                }
+            } else if (type == RHSType.CONCATENATION) {
+                if (frame.results == null) {
+                    frame.results = new ListParseResult();
+                } else {
+                    frame.results.add(returned);
+                }
+                if (frame.index < tree.size()) {
+                    stack.push(new Frame(null, tree.getChild(frame.index++)));
+                } else {
+                    stack.pop();
+                    returned = frame.results;
+                }
+            } else {
+                throw new RuntimeException("Cannot predictively parse RHSType: " + type);
+            }
+        }
+
+        return new ParseResultTransformer(true, returned, null);
+    }
+
+    // the child of an OPTIONAL or REPEAT is never nullable
+    // in an LL(1) rule, so this is just its FIRST set
+    private boolean canEnter(RHSTree child) {
+        String value = currentValue();
+        return value != null && child.getFirstSet().getTerminals().contains(value);
+    }
+
+    private String currentValue() {
+        if (tokens.isEmpty() || tokens.isExhausted()) {
+            return null;
+        }
+        return tokens.currentToken().getValue();
+    }
+
+    private static ParseResultTransformer failure(String error) {
+        return new ParseResultTransformer(false, null, error);
+    }
+
+}
@@ -0,0 +1,293 @@
+package com.blamedcloud.parsertongue.grammar.predictive;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.blamedcloud.parsertongue.grammar.FirstSet;
+import com.blamedcloud.parsertongue.grammar.RHSKind;
+import com.blamedcloud.parsertongue.grammar.RHSTree;
+import com.blamedcloud.parsertongue.grammar.RHSType;
+import com.blamedcloud.parsertongue.grammar.Rule;
+
+// LL(1) analysis of a set of rules (and every rule reachable from them).
+// A rule is LL(1) if, at every choice in it and in every rule it can
+// reach, the current token alone decides what to do: alternatives start
+// with distinct terminals, and optionals and repeats can't start with
+// anything that could follow them. Such a rule has at most one parse
+// that a complete parse could use, so the PredictiveParser can find it
+// without backtracking.
+//
+// FOLLOW sets depend on where a rule is used, so a table belongs to the
+// grammar it was built for, unlike the FIRST sets stored on the rules.
+// Regex leaves can match a merge of any number of tokens, so rules that
+// can reach one are never LL(1), and neither are rules that can reach a
+// cut.
+public class PredictiveTable {
+
+    private final Set<Rule> reachable;
+    private final Map<Rule, Follow> ruleFollows;
+    private final Map<RHSTree, Follow> nodeFollows;
+    private final Map<RHSTree, Map<String, Integer>> alternatives;
+    private final Map<RHSTree, Integer> defaultAlternatives;
+    private final Set<Rule> llRules;
+
+    public PredictiveTable(Collection<Rule> rules) {
+        reachable = findReachableRules(rules);
+        ruleFollows = new HashMap<>();
+        nodeFollows = new HashMap<>();
+        alternatives = new HashMap<>();
+        defaultAlternatives = new HashMap<>();
+        llRules = new HashSet<>();
+
+        computeFollowSets();
+        findLLRules();
+    }
+
+    public boolean isLL1(Rule rule) {
+        return llRules.contains(rule);
+    }
+
+    public Set<Rule> getLL1Rules() {
+        return llRules;
+    }
+
+    // the child of an ALTERNATION node to take at the given token value
+    // (null once the tokens are exhausted), or -1 if none can match
+    int predictAlternative(RHSTree tree, String value) {
+        if (value != null) {
+            Integer index = alternatives.get(tree).get(value);
+            if (index != null) {
+                return index;
+            }
+        }
+        return defaultAlternatives.get(tree);
+    }
+
+    // the terminals that can follow a rule, and whether anything else
+    // (a merge of tokens for a regex leaf) can
+    private static class Follow {
+
+        private final Set<String> terminals;
+        private boolean anyToken;
+
+        private Follow() {
+            terminals = new HashSet<>();
+            anyToken = false;
+        }
+
+        private boolean addFirst(FirstSet first) {
+            boolean changed = terminals.addAll(first.getTerminals());
+            if (!anyToken && (first.matchesAnyToken() || !first.getRegexTypes().isEmpty())) {
+                anyToken = true;
+                changed = true;
+            }
+            return changed;
+        }
+
+        private boolean addAll(Follow other) {
+            boolean changed = terminals.addAll(other.terminals);
+            if (!anyToken && other.anyToken) {
+                anyToken = true;
+                changed = true;
+            }
+            return changed;
+        }
+
+        private boolean overlaps(Set<String> first) {
+            if (anyToken) {
+                return true;
+            }
+            for (String terminal : first) {
+                if (terminals.contains(terminal)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    private static Set<Rule> findReachableRules(Collection<Rule> rules) {
+        Set<Rule> found = new LinkedHashSet<>(rules);
+        Deque<RHSTree> trees = new ArrayDeque<>();
+        for (Rule rule : rules) {
+            trees.push(rule.rhs());
+        }
+        while (!trees.isEmpty()) {
+            RHSTree tree = trees.pop();
+            if (tree.getType() == RHSType.IDENTIFIER) {
+                if (tree.hasLink() && found.add(tree.getLink())) {
+                    trees.push(tree.getLink().rhs());
+                }
+            } else if (tree.getKind() != RHSKind.LEAF) {
+                for (RHSTree child : tree.getChildren()) {
+                    trees.push(child);
+                }
+            }
+        }
+        return found;
+    }
+
+    // FOLLOW sets only ever grow, so repeat until nothing changes
+    private void computeFollowSets() {
+        for (Rule rule : reachable) {
+            ruleFollows.put(rule, new Follow());
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Rule rule : reachable) {
+                changed |= propagate(rule.rhs(), ruleFollows.get(rule));
+            }
+        }
+    }
+
+    private boolean propagate(RHSTree tree, Follow follow) {
+        boolean changed = nodeFollows.computeIfAbsent(tree, t -> new Follow()).addAll(follow);
+        RHSType type = tree.getType();
+        if (type == RHSType.IDENTIFIER) {
+            if (tree.hasLink()) {
+                changed |= ruleFollows.get(tree.getLink()).addAll(follow);
+            }
+        } else if (type == RHSType.REPEAT) {
+            Follow childFollow = new Follow();
+            childFollow.addAll(follow);
+            childFollow.addFirst(tree.getChild().getFirstSet());
+            changed |= propagate(tree.getChild(), childFollow);
+        } else if (type == RHSType.CONCATENATION) {
+            // walk backwards, so each child is followed by the FIRST
+            // sets of the nullable run of children after it
+            Follow childFollow = follow;
+            for (int i = tree.size() - 1; i >= 0; i--) {
+                RHSTree child = tree.getChild(i);
+                changed |= propagate(child, childFollow);
+                Follow previousFollow = new Follow();
+                if (child.getFirstSet().isNullable()) {
+                    previousFollow.addAll(childFollow);
+                }
+                previousFollow.addFirst(child.getFirstSet());
+                childFollow = previousFollow;
+            }
+        } else if (tree.getKind() != RHSKind.LEAF) {
+            for (RHSTree child : tree.getChildren()) {
+                changed |= propagate(child, follow);
+            }
+        }
+        return changed;
+    }
+
+    // a rule is LL(1) if it is locally, and so is every rule it uses
+    private void findLLRules() {
+        Map<Rule, Set<Rule>> uses = new HashMap<>();
+        for (Rule rule : reachable) {
+            Set<Rule> used = new HashSet<>();
+            FirstSet first = rule.getFirstSet();
+            boolean canMatch = first != null && (first.isNullable() || !first.getTerminals().isEmpty());
+            if (canMatch && isLocallyLL1(rule.rhs(), used)) {
+                llRules.add(rule);
+                uses.put(rule, used);
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Rule rule : new HashSet<>(llRules)) {
+                if (!llRules.containsAll(uses.get(rule))) {
+                    llRules.remove(rule);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private boolean isLocallyLL1(RHSTree tree, Set<Rule> used) {
+        RHSType type = tree.getType();
+        if (tree.getFirstSet() == null) {
+            return false;
+        } else if (type == RHSType.TERMINAL) {
+            return true;
+        } else if (type == RHSType.REGEX) {
+            return false;
+        } else if (type == RHSType.IDENTIFIER) {
+            if (!tree.hasLink()) {
+                return false;
+            }
+            used.add(tree.getLink());
+            return true;
+        } else if (type == RHSType.OPTIONAL || type == RHSType.REPEAT) {
+            // entered exactly when the current token can start the child
+            FirstSet childFirst = tree.getChild().getFirstSet();
+            if (!isExact(childFirst) || childFirst.isNullable() || nodeFollows.get(tree).overlaps(childFirst.getTerminals())) {
+                return false;
+            }
+            return isLocallyLL1(tree.getChild(), used);
+        } else if (type == RHSType.ALTERNATION) {
+            return buildAlternatives(tree) && allLocallyLL1(tree, used);
+        } else if (tree.hasCut()) {
+            // a cut can rule out the one parse that would be predicted
+            return false;
+        } else {
+            return allLocallyLL1(tree, used);
+        }
+    }
+
+    private boolean allLocallyLL1(RHSTree tree, Set<Rule> used) {
+        for (RHSTree child : tree.getChildren()) {
+            if (!isLocallyLL1(child, used)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Each child is predicted by its FIRST set. A single nullable child
+    // is also taken on anything else, which has to include whatever can
+    // follow the alternation, so that can't overlap another child either.
+    private boolean buildAlternatives(RHSTree tree) {
+        Map<String, Integer> predictions = new HashMap<>();
+        int nullableIndex = -1;
+        for (int i = 0; i < tree.size(); i++) {
+            FirstSet childFirst = tree.getChild(i).getFirstSet();
+            if (!isExact(childFirst)) {
+                return false;
+            }
+            if (childFirst.isNullable()) {
+                if (nullableIndex != -1) {
+                    return false;
+                }
+                nullableIndex = i;
+            }
+            for (String terminal : childFirst.getTerminals()) {
+                if (predictions.put(terminal, i) != null) {
+                    return false;
+                }
+            }
+        }
+        if (nullableIndex != -1) {
+            Follow follow = nodeFollows.get(tree);
+            if (follow.anyToken) {
+                return false;
+            }
+            for (String terminal : follow.terminals) {
+                Integer index = predictions.get(terminal);
+                if (index != null && index != nullableIndex) {
+                    return false;
+                }
+            }
+        }
+        alternatives.put(tree, predictions);
+        defaultAlternatives.put(tree, nullableIndex);
+        return true;
+    }
+
+    private static boolean isExact(FirstSet first) {
+        return first != null && !first.matchesAnyToken() && first.getRegexTypes().isEmpty();
+    }
+
+}
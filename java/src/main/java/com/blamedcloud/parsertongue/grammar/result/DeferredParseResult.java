@@ -0,0 +1,133 @@
+package com.blamedcloud.parsertongue.grammar.result;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// A rule's result before its transformer has been applied, which is what
+// rules give when transformers are deferred (see
+// Grammar::setDeferredTransforms). The parse is then a tree of these and
+// the usual results, and once a complete parse is accepted evaluate()
+// applies every transformer in it, innermost first, so the transformers
+// of parses that were backtracked out of never run.
+public class DeferredParseResult implements ParseResult {
+
+    private final ParseResultFunction transformer;
+    private final ParseResult result;
+
+    public DeferredParseResult(ParseResultFunction transformer, ParseResult result) {
+        this.transformer = transformer;
+        this.result = result;
+    }
+
+    public ParseResultFunction getTransformer() {
+        return transformer;
+    }
+
+    // the result the transformer will be given (which may have deferred
+    // results of its own)
+    public ParseResult getResult() {
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(result);
+    }
+
+    @Override
+    public DeferredParseResult copy() {
+        return new DeferredParseResult(transformer, result.copy());
+    }
+
+    public static ParseResultTransformer evaluate(ParseResultTransformer parsed) {
+        if (!parsed.isValid()) {
+            return parsed;
+        }
+        try {
+            return new ParseResultTransformer(true, evaluate(parsed.getResult()), null);
+        } catch (ParseResultException e) {
+            return new ParseResultTransformer(false, null, e.getMessage());
+        }
+    }
+
+    // Applies the deferred transformers in result, and returns the
+    // transformed result. Lists without any deferred results in them are
+    // returned as they are rather than rebuilt. The tree is walked with an
+    // explicit stack, since a long parse can be very deep.
+    public static ParseResult evaluate(ParseResult result) throws ParseResultException {
+        Deque<Step> steps = new ArrayDeque<>();
+        steps.push(new Step(result));
+        ParseResult evaluated = null;
+        boolean returning = false;
+        while (true) {
+            Step step = steps.peek();
+            if (returning) {
+                step.evaluated(evaluated);
+            }
+            ParseResult child = step.nextChild();
+            if (child != null) {
+                steps.push(new Step(child));
+                returning = false;
+                continue;
+            }
+            evaluated = step.finish();
+            steps.pop();
+            if (steps.isEmpty()) {
+                return evaluated;
+            }
+            returning = true;
+        }
+    }
+
+    // a result whose children are being evaluated
+    private static final class Step {
+
+        private final ParseResult result;
+        private final List<ParseResult> children;
+        private final List<ParseResult> evaluated;
+        private boolean changed;
+
+        private Step(ParseResult result) {
+            this.result = result;
+            if (result instanceof DeferredParseResult) {
+                children = new ArrayList<>(1);
+                children.add(((DeferredParseResult) result).result);
+            } else if (result instanceof ListParseResult) {
+                children = ((ListParseResult) result).getValue();
+            } else {
+                children = null;
+            }
+            evaluated = children == null ? null : new ArrayList<>(children.size());
+            changed = false;
+        }
+
+        private ParseResult nextChild() {
+            if (children == null || evaluated.size() == children.size()) {
+                return null;
+            }
+            return children.get(evaluated.size());
+        }
+
+        private void evaluated(ParseResult child) {
+            changed |= child != children.get(evaluated.size());
+            evaluated.add(child);
+        }
+
+        private ParseResult finish() throws ParseResultException {
+            if (result instanceof DeferredParseResult) {
+                return ((DeferredParseResult) result).transformer.apply(evaluated.get(0));
+            } else if (changed) {
+                ListParseResult list = new ListParseResult();
+                for (ParseResult child : evaluated) {
+                    list.add(child);
+                }
+                return list;
+            }
+            return result;
+        }
+
+    }
+
+}
@@ -3,43 +3,110 @@ package com.blamedcloud.parsertongue.grammar.result;
 import java.util.ArrayList;
 import java.util.List;
 
+// The elements are kept in a chain of immutable Nodes until something asks
+// for them as a List (getValue, add or extend), when they're copied into an
+// ArrayList that this list then owns. prepend() makes a new list in O(1)
+// that shares the chain of the old one, which is how the expecterators
+// build the results of concatenations and repeats a child at a time
+// without copying what the other children matched.
 public class ListParseResult implements ParseResult {
 
-    List<ParseResult> results;
+    private List<ParseResult> results;
+    private Node first;
+    private int size;
+
+    private static final class Node {
+
+        private final ParseResult value;
+        private final Node next;
+
+        private Node(ParseResult value, Node next) {
+            this.value = value;
+            this.next = next;
+        }
+
+    }
 
     public ListParseResult() {
-        results = new ArrayList<>();
+        this(null, 0);
     }
 
     public ListParseResult(ParseResult first) {
-        results = new ArrayList<>();
-        add(first);
+        this(new Node(first, null), 1);
+    }
+
+    private ListParseResult(Node first, int size) {
+        results = null;
+        this.first = first;
+        this.size = size;
     }
 
     public void add(ParseResult result) {
-        results.add(result);
+        getValue().add(result);
     }
 
     public List<ParseResult> getValue() {
+        if (results == null) {
+            results = new ArrayList<>(Math.max(size, 10));
+            for (Node node = first; node != null; node = node.next) {
+                results.add(node.value);
+            }
+            first = null;
+        }
         return results;
     }
 
+    public int size() {
+        return results == null ? size : results.size();
+    }
+
+    // a new list of result followed by this list's elements, which it
+    // shares rather than copies
+    public ListParseResult prepend(ParseResult result) {
+        return new ListParseResult(new Node(result, chain()), size() + 1);
+    }
+
     public void extend(ListParseResult other) {
-        List<ParseResult> otherResults = other.getValue();
-        for (ParseResult otherResult : otherResults) {
+        for (ParseResult otherResult : other.elements()) {
             add(otherResult.copy());
         }
     }
 
+    // the chain of this list's elements (built anew if they've been
+    // copied into results, which may since have been changed)
+    private Node chain() {
+        if (results == null) {
+            return first;
+        }
+        Node chain = null;
+        for (int i = results.size() - 1; i >= 0; i--) {
+            chain = new Node(results.get(i), chain);
+        }
+        return chain;
+    }
+
+    // the elements, without copying them into results
+    private List<ParseResult> elements() {
+        if (results != null) {
+            return results;
+        }
+        List<ParseResult> elements = new ArrayList<>(size);
+        for (Node node = first; node != null; node = node.next) {
+            elements.add(node.value);
+        }
+        return elements;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("[");
-        for (int i = 0; i < results.size() - 1; i++) {
-            sb.append(results.get(i).toString()).append(", ");
+        List<ParseResult> elements = elements();
+        for (int i = 0; i < elements.size() - 1; i++) {
+            sb.append(elements.get(i).toString()).append(", ");
         }
-        if (results.size() >= 1) {
-            sb.append(results.get(results.size()-1));
+        if (elements.size() >= 1) {
+            sb.append(elements.get(elements.size()-1));
         }
         sb.append("]");
         return sb.toString();
@@ -47,11 +114,12 @@ public class ListParseResult implements ParseResult {
 
     @Override
     public ListParseResult copy() {
-        ListParseResult copyResult = new ListParseResult();
-        for (ParseResult childResult : results) {
-            copyResult.add(childResult.copy());
+        List<ParseResult> elements = elements();
+        Node chain = null;
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            chain = new Node(elements.get(i).copy(), chain);
         }
-        return copyResult;
+        return new ListParseResult(chain, elements.size());
     }
 
     public static ListParseResult wrapInList(ParseResult input) {
@@ -62,7 +130,7 @@ public class ListParseResult implements ParseResult {
         if (input instanceof ListParseResult) {
             ListParseResult result = new ListParseResult();
             ListParseResult inputList = (ListParseResult) input;
-            for (ParseResult innerResult : inputList.getValue()) {
+            for (ParseResult innerResult : inputList.elements()) {
                 result.extend(ListParseResult.flattenList(innerResult));
             }
             return result;
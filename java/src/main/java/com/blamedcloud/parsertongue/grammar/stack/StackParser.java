@@ -0,0 +1,447 @@
+package com.blamedcloud.parsertongue.grammar.stack;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.regex.Matcher;
+
+import com.blamedcloud.parsertongue.grammar.RHSTree;
+import com.blamedcloud.parsertongue.grammar.RHSType;
+import com.blamedcloud.parsertongue.grammar.Rule;
+import com.blamedcloud.parsertongue.grammar.expecterator.ParseContext;
+import com.blamedcloud.parsertongue.grammar.expecterator.ParseResultExpecterator;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
+import com.blamedcloud.parsertongue.tokenizer.TokenText;
+import com.blamedcloud.parsertongue.tokenizer.TokenType;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+
+// The backtracking engine without the nested expecterators: the same
+// depth-first search over the RHSTrees, trying every choice in the same
+// order, but run from a loop with its state on the heap, so the input's
+// length is never limited by the thread's stack.
+//
+// What is left to do once the current node matches is a chain of
+// immutable Frames (the rest of a concatenation, one more repetition, a
+// rule's transformer), and every choice that hasn't been tried yet is a
+// choice point holding the tokenizer position and the Frame chain to go
+// on with. Choice points share their Frames, and are kept in parallel
+// arrays rather than as objects. The lists of concatenations and repeats
+// are kept as linked Cells until something needs them as a
+// ListParseResult (a rule's transformer, or the end of the parse), so a
+// repeat doesn't copy its list every time it grows. (Results are shared
+// between the parses that are tried, and only copied when they're built
+// into the ListParseResult a transformer is given.)
+//
+// LL(1) rules in predictive mode are still parsed by their
+// PredictiveRuleExpecterator (which has its own explicit stack), and
+// left-recursive rules by the PackratMemo, each treated as one choice
+// point that is asked for its next result when it is backtracked into.
+//
+// A concatenation's frames remember how many choice points there were
+// when it started (or when its alternation started, if it's an
+// alternative), and passing its cut drops every choice point since then.
+public class StackParser {
+
+    private static final int ALTERNATION = 0;
+    private static final int OPTIONAL = 1;
+    private static final int REPEAT = 2;
+    private static final int REGEX = 3;
+    private static final int EXPECTERATOR = 4;
+
+    private final Rule startRule;
+    private final ParseContext context;
+    private final Tokenizer tokens;
+
+    // the choice points
+    private int choices;
+    private int[] kinds;
+    private RHSTree[] nodes;
+    private int[] counters;
+    private int[] indices;
+    private boolean[] exhausted;
+    private Frame[] frames;
+    private Cell[] lists;
+    private ParseResultExpecterator[] expecterators;
+
+    public StackParser(Rule startRule, ParseContext context) {
+        this.startRule = startRule;
+        this.context = context;
+        tokens = context.getTokenizer();
+        choices = 0;
+        kinds = new int[16];
+        nodes = new RHSTree[16];
+        counters = new int[16];
+        indices = new int[16];
+        exhausted = new boolean[16];
+        frames = new Frame[16];
+        lists = new Cell[16];
+        expecterators = new ParseResultExpecterator[16];
+    }
+
+    // what to do with the result of the node being matched
+    private static final class Frame {
+
+        // CONCATENATION: child index was matched, REPEAT: one more
+        // repetition (starting at token index) was matched, IDENTIFIER: the
+        // rule's transformer is applied
+        private final RHSType type;
+        private final RHSTree node;
+        private final Rule rule;
+        private final int index;
+        private final Cell list;
+        private final Frame parent;
+        private final int mark;
+
+        private Frame(RHSType type, RHSTree node, Rule rule, int index, Cell list, Frame parent) {
+            this(type, node, rule, index, list, parent, 0);
+        }
+
+        private Frame(RHSType type, RHSTree node, Rule rule, int index, Cell list, Frame parent, int mark) {
+            this.type = type;
+            this.node = node;
+            this.rule = rule;
+            this.index = index;
+            this.list = list;
+            this.parent = parent;
+            this.mark = mark;
+        }
+
+    }
+
+    // a list of results, last first (null is the empty list)
+    private static final class Cell {
+
+        private final Object head;
+        private final Cell tail;
+        private final int size;
+
+        private Cell(Object head, Cell tail) {
+            this.head = head;
+            this.tail = tail;
+            size = tail == null ? 1 : tail.size + 1;
+        }
+
+    }
+
+    // a matched concatenation or repeat, whose ListParseResult isn't built yet
+    private static final class Pending {
+
+        private final Cell list;
+
+        private Pending(Cell list) {
+            this.list = list;
+        }
+
+    }
+
+    public ParseResultTransformer parse() {
+        ParseResultTransformer last = null;
+
+        // each turn of the loop either starts matching node (call), hands
+        // result on to frame (!call), or backtracks (failed)
+        boolean call = true;
+        boolean failed = false;
+        RHSTree node = null;
+        Rule rule = startRule;
+        Frame frame = null;
+        Object result = null;
+        // the choice points before the alternation node is an alternative of
+        // (through groups), or -1
+        int alternationMark = -1;
+
+        while (true) {
+            if (failed) {
+                if (choices == 0) {
+                    break;
+                }
+                failed = false;
+                int top = --choices;
+                tokens.setIndex(indices[top], exhausted[top]);
+                frame = frames[top];
+                int kind = kinds[top];
+                if (kind == ALTERNATION) {
+                    node = nodes[top];
+                    int childIndex = counters[top];
+                    pushAlternation(node, nextViableChild(node, childIndex + 1), frame);
+                    node = node.getChild(childIndex);
+                    alternationMark = top;
+                    call = true;
+                } else if (kind == OPTIONAL) {
+                    node = nodes[top].getChild();
+                    call = true;
+                } else if (kind == REPEAT) {
+                    node = nodes[top];
+                    frame = new Frame(RHSType.REPEAT, node, null, indices[top], lists[top], frame);
+                    node = node.getChild();
+                    call = true;
+                } else if (kind == REGEX) {
+                    node = nodes[top];
+                    result = matchRegex(node, counters[top], frame);
+                    failed = result == null;
+                    call = false;
+                } else {
+                    result = nextResult(expecterators[top], frame);
+                    failed = result == null;
+                    call = false;
+                }
+                clear(top);
+                continue;
+            }
+
+            if (call) {
+                int mark = alternationMark;
+                alternationMark = -1;
+                if (rule != null) {
+                    if (context.isPredictive(rule) || (context.hasMemo() && rule.isLeftRecursive())) {
+                        result = nextResult(rule.getExpecterator(context), frame);
+                        failed = result == null;
+                        call = false;
+                    } else {
+                        frame = new Frame(RHSType.IDENTIFIER, null, rule, 0, null, frame);
+                        node = rule.rhs();
+                    }
+                    rule = null;
+                    continue;
+                }
+
+                RHSType type = node.getType();
+                call = false;
+                if (type == RHSType.TERMINAL) {
+                    String value = node.getNode().getValue();
+                    if (value.length() == 0) {
+                        result = new StringParseResult("");
+                    } else if (node.acceptTerminal(tokens)) {
+                        result = new StringParseResult(value);
+                    } else {
+                        failed = true;
+                    }
+                } else if (type == RHSType.REGEX) {
+                    result = matchRegex(node, 1, frame);
+                    failed = result == null;
+                } else if (type == RHSType.IDENTIFIER) {
+                    rule = node.getLink();
+                    call = true;
+                } else if (type == RHSType.GROUP) {
+                    node = node.getChild();
+                    alternationMark = mark;
+                    call = true;
+                } else if (type == RHSType.OPTIONAL) {
+                    if (node.getChild().canStart(tokens)) {
+                        push(OPTIONAL, node, 0, frame, null, null);
+                    }
+                    result = new StringParseResult("");
+                } else if (type == RHSType.ALTERNATION) {
+                    int childIndex = nextViableChild(node, 0);
+                    if (childIndex < node.size()) {
+                        alternationMark = choices;
+                        pushAlternation(node, nextViableChild(node, childIndex + 1), frame);
+                        node = node.getChild(childIndex);
+                        call = true;
+                    } else {
+                        failed = true;
+                    }
+                } else if (type == RHSType.REPEAT) {
+                    result = repeat(node, null, frame);
+                } else {
+                    if (mark < 0) {
+                        mark = choices;
+                    }
+                    if (node.getCutIndex() == 0) {
+                        cut(mark);
+                    }
+                    frame = new Frame(RHSType.CONCATENATION, node, null, 0, null, frame, mark);
+                    node = node.getChild(0);
+                    call = true;
+                }
+                continue;
+            }
+
+            // a match, which the frame decides what to do with
+            if (frame == null) {
+                ParseResultTransformer parsed = (ParseResultTransformer) result;
+                if (parsed.isValid() && (tokens.isEmpty() || tokens.isExhausted())) {
+                    parsed = context.accept(parsed);
+                }
+                if (!parsed.isValid() || tokens.isEmpty() || tokens.isExhausted()) {
+                    if (parsed.isValid()) {
+                        return parsed;
+                    }
+                    last = parsed;
+                } else {
+                    last = null;
+                }
+                failed = true;
+            } else if (frame.type == RHSType.CONCATENATION) {
+                Cell list = new Cell(result, frame.list);
+                int childIndex = frame.index + 1;
+                if (childIndex == frame.node.getCutIndex()) {
+                    cut(frame.mark);
+                }
+                if (childIndex == frame.node.size()) {
+                    result = new Pending(list);
+                    frame = frame.parent;
+                } else {
+                    node = frame.node.getChild(childIndex);
+                    frame = new Frame(RHSType.CONCATENATION, frame.node, null, childIndex, list, frame.parent, frame.mark);
+                    call = true;
+                }
+            } else if (frame.type == RHSType.REPEAT) {
+                Cell list = new Cell(result, frame.list);
+                // (a repetition that matched nothing would repeat forever)
+                if (tokens.isExhausted() || tokens.getIndex() == frame.index) {
+                    result = new Pending(list);
+                    frame = frame.parent;
+                } else {
+                    result = repeat(frame.node, list, frame.parent);
+                    frame = frame.parent;
+                }
+            } else {
+                ParseResultTransformer transformed = context.transform(frame.rule, new ParseResultTransformer(true, build(result), null));
+                frame = frame.parent;
+                if (frame == null) {
+                    result = transformed;
+                } else if (transformed.isValid()) {
+                    result = transformed.getResult();
+                } else {
+                    failed = true;
+                }
+            }
+        }
+
+        if (last != null) {
+            return last;
+        }
+        return new ParseResultTransformer(false, null, "Tokens not Exhausted");
+    }
+
+    // the shortest match of a repeat that already has list is list itself,
+    // more repetitions are left as a choice point
+    private Pending repeat(RHSTree node, Cell list, Frame frame) {
+        if (node.getChild().canStart(tokens)) {
+            push(REPEAT, node, 0, frame, list, null);
+        }
+        return new Pending(list);
+    }
+
+    // tries merging count tokens, leaving count + 1 as a choice point
+    // unless no longer merge could match (like RegexExpecterator, the
+    // empty string is only tried once the tokens run out)
+    private Object matchRegex(RHSTree node, int count, Frame frame) {
+        TokenType regex = node.getRegexNode();
+        tokens.skipIgnored();
+        if (tokens.isExhausted() || tokens.isEmpty()) {
+            return regex.isTypeOf("") ? new StringParseResult("") : null;
+        }
+        int startIndex = tokens.getIndex();
+        TokenText text = tokens.textFrom(startIndex);
+        for (int i = 0; i < count; i++) {
+            text.addToken();
+        }
+        tokens.setIndex(startIndex + count - 1, false);
+        tokens.nextToken();
+        Matcher matcher = regex.getPattern().matcher(text);
+        boolean matched = matcher.matches();
+        if (!tokens.isExhausted() && (matched || matcher.hitEnd())) {
+            int endIndex = tokens.getIndex();
+            tokens.setIndex(startIndex, false);
+            push(REGEX, node, count + 1, frame, null, null);
+            tokens.setIndex(endIndex, false);
+        }
+        return matched ? new StringParseResult(text.toString()) : null;
+    }
+
+    // the next valid result of an expecterator, leaving it as a choice
+    // point in case it has more
+    private Object nextResult(ParseResultExpecterator expecterator, Frame frame) {
+        while (expecterator.hasNext()) {
+            expecterator.reset();
+            Optional<ParseResultTransformer> optionalResult = expecterator.tryNext();
+            if (optionalResult.isPresent() && optionalResult.get().isValid()) {
+                int endIndex = tokens.getIndex();
+                boolean endExhausted = tokens.isExhausted();
+                expecterator.reset();
+                push(EXPECTERATOR, null, 0, frame, null, expecterator);
+                tokens.setIndex(endIndex, endExhausted);
+                ParseResult result = optionalResult.get().getResult();
+                return frame == null ? optionalResult.get() : result;
+            }
+        }
+        return null;
+    }
+
+    private int nextViableChild(RHSTree node, int index) {
+        while (index < node.size() && !node.getChild(index).canStart(tokens)) {
+            index++;
+        }
+        return index;
+    }
+
+    private void pushAlternation(RHSTree node, int childIndex, Frame frame) {
+        if (childIndex < node.size()) {
+            push(ALTERNATION, node, childIndex, frame, null, null);
+        }
+    }
+
+    // a choice point at the current position
+    private void push(int kind, RHSTree node, int counter, Frame frame, Cell list, ParseResultExpecterator expecterator) {
+        if (choices == kinds.length) {
+            int capacity = choices * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            nodes = Arrays.copyOf(nodes, capacity);
+            counters = Arrays.copyOf(counters, capacity);
+            indices = Arrays.copyOf(indices, capacity);
+            exhausted = Arrays.copyOf(exhausted, capacity);
+            frames = Arrays.copyOf(frames, capacity);
+            lists = Arrays.copyOf(lists, capacity);
+            expecterators = Arrays.copyOf(expecterators, capacity);
+        }
+        kinds[choices] = kind;
+        nodes[choices] = node;
+        counters[choices] = counter;
+        indices[choices] = tokens.getIndex();
+        exhausted[choices] = tokens.isExhausted();
+        frames[choices] = frame;
+        lists[choices] = list;
+        expecterators[choices] = expecterator;
+        choices++;
+    }
+
+    // drops every choice point since mark
+    private void cut(int mark) {
+        while (choices > mark) {
+            clear(--choices);
+        }
+    }
+
+    // so that popped choice points don't keep their results alive
+    private void clear(int top) {
+        if (top == choices) {
+            nodes[top] = null;
+            frames[top] = null;
+            lists[top] = null;
+            expecterators[top] = null;
+        }
+    }
+
+    // turns Pending lists into ListParseResults, copying the results in
+    // them (which other parses share) so that a transformer can change them
+    private static ParseResult build(Object result) {
+        if (!(result instanceof Pending)) {
+            return ((ParseResult) result).copy();
+        }
+        Cell list = ((Pending) result).list;
+        ParseResult[] elements = new ParseResult[list == null ? 0 : list.size];
+        for (int i = elements.length - 1; i >= 0; i--) {
+            elements[i] = build(list.head);
+            list = list.tail;
+        }
+        ListParseResult listResult = new ListParseResult();
+        for (ParseResult element : elements) {
+            listResult.add(element);
+        }
+        return listResult;
+    }
+
+}
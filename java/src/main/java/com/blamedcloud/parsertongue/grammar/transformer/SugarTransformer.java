@@ -143,6 +143,9 @@ public class SugarTransformer implements GrammarTransformer {
             for (RHSTree child : tree.getChildren()) {
                 newTree.addChild(createDeSugaredRHS(parent, child));
             }
+            if (tree.hasCut()) {
+                newTree.setCutIndex(tree.getCutIndex());
+            }
         } else { // tree.getKind == RHSKind.SINGLE
             newTree = new RHSTree(RHSType.IDENTIFIER);
             Token ruleLHS = addNewRule(parent, tree);
@@ -0,0 +1,108 @@
+package com.blamedcloud.parsertongue.parser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+
+// The results of Parser::parseAll, in the order of the inputs, along
+// with the timing of the batch: elapsed wall-clock time (and so the
+// throughput), and the latency of each individual parse.
+public class BatchResult {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final List<ParseResultTransformer> results;
+    private final long[] sortedLatencies;
+    private final long elapsedNanos;
+    private final int validCount;
+
+    public BatchResult(List<ParseResultTransformer> results, long[] latencyNanos, long elapsedNanos) {
+        if (results.size() != latencyNanos.length) {
+            throw new RuntimeException("Need exactly one latency per result");
+        }
+        this.results = Collections.unmodifiableList(results);
+        sortedLatencies = latencyNanos.clone();
+        Arrays.sort(sortedLatencies);
+        this.elapsedNanos = elapsedNanos;
+        int valid = 0;
+        for (ParseResultTransformer result : results) {
+            if (result.isValid()) {
+                valid++;
+            }
+        }
+        validCount = valid;
+    }
+
+    public List<ParseResultTransformer> getResults() {
+        return results;
+    }
+
+    public ParseResultTransformer get(int index) {
+        return results.get(index);
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    public int getValidCount() {
+        return validCount;
+    }
+
+    public boolean allValid() {
+        return validCount == results.size();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // parses per second of wall-clock time
+    public double getThroughput() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return results.size() * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    public long getMinLatencyNanos() {
+        return getLatencyPercentileNanos(0);
+    }
+
+    public long getMaxLatencyNanos() {
+        return getLatencyPercentileNanos(100);
+    }
+
+    public double getMeanLatencyNanos() {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        double total = 0;
+        for (long latency : sortedLatencies) {
+            total += latency;
+        }
+        return total / sortedLatencies.length;
+    }
+
+    // nearest-rank percentile, for 0 <= percentile <= 100
+    public long getLatencyPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new RuntimeException("Percentile must be between 0 and 100, got: " + percentile);
+        }
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        return sortedLatencies[Math.max(rank - 1, 0)];
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult(size=" + size() + ", valid=" + validCount + ", elapsedNanos=" + elapsedNanos
+             + ", throughput=" + getThroughput() + "/s, p50=" + getLatencyPercentileNanos(50)
+             + "ns, p99=" + getLatencyPercentileNanos(99) + "ns, max=" + getMaxLatencyNanos() + "ns)";
+    }
+
+}
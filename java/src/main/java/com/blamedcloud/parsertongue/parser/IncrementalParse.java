@@ -0,0 +1,91 @@
+package com.blamedcloud.parsertongue.parser;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.TokenEdit;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerException;
+
+// The parse of a text that's being edited, made by
+// Parser::parseIncrementally. Each edit retokenizes only around the
+// change (see Tokenizer::edit), and the text is parsed again reusing
+// the memo of the last parse for everything that didn't look at the
+// tokens that changed (see Grammar::reparse). If an edit leaves text
+// that can't be tokenized, the next one tokenizes the whole text again.
+// Not thread-safe.
+public class IncrementalParse {
+
+    private final Grammar grammar;
+    private final Tokenizer tokens;
+    private final PackratMemo memo;
+    private CharSequence text;
+    private boolean tokenized;
+    private ParseResultTransformer result;
+
+    IncrementalParse(Grammar grammar, Tokenizer tokens, CharSequence text) {
+        this.grammar = grammar;
+        this.tokens = tokens;
+        memo = new PackratMemo();
+        this.text = text;
+        tokenized = false;
+        parseAll();
+    }
+
+    public ParseResultTransformer getResult() {
+        return result;
+    }
+
+    public CharSequence getText() {
+        return text;
+    }
+
+    // the memo of the last parse, e.g. for its hits and misses
+    public PackratMemo getMemo() {
+        return memo;
+    }
+
+    // replaces text[offset, offset + deletedLength) with inserted, and
+    // returns the new parse
+    public ParseResultTransformer edit(int offset, int deletedLength, String inserted) {
+        if (!tokenized) {
+            text = splice(text, offset, deletedLength, inserted);
+            parseAll();
+            return result;
+        }
+        TokenEdit edit;
+        try {
+            edit = tokens.edit(offset, deletedLength, inserted);
+        } catch (TokenizerException e) {
+            text = splice(text, offset, deletedLength, inserted);
+            tokenized = false;
+            result = new ParseResultTransformer(false, null, e.getMessage());
+            return result;
+        }
+        text = tokens.getSource();
+        memo.edit(edit);
+        result = grammar.reparse(tokens, memo);
+        return result;
+    }
+
+    private void parseAll() {
+        memo.clear();
+        try {
+            tokens.tokenizeForEditing(text);
+        } catch (TokenizerException e) {
+            result = new ParseResultTransformer(false, null, e.getMessage());
+            return;
+        }
+        tokenized = true;
+        result = grammar.reparse(tokens, memo);
+    }
+
+    private static CharSequence splice(CharSequence text, int offset, int deletedLength, String inserted) {
+        if (offset < 0 || deletedLength < 0 || offset + deletedLength > text.length()) {
+            throw new RuntimeException("Edit out of bounds: " + offset + ", " + deletedLength + " of " + text.length());
+        }
+        StringBuilder sb = new StringBuilder(text.length() - deletedLength + inserted.length());
+        return sb.append(text, 0, offset).append(inserted).append(text, offset + deletedLength, text.length()).toString();
+    }
+
+}
@@ -2,20 +2,41 @@ package com.blamedcloud.parsertongue.parser;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.blamedcloud.parsertongue.grammar.CompiledGrammar;
 import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.grammar.ParseEngine;
 import com.blamedcloud.parsertongue.grammar.annotations.AnnotationManager;
 import com.blamedcloud.parsertongue.grammar.dependencies.DependencyManager;
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultFunction;
 import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.ScannerlessTokenizer;
+import com.blamedcloud.parsertongue.tokenizer.StreamingTokenizer;
 import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 import com.blamedcloud.parsertongue.tokenizer.TokenizerException;
 import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+import com.blamedcloud.parsertongue.utility.MappedFiles;
 
 public class Parser {
 
@@ -23,6 +44,7 @@ public class Parser {
     private Set<String> alphabet;
     private TokenizerTypeList ttl;
     private boolean ignoreWhiteSpaceDefault;
+    private ExecutorService batchExecutor;
 
     public static Builder newBuilder(File grammarFile) {
         return new Builder(grammarFile);
@@ -35,6 +57,11 @@ public class Parser {
         private List<File> dependentGrammarFiles;
         private boolean ignoreWhiteSpaceDefault;
         private AnnotationManager annotationManager;
+        private ExecutorService batchExecutor;
+        private ParseEngine engine;
+        private boolean deferredTransforms;
+        private boolean greedyRepeats;
+        private boolean scannerless;
 
         public Builder(File grammarFile) {
             this.grammarFile = grammarFile;
@@ -42,6 +69,11 @@ public class Parser {
             dependentGrammarFiles = null;
             ignoreWhiteSpaceDefault = false;
             annotationManager = null;
+            batchExecutor = null;
+            engine = null;
+            deferredTransforms = false;
+            greedyRepeats = false;
+            scannerless = false;
         }
 
         public Builder setStartSymbol(String startSymbol) {
@@ -64,6 +96,35 @@ public class Parser {
             return this;
         }
 
+        public Builder setBatchExecutor(ExecutorService executor) {
+            batchExecutor = executor;
+            return this;
+        }
+
+        // see Grammar::setEngine
+        public Builder setEngine(ParseEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        // see Grammar::setDeferredTransforms
+        public Builder setDeferredTransforms(boolean deferred) {
+            deferredTransforms = deferred;
+            return this;
+        }
+
+        // see Grammar::setGreedyRepeats
+        public Builder setGreedyRepeats(boolean greedy) {
+            greedyRepeats = greedy;
+            return this;
+        }
+
+        // see Grammar::setScannerless
+        public Builder setScannerless(boolean scannerless) {
+            this.scannerless = scannerless;
+            return this;
+        }
+
         public Parser build() {
             return new Parser(this);
         }
@@ -74,6 +135,7 @@ public class Parser {
         alphabet = new HashSet<>();
         ttl = null;
         ignoreWhiteSpaceDefault = builder.ignoreWhiteSpaceDefault;
+        batchExecutor = builder.batchExecutor;
         Grammar.Builder grammarBuilder = Grammar.newBuilder(builder.grammarFile).setDeferLinkage(true);
         if (builder.startSymbol != null) {
             grammarBuilder.setStartSymbol(builder.startSymbol);
@@ -96,6 +158,12 @@ public class Parser {
         if (!grammar.hasLinked()) {
             throw new RuntimeException("Grammar was never linked");
         }
+        if (builder.engine != null) {
+            grammar.setEngine(builder.engine);
+        }
+        grammar.setDeferredTransforms(builder.deferredTransforms);
+        grammar.setGreedyRepeats(builder.greedyRepeats);
+        grammar.setScannerless(builder.scannerless);
         setGrammarAlphabet();
     }
 
@@ -119,6 +187,10 @@ public class Parser {
         this.ttl = ttl;
     }
 
+    public TokenizerTypeList getTTL() {
+        return ttl;
+    }
+
     public void setRuleTransform(String ruleName, ParseResultFunction f) {
         grammar.setRuleTransformer(ruleName, f);
     }
@@ -131,6 +203,12 @@ public class Parser {
         return grammar;
     }
 
+    // a thread-safe snapshot of this parser's current grammar, transformers,
+    // TokenizerTypeList, and white space default.
+    public CompiledGrammar compile() {
+        return grammar.compile(ttl, ignoreWhiteSpaceDefault);
+    }
+
     public void setIgnoreWSDefault(boolean ignoreWS) {
         ignoreWhiteSpaceDefault = ignoreWS;
     }
@@ -143,14 +221,21 @@ public class Parser {
         return parseFile(parseFile, ignoreWhiteSpaceDefault);
     }
 
+    // A file too large to read into a String is an error: streaming
+    // parses accept less (see Grammar::tryParseStreaming), so they have
+    // to be asked for with parse(Path).
     public ParseResultTransformer parseFile(File parseFile, boolean ignoreWhiteSpace) {
+        Path path = parseFile.toPath();
         String parseString;
         try {
-            parseString = Files.readString(parseFile.toPath());
+            if (Files.size(path) > Integer.MAX_VALUE) {
+                throw new RuntimeException("Parse file is too large to read at once, use Parser::parse(Path) to stream it");
+            }
+            parseString = Files.readString(path);
         } catch (IOException e) {
             throw new RuntimeException("Unable to read parse file");
         }
-        return parseString(parseString, ignoreWhiteSpace);
+        return parseText(parseString, ignoreWhiteSpace, null);
     }
 
     public ParseResultTransformer parseString(String parseString) {
@@ -158,13 +243,182 @@ public class Parser {
     }
 
     public ParseResultTransformer parseString(String parseString, boolean ingoreWhiteSpace) {
-        Tokenizer tokens = new Tokenizer(ttl, ingoreWhiteSpace);
+        return parseString(parseString, ingoreWhiteSpace, null);
+    }
+
+    public ParseResultTransformer parseString(String parseString, PackratMemo memo) {
+        return parseString(parseString, ignoreWhiteSpaceDefault, memo);
+    }
+
+    public ParseResultTransformer parseString(String parseString, boolean ingoreWhiteSpace, PackratMemo memo) {
+        return parseText(parseString, ingoreWhiteSpace, memo);
+    }
+
+    private ParseResultTransformer parseText(CharSequence parseText, boolean ingoreWhiteSpace, PackratMemo memo) {
+        Tokenizer tokens = grammar.getScannerless() ? new ScannerlessTokenizer(ingoreWhiteSpace) : new Tokenizer(ttl, ingoreWhiteSpace);
         try {
-            tokens.tokenize(parseString);
+            tokens.tokenize(parseText);
         } catch (TokenizerException e) {
             return new ParseResultTransformer(false, null, e.getMessage());
         }
-        return grammar.tryParse(tokens);
+        if (memo == null) {
+            return grammar.tryParse(tokens);
+        } else {
+            return grammar.tryParse(tokens, memo);
+        }
+    }
+
+    // A parse that can then be edited and parsed again, reusing what
+    // the edit didn't change (see IncrementalParse).
+    public IncrementalParse parseIncrementally(String parseString) {
+        return parseIncrementally(parseString, ignoreWhiteSpaceDefault);
+    }
+
+    public IncrementalParse parseIncrementally(String parseString, boolean ignoreWhiteSpace) {
+        if (grammar.getScannerless()) {
+            throw new RuntimeException("Scannerless grammars can't be parsed incrementally");
+        }
+        return new IncrementalParse(grammar, new Tokenizer(ttl, ignoreWhiteSpace), parseString);
+    }
+
+    // Streaming parses: tokens are read lazily from the input, and when
+    // the start rule is a repeat, each element is committed to once it
+    // parses so that only the tokens of the current element are kept
+    // (see Grammar::tryParseStreaming).
+    public ParseResultTransformer parse(Reader reader) {
+        return parse(reader, ignoreWhiteSpaceDefault, null);
+    }
+
+    public ParseResultTransformer parse(Reader reader, Consumer<ParseResult> elementConsumer) {
+        return parse(reader, ignoreWhiteSpaceDefault, elementConsumer);
+    }
+
+    public ParseResultTransformer parse(Reader reader, boolean ignoreWhiteSpace, Consumer<ParseResult> elementConsumer) {
+        StreamingTokenizer tokens = new StreamingTokenizer(reader, ttl, ignoreWhiteSpace);
+        ParseResultTransformer result;
+        try {
+            result = grammar.tryParseStreaming(tokens, elementConsumer);
+        } catch (UncheckedIOException e) {
+            throw new RuntimeException("Unable to read parse input");
+        }
+        if (tokens.hasError()) {
+            return new ParseResultTransformer(false, null, tokens.getError());
+        }
+        return result;
+    }
+
+    public ParseResultTransformer parse(Path path) {
+        return parse(path, null);
+    }
+
+    // read through mapped windows, so there's no limit on the file's size
+    public ParseResultTransformer parse(Path path, Consumer<ParseResult> elementConsumer) {
+        Reader reader;
+        try {
+            reader = MappedFiles.newReader(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read parse file");
+        }
+        return parse(reader, elementConsumer);
+    }
+
+    // validation only, so no results are kept at all
+    public boolean check(Reader reader) {
+        return parse(reader, r -> {}).isValid();
+    }
+
+    public boolean check(Path path) {
+        return parse(path, r -> {}).isValid();
+    }
+
+    // the executor that parseAll runs on. If it is null (the default), each
+    // batch runs on its own virtual thread per task executor (or, before
+    // Java 21, a thread pool with one thread per processor).
+    public void setBatchExecutor(ExecutorService executor) {
+        batchExecutor = executor;
+    }
+
+    public ExecutorService getBatchExecutor() {
+        return batchExecutor;
+    }
+
+    // Batch parses: every input is parsed concurrently against one
+    // CompiledGrammar snapshot of this parser, so changes made to the
+    // parser while a batch runs don't affect it. The results are in the
+    // same order as the inputs.
+    public BatchResult parseAll(Collection<String> parseStrings) {
+        return parseAll(parseStrings, ignoreWhiteSpaceDefault);
+    }
+
+    public BatchResult parseAll(Collection<String> parseStrings, boolean ignoreWhiteSpace) {
+        return parseAll(new ArrayList<>(parseStrings), (compiled, parseString) -> compiled.parseString(parseString, ignoreWhiteSpace));
+    }
+
+    public BatchResult parseAll(Stream<Path> paths) {
+        return parseAll(paths, ignoreWhiteSpaceDefault);
+    }
+
+    public BatchResult parseAll(Stream<Path> paths, boolean ignoreWhiteSpace) {
+        return parseAll(paths.collect(Collectors.toList()), (compiled, path) -> compiled.parseFile(path.toFile(), ignoreWhiteSpace));
+    }
+
+    private <T> BatchResult parseAll(List<T> inputs, BiFunction<CompiledGrammar, T, ParseResultTransformer> parseFunction) {
+        CompiledGrammar compiled = compile();
+        ExecutorService executor = batchExecutor;
+        boolean ownExecutor = (executor == null);
+        if (ownExecutor) {
+            executor = newDefaultBatchExecutor();
+        }
+
+        long[] latencies = new long[inputs.size()];
+        List<Future<ParseResultTransformer>> futures = new ArrayList<>(inputs.size());
+        long batchStart = System.nanoTime();
+        try {
+            for (int i = 0; i < inputs.size(); i++) {
+                int index = i;
+                T input = inputs.get(i);
+                futures.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    ParseResultTransformer result = parseFunction.apply(compiled, input);
+                    latencies[index] = System.nanoTime() - start;
+                    return result;
+                }));
+            }
+
+            List<ParseResultTransformer> results = new ArrayList<>(inputs.size());
+            for (Future<ParseResultTransformer> future : futures) {
+                results.add(getBatchResult(future));
+            }
+            return new BatchResult(results, latencies, System.nanoTime() - batchStart);
+        } finally {
+            if (ownExecutor) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static ParseResultTransformer getBatchResult(Future<ParseResultTransformer> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during batch parse");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // virtual threads are only available from Java 21
+    private static ExecutorService newDefaultBatchExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
     }
 
     public boolean checkFile(File parseFile) {
@@ -0,0 +1,142 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A TokenizerTypeList compiled for fast matching. Every ExactToken
+// goes into a trie, so finding the first (by list order) exact token
+// that starts at an offset costs one walk down the trie no matter how
+// many exact tokens there are. Any other TokenType still has to be
+// tried with its Pattern, but only those that come before the best
+// exact match in the list need to be tried at all.
+//
+// Each distinct ExactToken expression also gets an id, so a token of an
+// exact type can be compared to a terminal by id rather than by its text.
+public class CompiledTokenizerTypeList {
+
+    private final TokenizerTypeList typeList;
+    private final TrieNode root;
+    private final int[] patternTypeIndices;
+    private final int[] exactIds;
+    private final Map<String, Integer> exactIdLookup;
+    private int maxExactLength;
+
+    public CompiledTokenizerTypeList(TokenizerTypeList ttl) {
+        typeList = ttl;
+        root = new TrieNode();
+        maxExactLength = 0;
+        exactIds = new int[ttl.size()];
+        exactIdLookup = new HashMap<>();
+        List<Integer> patternIndices = new ArrayList<>();
+        for (int i = 0; i < ttl.size(); i++) {
+            TokenType tt = ttl.get(i);
+            if (tt instanceof ExactToken) {
+                addExact(tt.getExpression(), i);
+                exactIds[i] = exactIdLookup.computeIfAbsent(tt.getExpression(), k -> exactIdLookup.size());
+            } else {
+                patternIndices.add(i);
+                exactIds[i] = -1;
+            }
+        }
+        patternTypeIndices = patternIndices.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void addExact(String expression, int typeIndex) {
+        // the empty string never produces a token
+        if (expression.length() == 0) {
+            return;
+        }
+        maxExactLength = Math.max(maxExactLength, expression.length());
+        TrieNode node = root;
+        node.updateSubtreeMin(typeIndex);
+        for (int i = 0; i < expression.length(); i++) {
+            node = node.getOrCreateChild(expression.charAt(i));
+            node.updateSubtreeMin(typeIndex);
+        }
+        if (node.typeIndex == -1 || typeIndex < node.typeIndex) {
+            node.typeIndex = typeIndex;
+        }
+    }
+
+    public TokenizerTypeList getTypeList() {
+        return typeList;
+    }
+
+    public int getMaxExactLength() {
+        return maxExactLength;
+    }
+
+    // indices (in list order) of the TokenTypes that are not ExactTokens
+    public int[] getPatternTypeIndices() {
+        return patternTypeIndices;
+    }
+
+    // the id of the expression of the type at typeIndex, or -1 if it
+    // isn't an ExactToken
+    public int getExactId(int typeIndex) {
+        return exactIds[typeIndex];
+    }
+
+    // the id of an ExactToken whose expression is value, or -1 if there
+    // isn't one (so no token of an exact type can have that value)
+    public int getExactId(String value) {
+        Integer id = exactIdLookup.get(value);
+        return id == null ? -1 : id;
+    }
+
+    // returns the lowest type index of an ExactToken whose expression
+    // appears in text at offset (without passing end), or -1 if none does.
+    public int firstExactMatch(CharSequence text, int offset, int end) {
+        int best = -1;
+        TrieNode node = root;
+        int i = offset;
+        while (i < end) {
+            node = node.getChild(text.charAt(i));
+            if (node == null || (best != -1 && node.subtreeMin > best)) {
+                break;
+            }
+            if (node.typeIndex != -1 && (best == -1 || node.typeIndex < best)) {
+                best = node.typeIndex;
+            }
+            i++;
+        }
+        return best;
+    }
+
+    private static class TrieNode {
+
+        private Map<Character, TrieNode> children;
+        private int typeIndex;
+        private int subtreeMin;
+
+        TrieNode() {
+            children = null;
+            typeIndex = -1;
+            subtreeMin = Integer.MAX_VALUE;
+        }
+
+        TrieNode getChild(char c) {
+            if (children == null) {
+                return null;
+            }
+            return children.get(c);
+        }
+
+        TrieNode getOrCreateChild(char c) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(c, k -> new TrieNode());
+        }
+
+        void updateSubtreeMin(int index) {
+            if (index < subtreeMin) {
+                subtreeMin = index;
+            }
+        }
+
+    }
+
+}
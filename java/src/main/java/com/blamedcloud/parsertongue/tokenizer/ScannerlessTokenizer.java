@@ -0,0 +1,130 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+// A Tokenizer that doesn't tokenize: each character of the text is a
+// token, and its index is a character offset, so nothing is read ahead
+// of the parse and nothing but the text is kept. Terminals are matched
+// against the text at the offset by acceptText(), which moves past all
+// of their characters at once, and regexes are matched against it in
+// place through textFrom() (its TokenText always reads the text
+// directly). With white space ignored, skipIgnored() moves past any
+// before a terminal or regex, and white space at the end of the text is
+// left out of it altogether, so a parse can still exhaust the tokens.
+public class ScannerlessTokenizer extends Tokenizer {
+
+    private static final TokenType CHARACTER = new RegexToken("Character", "(?s).");
+
+    private CharSequence text;
+    private int length;
+
+    public ScannerlessTokenizer(boolean ignoreWS) {
+        super(new TokenizerTypeList(), ignoreWS);
+        text = "";
+        length = 0;
+    }
+
+    @Override
+    public void tokenize(CharSequence rawText) {
+        text = rawText;
+        length = rawText.length();
+        if (getIgnoreWhiteSpace()) {
+            while (length > 0 && isWhiteSpace(rawText.charAt(length - 1))) {
+                length--;
+            }
+        }
+        setIndex(0, false);
+    }
+
+    // the same characters as the \s the other tokenizers skip
+    private static boolean isWhiteSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Moves past any white space at the current offset, if it's ignored.
+    // (The text never ends in white space then, so this can't exhaust it.)
+    @Override
+    public void skipIgnored() {
+        if (!getIgnoreWhiteSpace() || isExhausted() || isEmpty()) {
+            return;
+        }
+        int offset = getIndex();
+        while (isWhiteSpace(text.charAt(offset))) {
+            offset++;
+        }
+        setIndex(offset, false);
+    }
+
+    // Moves past value if the text at the current offset starts with it,
+    // returning whether it did.
+    public boolean acceptText(String value) {
+        int offset = isExhausted() ? length : getIndex();
+        int end = offset + value.length();
+        if (end > length) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (text.charAt(offset + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        if (end == length) {
+            setIndex(length - 1, true);
+        } else {
+            setIndex(end, false);
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    protected boolean hasTokenAt(int i) {
+        return i < length;
+    }
+
+    @Override
+    protected Token tokenAt(int i) {
+        if (i >= length) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + length);
+        }
+        return Token.matched(CHARACTER, text, i, i + 1);
+    }
+
+    @Override
+    public boolean currentValueEquals(String value) {
+        return value.length() == 1 && !isEmpty() && text.charAt(getIndex()) == value.charAt(0);
+    }
+
+    @Override
+    public CharSequence getSource() {
+        return text;
+    }
+
+    @Override
+    boolean isSourceSpan(int i) {
+        return i < length;
+    }
+
+    @Override
+    int spanStart(int i) {
+        return i;
+    }
+
+    @Override
+    int spanEnd(int i) {
+        return i + 1;
+    }
+
+    @Override
+    int valueLength(int i) {
+        return 1;
+    }
+
+    @Override
+    char valueCharAt(int i, int offset) {
+        return text.charAt(i + offset);
+    }
+
+}
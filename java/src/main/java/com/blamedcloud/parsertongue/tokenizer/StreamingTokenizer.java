@@ -0,0 +1,198 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// A Tokenizer that reads its text from a Reader and only tokenizes as
+// far as the parse has asked for. The text is kept in a sliding buffer
+// that only needs to hold the token currently being matched, and tokens
+// are kept from the last commit() onward, so memory stays bounded by how
+// far the parse can backtrack rather than by the size of the input.
+// Token indices are absolute, so expecterators can use them as usual.
+public class StreamingTokenizer extends Tokenizer {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private Reader reader;
+    private final char[] chunk;
+    private final StringBuilder buffer;
+    private int scanOffset;
+    private boolean endOfInput;
+    private TokenMatcher matcher;
+    private String error;
+
+    private List<Token> window;
+    private int windowStart;
+    private int committedIndex;
+
+    public StreamingTokenizer(Reader reader, TokenizerTypeList ttl, boolean ignoreWS) {
+        this(reader, ttl, ignoreWS, DEFAULT_CHUNK_SIZE);
+    }
+
+    public StreamingTokenizer(Reader reader, TokenizerTypeList ttl, boolean ignoreWS, int chunkSize) {
+        super(ttl, ignoreWS);
+        this.reader = reader;
+        chunk = new char[chunkSize];
+        buffer = new StringBuilder();
+        scanOffset = 0;
+        endOfInput = false;
+        matcher = new TokenMatcher(ttl, getWhiteSpacePattern(), buffer);
+        error = null;
+
+        window = new ArrayList<>();
+        windowStart = 0;
+        committedIndex = 0;
+    }
+
+    // the message of the TokenizerException that stopped tokenization,
+    // or null. Tokenizing stops at the first error as if the input ended.
+    public String getError() {
+        return error;
+    }
+
+    public boolean hasError() {
+        return error != null;
+    }
+
+    // the number of tokens currently held in memory
+    public int retainedSize() {
+        return window.size();
+    }
+
+    @Override
+    protected boolean hasTokenAt(int i) {
+        while (i >= windowStart + window.size() && scanNext()) {
+            // keep reading until token i exists, or there is nothing left
+        }
+        return i < windowStart + window.size();
+    }
+
+    @Override
+    protected Token tokenAt(int i) {
+        if (i < committedIndex) {
+            throw new RuntimeException("Token " + i + " was already released by a commit");
+        }
+        if (!hasTokenAt(i)) {
+            throw new RuntimeException("index out of bounds");
+        }
+        return window.get(i - windowStart);
+    }
+
+    // reads the whole rest of the input
+    @Override
+    public int size() {
+        while (scanNext()) {
+            // keep reading
+        }
+        return windowStart + window.size();
+    }
+
+    @Override
+    public void commit(int index) {
+        int newCommit = Math.min(index, getIndex());
+        if (newCommit <= committedIndex) {
+            return;
+        }
+        committedIndex = newCommit;
+        // only shift the window once enough of it is dead
+        int released = committedIndex - windowStart;
+        if (released > window.size() / 2 || released >= chunk.length) {
+            window.subList(0, released).clear();
+            windowStart = committedIndex;
+        }
+    }
+
+    @Override
+    public CharSequence getSource() {
+        return null;
+    }
+
+    @Override
+    public void tokenize(CharSequence rawText) throws TokenizerException {
+        throw new RuntimeException("A StreamingTokenizer reads its text from its Reader");
+    }
+
+    @Override
+    public List<Tokenizer> splitTokensOn(Token splitToken) {
+        throw new RuntimeException("Can't split the tokens of a StreamingTokenizer");
+    }
+
+    // Tokenizes until one more token is in the window. Returns false
+    // once the input is used up (or didn't tokenize).
+    private boolean scanNext() {
+        while (reader != null) {
+            ensureLookahead();
+            int length = buffer.length();
+            if (scanOffset >= length) {
+                close();
+                return false;
+            }
+
+            int afterWhiteSpace = matcher.skipWhiteSpace(scanOffset, length);
+            if (afterWhiteSpace > scanOffset) {
+                scanOffset = afterWhiteSpace;
+                continue;
+            }
+
+            boolean found = matcher.match(buffer, scanOffset, length);
+            if (matcher.hitEnd() && !endOfInput) {
+                // the match could change with more text, so get more and retry
+                fill();
+                continue;
+            }
+            if (!found) {
+                error = "Beginning of text doesn't match any known TokenTypes: '" + buffer.substring(scanOffset) + "'";
+                close();
+                return false;
+            }
+
+            Token token = matcher.createToken(buffer, scanOffset, true);
+            scanOffset = matcher.getMatchEnd();
+            if (token != null) {
+                window.add(token);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // makes sure that any exact token could be matched completely
+    private void ensureLookahead() {
+        int lookahead = Math.max(1, matcher.getMaxExactLength());
+        while (!endOfInput && buffer.length() - scanOffset < lookahead) {
+            fill();
+        }
+    }
+
+    private void fill() {
+        if (scanOffset >= chunk.length) {
+            buffer.delete(0, scanOffset);
+            scanOffset = 0;
+        }
+        try {
+            int read = reader.read(chunk);
+            if (read == -1) {
+                endOfInput = true;
+            } else {
+                buffer.append(chunk, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        reader = null;
+        buffer.setLength(0);
+        scanOffset = 0;
+    }
+
+}
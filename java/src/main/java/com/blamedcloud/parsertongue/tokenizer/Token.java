@@ -2,27 +2,96 @@ package com.blamedcloud.parsertongue.tokenizer;
 
 public class Token {
 
-    private final String value;
+    private String value;
     private final TokenType tokenType;
-    private final String fullText;
+    private String fullText;
+
+    // tokens created by a Tokenizer remember where they came
+    // from, so the text is only copied out of the source if asked for.
+    private final CharSequence source;
+    private final int start;
+    private final int end;
 
     public Token(String raw, TokenType tokenType) {
         this.value = raw;
         this.tokenType = tokenType;
         this.fullText = raw;
+        this.source = null;
+        this.start = -1;
+        this.end = -1;
 
-        if (!this.tokenType.isTypeOf(fullText)) {
-            throw new RuntimeException("Token '" + this.fullText + "' is not of type '" + this.tokenType.getName() + "'!");
-        }
+        checkType();
     }
 
     public Token(String raw, TokenType tokenType, String fullText) {
         this.value = raw;
         this.tokenType = tokenType;
         this.fullText = fullText;
+        this.source = null;
+        this.start = -1;
+        this.end = -1;
+
+        checkType();
+    }
+
+    // value is the full text source[start, end)
+    public Token(TokenType tokenType, CharSequence source, int start, int end) {
+        this.value = null;
+        this.tokenType = tokenType;
+        this.fullText = null;
+        this.source = source;
+        this.start = start;
+        this.end = end;
+
+        checkType();
+    }
+
+    // value is given explicitly, and the full text is source[start, end)
+    public Token(String raw, TokenType tokenType, CharSequence source, int start, int end) {
+        this.value = raw;
+        this.tokenType = tokenType;
+        this.fullText = null;
+        this.source = source;
+        this.start = start;
+        this.end = end;
+
+        checkType();
+    }
+
+    // copies are of tokens that were already checked
+    private Token(Token other) {
+        this(other.value, other.tokenType, other.fullText, other.source, other.start, other.end);
+    }
+
+    // unchecked, see matched()
+    private Token(String raw, TokenType tokenType, String fullText, CharSequence source, int start, int end) {
+        this.value = raw;
+        this.tokenType = tokenType;
+        this.fullText = fullText;
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
 
-        if (!this.tokenType.isTypeOf(fullText)) {
-            throw new RuntimeException("Token '" + this.fullText + "' is not of type '" + this.tokenType.getName() + "'!");
+    // Tokens for text the tokenizer has just matched as tokenType. The
+    // public constructors would match the text against tokenType again
+    // (running a RegexToken's whole pattern a second time, and copying
+    // the text out of source to do it), so these skip that check.
+    static Token matched(TokenType tokenType, CharSequence source, int start, int end) {
+        return new Token(null, tokenType, null, source, start, end);
+    }
+
+    static Token matched(String raw, TokenType tokenType, CharSequence source, int start, int end) {
+        return new Token(raw, tokenType, null, source, start, end);
+    }
+
+    static Token matched(String raw, TokenType tokenType, String fullText) {
+        return new Token(raw, tokenType, fullText, null, -1, -1);
+    }
+
+    private void checkType() {
+        if (!this.tokenType.isTypeOf(getFullText())) {
+            throw new RuntimeException("Token '" + getFullText() + "' is not of type '" + this.tokenType.getName() + "'!");
         }
     }
 
@@ -31,19 +100,43 @@ public class Token {
     }
 
     public String getValue() {
+        if (value == null) {
+            value = getFullText();
+        }
         return value;
     }
 
+    public String getFullText() {
+        if (fullText == null) {
+            fullText = source.subSequence(start, end).toString();
+        }
+        return fullText;
+    }
+
+    public boolean hasSource() {
+        return source != null;
+    }
+
+    // offsets into the text this token was tokenized from,
+    // or -1 if it wasn't created by a Tokenizer.
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
     @Override
     public String toString() {
-        return '(' + tokenType.toString() + ", '" + value + "')";
+        return '(' + tokenType.toString() + ", '" + getValue() + "')";
     }
 
     public boolean isSameAs(Token other) {
-        return (value.equals(other.value) && tokenType.isSameAs(other.tokenType));
+        return (getValue().equals(other.getValue()) && tokenType.isSameAs(other.tokenType));
     }
 
     public Token copy() {
-        return new Token(value, tokenType, fullText);
+        return new Token(this);
     }
 }
@@ -0,0 +1,39 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+// The tokens an edit changed (see Tokenizer::edit): tokens [start, oldEnd)
+// were replaced by tokens [start, newEnd), and the ones after them moved
+// along by newEnd - oldEnd.
+public final class TokenEdit {
+
+    private final int start;
+    private final int oldEnd;
+    private final int newEnd;
+
+    public TokenEdit(int start, int oldEnd, int newEnd) {
+        this.start = start;
+        this.oldEnd = oldEnd;
+        this.newEnd = newEnd;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getOldEnd() {
+        return oldEnd;
+    }
+
+    public int getNewEnd() {
+        return newEnd;
+    }
+
+    public int getShift() {
+        return newEnd - oldEnd;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + oldEnd + ") -> [" + start + ", " + newEnd + ")";
+    }
+
+}
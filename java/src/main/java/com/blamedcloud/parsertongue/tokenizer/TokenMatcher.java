@@ -0,0 +1,182 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Matches the TokenTypes of a compiled TokenizerTypeList at an offset
+// of one CharSequence, reusing a single Matcher per pattern type.
+// Region bounds are anchoring and opaque by default, so matching at
+// an offset behaves exactly as if the remaining text had been copied
+// out. Shared by the Tokenizer and the StreamingTokenizer.
+class TokenMatcher {
+
+    private final TokenizerTypeList tokenizerTypeList;
+    private final CompiledTokenizerTypeList compiled;
+    private final int[] patternTypes;
+    private final Matcher[] matchers;
+    private final Matcher whiteSpaceMatcher;
+
+    private int matchedType;
+    private int matchEnd;
+    private Matcher matchedMatcher;
+    private boolean hitEnd;
+    private int lookahead;
+
+    TokenMatcher(TokenizerTypeList ttl, Pattern whiteSpacePattern, CharSequence text) {
+        tokenizerTypeList = ttl;
+        compiled = ttl.compile();
+        patternTypes = compiled.getPatternTypeIndices();
+        matchers = new Matcher[patternTypes.length];
+        for (int i = 0; i < patternTypes.length; i++) {
+            matchers[i] = ttl.get(patternTypes[i]).getPattern().matcher(text);
+        }
+        if (whiteSpacePattern != null) {
+            whiteSpaceMatcher = whiteSpacePattern.matcher(text);
+        } else {
+            whiteSpaceMatcher = null;
+        }
+    }
+
+    int getMaxExactLength() {
+        return compiled.getMaxExactLength();
+    }
+
+    // returns the end of the white space at offset, or offset if there is none
+    int skipWhiteSpace(int offset, int end) {
+        if (whiteSpaceMatcher != null) {
+            whiteSpaceMatcher.region(offset, end);
+            if (whiteSpaceMatcher.lookingAt()) {
+                return whiteSpaceMatcher.end();
+            }
+        }
+        return offset;
+    }
+
+    // the lookahead (see getLookahead()) of a skipWhiteSpace() from offset
+    // that returned afterWhiteSpace: it stopped at the first character
+    // that isn't white space
+    int getWhiteSpaceLookahead(int offset, int afterWhiteSpace) {
+        return whiteSpaceMatcher == null ? offset : afterWhiteSpace + 1;
+    }
+
+    // Like match(), but also works out how much of the text the outcome
+    // depends on (see getLookahead()). The patterns are matched in a
+    // window after offset, which is doubled until none of them looked at
+    // its end. The window always covers the longest ExactToken and the
+    // character after it, so the trie can only reach the end of the text.
+    boolean matchWithLookahead(CharSequence text, int offset, int end) {
+        int maxExactLength = getMaxExactLength();
+        int limit = Math.min(end, offset + maxExactLength + 1);
+        while (true) {
+            boolean found = match(text, offset, limit);
+            if (!hitEnd && (limit < end || offset + maxExactLength < end)) {
+                lookahead = limit;
+                return found;
+            } else if (limit == end) {
+                // (so more text could have changed it)
+                lookahead = end + 1;
+                return found;
+            }
+            limit = Math.min(end, offset + 2 * (limit - offset));
+        }
+    }
+
+    // The end of the text the last matchWithLookahead() could have looked at: its outcome only changes if the text before
+    // this does, where the end of the text counts as one more character.
+    int getLookahead() {
+        return lookahead;
+    }
+
+    // Finds the first TokenType (in list order) that matches a non-empty
+    // prefix of text[offset, end). ExactTokens are looked up in the trie,
+    // and only pattern types before the best exact match are tried.
+    // Returns false if nothing matches.
+    boolean match(CharSequence text, int offset, int end) {
+        hitEnd = false;
+        matchedMatcher = null;
+        matchedType = compiled.firstExactMatch(text, offset, end);
+        for (int i = 0; i < patternTypes.length; i++) {
+            if (matchedType != -1 && patternTypes[i] > matchedType) {
+                break;
+            }
+            Matcher ttMatcher = matchers[i];
+            ttMatcher.region(offset, end);
+            boolean found = ttMatcher.lookingAt();
+            hitEnd = hitEnd || ttMatcher.hitEnd();
+            if (found && ttMatcher.end() > offset) {
+                matchedType = patternTypes[i];
+                matchedMatcher = ttMatcher;
+                matchEnd = ttMatcher.end();
+                return true;
+            }
+        }
+        if (matchedType != -1) {
+            matchEnd = offset + tokenizerTypeList.get(matchedType).getExpression().length();
+            return true;
+        }
+        return false;
+    }
+
+    // true if a pattern type looked at the end of the text during
+    // the last match(), so more text could change its outcome.
+    boolean hitEnd() {
+        return hitEnd;
+    }
+
+    int getMatchEnd() {
+        return matchEnd;
+    }
+
+    TokenType getMatchedType() {
+        return tokenizerTypeList.get(matchedType);
+    }
+
+    int getMatchedTypeIndex() {
+        return matchedType;
+    }
+
+    // The value of the last match() when its pattern has groups: the
+    // concatenation of all the "real" groups (group 0 is the entire match,
+    // and is not counted towards groupCount()). Otherwise null, since the
+    // value is the entire match.
+    String getGroupValue(CharSequence text) {
+        if (matchedMatcher == null || matchedMatcher.groupCount() == 0) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int j = 1; j < matchedMatcher.groupCount() + 1; j++) {
+            int groupStart = matchedMatcher.start(j);
+            if (groupStart != -1) {
+                sb.append(text, groupStart, matchedMatcher.end(j));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Creates the token for the last match(), or returns null if its
+    // type is ignored. Tokens either point back into the text, or (when
+    // the text is only a window that will change) get their own copy.
+    Token createToken(CharSequence text, int offset, boolean copyText) {
+        TokenType tt = getMatchedType();
+        if (tt.isIgnored()) {
+            return null;
+        }
+        String groupValue = getGroupValue(text);
+        if (groupValue != null) {
+            if (copyText) {
+                return Token.matched(groupValue, tt, text.subSequence(offset, matchEnd).toString());
+            } else {
+                return Token.matched(groupValue, tt, text, offset, matchEnd);
+            }
+        } else {
+            // no groups to worry about, token value is entire match
+            if (copyText) {
+                String value = text.subSequence(offset, matchEnd).toString();
+                return Token.matched(value, tt, value);
+            } else {
+                return Token.matched(tt, text, offset, matchEnd);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+import java.util.Arrays;
+
+// The values of a run of tokens merged together, as a CharSequence that
+// reads them in place instead of copying them into a String, so that a
+// regex rule can be matched against more and more tokens with one Matcher
+// (see Tokenizer::textFrom). While the tokens sit next to each other in
+// the source with nothing between them (and their values are their
+// text), it reads the source directly. Otherwise each character is
+// mapped back to the token it's in.
+public final class TokenText implements CharSequence {
+
+    private final Tokenizer tokens;
+    private final int first;
+    private int[] ends;
+    private int count;
+
+    private final CharSequence source;
+    private boolean contiguous;
+
+    TokenText(Tokenizer tokens, int first) {
+        this.tokens = tokens;
+        this.first = first;
+        ends = new int[8];
+        count = 0;
+        source = tokens.getSource();
+        contiguous = source != null;
+    }
+
+    // the number of tokens merged so far
+    public int tokenCount() {
+        return count;
+    }
+
+    // merges the next token in, returning false if there isn't one
+    public boolean addToken() {
+        int index = first + count;
+        if (!tokens.hasTokenAt(index)) {
+            return false;
+        }
+        if (contiguous) {
+            contiguous = tokens.isSourceSpan(index) && (count == 0 || tokens.spanStart(index) == tokens.spanEnd(index - 1));
+        }
+        if (count == ends.length) {
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        ends[count] = length() + tokens.valueLength(index);
+        count++;
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return count == 0 ? 0 : ends[count - 1];
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length());
+        }
+        if (contiguous) {
+            return source.charAt(tokens.spanStart(first) + index);
+        }
+        // the first token that ends after index
+        int token = Arrays.binarySearch(ends, 0, count, index + 1);
+        if (token < 0) {
+            token = -token - 1;
+        } else {
+            while (token > 0 && ends[token - 1] == index + 1) {
+                token--;
+            }
+        }
+        int tokenStart = token == 0 ? 0 : ends[token - 1];
+        return tokens.valueCharAt(first + token, index - tokenStart);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (contiguous && count > 0) {
+            int start = tokens.spanStart(first);
+            return source.subSequence(start, start + length()).toString();
+        }
+        StringBuilder sb = new StringBuilder(length());
+        for (int i = 0; i < count; i++) {
+            sb.append(tokens.tokenAt(first + i).getValue());
+        }
+        return sb.toString();
+    }
+
+}
@@ -3,15 +3,34 @@ package com.blamedcloud.parsertongue.tokenizer;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.EMPTY_NAME;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class Tokenizer {
 
+    // Tokens given as a list (by splitTokensOn), or those read by
+    // tokenize(), which are kept as arrays instead: the index of each
+    // one's type in tokenTypes, where it is in the source, and its value
+    // if a group pattern made that differ from its text. Their Tokens are
+    // only created when asked for, as views of the source. If they were
+    // read by tokenizeForEditing(), each also has the furthest into the
+    // source that any matching up to and including its own looked (see
+    // TokenMatcher::getLookahead), for edit().
     private List<Token> tokens;
+    private CompiledTokenizerTypeList tokenTypes;
+    private int[] typeIds;
+    private int[] starts;
+    private int[] ends;
+    private String[] values;
+    private int[] lookaheads;
+    private int count;
+    private Token lastToken;
+    private int lastTokenIndex;
+    private CharSequence source;
     private int index;
     private boolean exhausted;
+    private int furthest;
     private TokenizerTypeList tokenizerTypeList;
     private boolean ignoreWhiteSpace;
     private final Pattern whiteSpacePattern = Pattern.compile("\\s+");
@@ -42,8 +61,19 @@ public class Tokenizer {
 
     private void setDefaults() {
         tokens = new ArrayList<>();
+        tokenTypes = null;
+        typeIds = null;
+        starts = null;
+        ends = null;
+        values = null;
+        lookaheads = null;
+        count = 0;
+        lastToken = null;
+        lastTokenIndex = -1;
+        source = null;
         index = 0;
         exhausted = false;
+        furthest = 0;
     }
 
     private void resetFromTokenList(List<Token> tokenList) {
@@ -52,11 +82,11 @@ public class Tokenizer {
     }
 
     public boolean hasSameTokens(Tokenizer other) {
-        if (tokens.size() != other.tokens.size()) {
+        if (size() != other.size()) {
             return false;
         }
-        for (int i = 0; i < tokens.size(); i++) {
-            if (!tokens.get(i).isSameAs(other.tokens.get(i))) {
+        for (int i = 0; i < size(); i++) {
+            if (!tokenAt(i).isSameAs(other.tokenAt(i))) {
                 return false;
             }
         }
@@ -64,15 +94,125 @@ public class Tokenizer {
     }
 
     public int size() {
-        return tokens.size();
+        return typeIds == null ? tokens.size() : count;
+    }
+
+    public boolean isEmpty() {
+        return !hasTokenAt(0);
+    }
+
+    // Tokenizers that read their tokens lazily override these two, so
+    // moving through the tokens only reads as far as is actually needed.
+    protected boolean hasTokenAt(int i) {
+        return i < size();
+    }
+
+    protected Token tokenAt(int i) {
+        if (typeIds == null) {
+            return tokens.get(i);
+        }
+        if (i >= count) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + count);
+        }
+        // (the parse tends to ask for the same token again and again)
+        if (i != lastTokenIndex) {
+            String value = values == null ? null : values[i];
+            lastToken = Token.matched(value, tokenTypes.getTypeList().get(typeIds[i]), source, starts[i], ends[i]);
+            lastTokenIndex = i;
+        }
+        return lastToken;
+    }
+
+    // The id (see CompiledTokenizerTypeList::getExactId) of the current
+    // token's value if its type is an ExactToken, in the types given by
+    // getTokenTypes(). Otherwise, or if these tokens weren't read by
+    // tokenize(), -1.
+    public int currentExactId() {
+        if (typeIds == null || index >= count) {
+            return -1;
+        }
+        return tokenTypes.getExactId(typeIds[index]);
+    }
+
+    // the types the tokens were read with, or null if they weren't read
+    // by tokenize()
+    public CompiledTokenizerTypeList getTokenTypes() {
+        return tokenTypes;
+    }
+
+    // the merged values of the tokens from index on, none of them merged
+    // yet (see TokenText)
+    public TokenText textFrom(int index) {
+        return new TokenText(this, index);
+    }
+
+    // whether token i was read by tokenize() and its value is the text
+    // source[spanStart(i), spanEnd(i))
+    boolean isSourceSpan(int i) {
+        return typeIds != null && i < count && (values == null || values[i] == null);
+    }
+
+    int spanStart(int i) {
+        return starts[i];
+    }
+
+    int spanEnd(int i) {
+        return ends[i];
+    }
+
+    int valueLength(int i) {
+        if (isSourceSpan(i)) {
+            return ends[i] - starts[i];
+        }
+        return tokenAt(i).getValue().length();
+    }
+
+    char valueCharAt(int i, int offset) {
+        if (isSourceSpan(i)) {
+            return source.charAt(starts[i] + offset);
+        }
+        return tokenAt(i).getValue().charAt(offset);
+    }
+
+    // whether the current token's value is value, without creating it
+    public boolean currentValueEquals(String value) {
+        if (typeIds == null || index >= count) {
+            return value.equals(currentToken().getValue());
+        } else if (values != null && values[index] != null) {
+            return value.equals(values[index]);
+        }
+        int start = starts[index];
+        int length = ends[index] - start;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Signals that the parse will never backtrack to a token before
+    // index again. Tokenizers that read lazily can then let them go.
+    public void commit(int index) {
+    }
+
+    // Moves past anything that's ignored before the next terminal or
+    // regex. Tokenized text has nothing left to ignore, but a
+    // ScannerlessTokenizer's may.
+    public void skipIgnored() {
     }
 
     public boolean nextToken() {
-        if (index + 1 == size()) {
+        if (!hasTokenAt(index + 1)) {
             exhausted = true;
+            furthest = Math.max(furthest, index + 1);
             return false;
         } else {
             index++;
+            furthest = Math.max(furthest, index);
             return true;
         }
     }
@@ -114,17 +254,28 @@ public class Tokenizer {
             // So this should never get thrown
             throw new RuntimeException(e);
         }
-        return new Token("", emptyType);
+        return Token.matched("", emptyType, "");
     }
 
     public Token currentToken() {
-        if (size() == 0) {
+        if (isEmpty()) {
             return getEmptyToken();
         } else {
-            return tokens.get(index);
+            return tokenAt(index);
         }
     }
 
+    // The furthest position (the index, or past the last token once
+    // exhausted) moved to since setFurthest was last called, which is as
+    // far as the tokens have been looked at. See PackratMemo::edit.
+    public int getFurthest() {
+        return furthest;
+    }
+
+    public void setFurthest(int position) {
+        furthest = position;
+    }
+
     public int getIndex() {
         return index;
     }
@@ -134,11 +285,12 @@ public class Tokenizer {
     }
 
     public void setIndex(int newIndex, boolean wasExhausted) {
-        if ((size() == 0) && (newIndex == 0)) {
+        if (isEmpty() && (newIndex == 0)) {
             exhausted = wasExhausted;
-        } else if ((newIndex >= 0) && (newIndex < size())) {
+        } else if ((newIndex >= 0) && hasTokenAt(newIndex)) {
             index = newIndex;
             exhausted = wasExhausted;
+            furthest = Math.max(furthest, wasExhausted ? newIndex + 1 : newIndex);
         } else {
             throw new RuntimeException("index out of bounds");
         }
@@ -148,7 +300,8 @@ public class Tokenizer {
         List<Tokenizer> tokenizers = new ArrayList<>();
         List<Token> newTokens = new ArrayList<>();
 
-        for (Token token : tokens) {
+        for (int i = 0; i < size(); i++) {
+            Token token = tokenAt(i);
             if (splitToken.isSameAs(token)) {
                 if (newTokens.size() > 0) {
                     Tokenizer newTokenizer = new Tokenizer(tokenizerTypeList, ignoreWhiteSpace);
@@ -171,18 +324,18 @@ public class Tokenizer {
     }
 
     public Token getLastToken() {
-        if (size() == 0) {
+        if (isEmpty()) {
             return getEmptyToken();
         } else {
-            return tokens.get(tokens.size() - 1);
+            return tokenAt(size() - 1);
         }
     }
 
     public Token getFirstToken() {
-        if (size() == 0) {
+        if (isEmpty()) {
             return getEmptyToken();
         } else {
-            return tokens.get(0);
+            return tokenAt(0);
         }
     }
 
@@ -198,55 +351,255 @@ public class Tokenizer {
         ignoreWhiteSpace = ignoreWS;
     }
 
-    public void tokenize(String rawText) throws TokenizerException {
-        setDefaults();
+    public boolean getIgnoreWhiteSpace() {
+        return ignoreWhiteSpace;
+    }
+
+    // the pattern of white space to skip, or null if it isn't skipped
+    protected Pattern getWhiteSpacePattern() {
+        if (ignoreWhiteSpace) {
+            return whiteSpacePattern;
+        } else {
+            return null;
+        }
+    }
 
-        while (rawText.length() > 0) {
-            boolean hasMatch = false;
+    // the text last passed to tokenize(), or null if
+    // this tokenizer's tokens didn't come from tokenize().
+    public CharSequence getSource() {
+        return source;
+    }
 
-            if (ignoreWhiteSpace) {
-                Matcher whiteSpaceMatcher = whiteSpacePattern.matcher(rawText);
-                if (whiteSpaceMatcher.lookingAt()) {
-                    hasMatch = true;
-                    rawText = rawText.substring(whiteSpaceMatcher.end());
+    // Walks a single offset through the text, see TokenMatcher.
+    // Tokens point back into rawText rather than copying it.
+    public void tokenize(CharSequence rawText) throws TokenizerException {
+        setDefaults();
+        source = rawText;
+
+        int length = rawText.length();
+        TokenMatcher matcher = new TokenMatcher(tokenizerTypeList, getWhiteSpacePattern(), rawText);
+        tokenTypes = tokenizerTypeList.compile();
+        tokens = null;
+        allocate(Math.max(16, Math.min(length / 4, 1 << 16)), false);
+
+        int offset = 0;
+        while (offset < length) {
+            int afterWhiteSpace = matcher.skipWhiteSpace(offset, length);
+            if (afterWhiteSpace > offset) {
+                offset = afterWhiteSpace;
+            } else if (matcher.match(rawText, offset, length)) {
+                if (!matcher.getMatchedType().isIgnored()) {
+                    addToken(matcher.getMatchedTypeIndex(), offset, matcher.getMatchEnd(), matcher.getGroupValue(rawText), 0);
                 }
+                offset = matcher.getMatchEnd();
+            } else {
+                throw new TokenizerException("Beginning of text doesn't match any known TokenTypes: '" + rawText.subSequence(offset, length) + "'");
             }
+        }
+    }
 
-            if (!hasMatch) {
-                for (TokenType tt : tokenizerTypeList) {
-                    Pattern ttPattern = tt.getPattern();
-                    Matcher ttMatcher = ttPattern.matcher(rawText);
-                    if (ttMatcher.lookingAt()) {
-                        if (ttMatcher.group().length() > 0) {
-                            hasMatch = true;
-                            if (!tt.isIgnored()) {
-                                if (ttMatcher.groupCount() > 0) {
-                                    // concatenate all the "real" groups.
-                                    // group 0 is the entire match, and is not counted
-                                    // towards groupCount().
-                                    StringBuilder sb = new StringBuilder();
-                                    for (int i = 1; i < ttMatcher.groupCount() + 1; i++) {
-                                        String groupValue = ttMatcher.group(i);
-                                        if (groupValue != null && groupValue.length() > 0) {
-                                            sb.append(groupValue);
-                                        }
-                                    }
-                                    tokens.add(new Token(sb.toString(), tt, ttMatcher.group(0)));
-                                } else {
-                                    // no groups to worry about, token value is entire match
-                                    tokens.add(new Token(ttMatcher.group(), tt));
-                                }
-                            }
-                            rawText = rawText.substring(ttMatcher.end());
-                            break;
-                        }
-                    }
+    // Like tokenize(), but also keeps how far each token's matching looked
+    // ahead, so that the tokens can be edit()ed. That costs more, since
+    // the patterns are matched in windows of the text that can take a few
+    // tries to be big enough (see TokenMatcher::matchWithLookahead).
+    public void tokenizeForEditing(CharSequence rawText) throws TokenizerException {
+        setDefaults();
+        source = rawText;
+
+        int length = rawText.length();
+        TokenMatcher matcher = new TokenMatcher(tokenizerTypeList, getWhiteSpacePattern(), rawText);
+        tokenTypes = tokenizerTypeList.compile();
+        tokens = null;
+        allocate(Math.max(16, Math.min(length / 4, 1 << 16)), true);
+
+        int offset = 0;
+        int lookahead = 0;
+        while (offset < length) {
+            int afterWhiteSpace = matcher.skipWhiteSpace(offset, length);
+            lookahead = Math.max(lookahead, matcher.getWhiteSpaceLookahead(offset, afterWhiteSpace));
+            if (afterWhiteSpace > offset) {
+                offset = afterWhiteSpace;
+            } else if (matcher.matchWithLookahead(rawText, offset, length)) {
+                lookahead = Math.max(lookahead, matcher.getLookahead());
+                if (!matcher.getMatchedType().isIgnored()) {
+                    addToken(matcher.getMatchedTypeIndex(), offset, matcher.getMatchEnd(), matcher.getGroupValue(rawText), lookahead);
                 }
-                if (!hasMatch) {
-                    throw new TokenizerException("Beginning of text doesn't match any known TokenTypes: '" + rawText + "'");
+                offset = matcher.getMatchEnd();
+            } else {
+                throw new TokenizerException("Beginning of text doesn't match any known TokenTypes: '" + rawText.subSequence(offset, length) + "'");
+            }
+        }
+    }
+
+    private void allocate(int capacity, boolean editable) {
+        typeIds = new int[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        if (editable) {
+            lookaheads = new int[capacity];
+        }
+    }
+
+    // Replaces text[offset, offset + deletedLength) with inserted, and
+    // retokenizes only as much as that can change: from the end of the
+    // last token whose matching didn't look as far as the edit (so
+    // including whatever was ignored after it), up to the first old token
+    // that starts at the same place (after the edit) in the new text.
+    // From there on the text is the same, so the tokens would be too, and
+    // they are only shifted along. If the new text can't be tokenized, the
+    // tokens are left as they were. Returns the tokens that changed, and
+    // leaves the index at the start.
+    public TokenEdit edit(int offset, int deletedLength, CharSequence inserted) throws TokenizerException {
+        if (lookaheads == null) {
+            throw new RuntimeException("Only tokens read by tokenizeForEditing() can be edited");
+        }
+        int oldLength = source.length();
+        if (offset < 0 || deletedLength < 0 || offset + deletedLength > oldLength) {
+            throw new RuntimeException("Edit out of bounds: " + offset + ", " + deletedLength + " of " + oldLength);
+        }
+        StringBuilder sb = new StringBuilder(oldLength - deletedLength + inserted.length());
+        String text = sb.append(source, 0, offset).append(inserted).append(source, offset + deletedLength, oldLength).toString();
+        int length = text.length();
+        int delta = inserted.length() - deletedLength;
+        int editEnd = offset + inserted.length();
+
+        // (a token can be changed by what comes after it, e.g. a longer
+        // match, or an ignored block comment that is now closed)
+        int first = firstLookingAt(offset);
+
+        Tokenizer relexed = new Tokenizer(tokenizerTypeList, ignoreWhiteSpace);
+        relexed.allocate(16, true);
+        TokenMatcher matcher = new TokenMatcher(tokenizerTypeList, getWhiteSpacePattern(), text);
+        int position = first == 0 ? 0 : ends[first - 1];
+        int lookahead = first == 0 ? 0 : lookaheads[first - 1];
+        int next = first;
+        while (true) {
+            if (position >= editEnd) {
+                while (next < count && starts[next] + delta < position) {
+                    next++;
+                }
+                if (next < count && starts[next] + delta == position) {
+                    break;
                 }
             }
+            if (position >= length) {
+                next = count;
+                break;
+            }
+            int afterWhiteSpace = matcher.skipWhiteSpace(position, length);
+            lookahead = Math.max(lookahead, matcher.getWhiteSpaceLookahead(position, afterWhiteSpace));
+            if (afterWhiteSpace > position) {
+                position = afterWhiteSpace;
+            } else if (matcher.matchWithLookahead(text, position, length)) {
+                lookahead = Math.max(lookahead, matcher.getLookahead());
+                if (!matcher.getMatchedType().isIgnored()) {
+                    relexed.addToken(matcher.getMatchedTypeIndex(), position, matcher.getMatchEnd(), matcher.getGroupValue(text), lookahead);
+                }
+                position = matcher.getMatchEnd();
+            } else {
+                throw new TokenizerException("Beginning of text doesn't match any known TokenTypes: '" + text.substring(position) + "'");
+            }
+        }
+
+        splice(first, next, relexed, delta, lookahead);
+        source = text;
+        lastToken = null;
+        lastTokenIndex = -1;
+        index = 0;
+        exhausted = false;
+        furthest = 0;
+        return new TokenEdit(first, next, first + relexed.count);
+    }
+
+    // the first token whose matching looked at offset (lookaheads only increase)
+    private int firstLookingAt(int offset) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lookaheads[middle] <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // replaces tokens [from, to) with those of relexed, shifting the ones
+    // after them by delta, and raising their lookaheads to at least that
+    // of the retokenized text
+    private void splice(int from, int to, Tokenizer relexed, int delta, int lookahead) {
+        int added = relexed.count;
+        int newCount = count - (to - from) + added;
+        if (newCount > typeIds.length) {
+            int capacity = Math.max(newCount, typeIds.length * 2);
+            typeIds = Arrays.copyOf(typeIds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            lookaheads = Arrays.copyOf(lookaheads, capacity);
+            if (values != null) {
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+        if (values == null && relexed.values != null) {
+            values = new String[typeIds.length];
+        }
+        int tail = count - to;
+        System.arraycopy(typeIds, to, typeIds, from + added, tail);
+        System.arraycopy(starts, to, starts, from + added, tail);
+        System.arraycopy(ends, to, ends, from + added, tail);
+        System.arraycopy(lookaheads, to, lookaheads, from + added, tail);
+        if (values != null) {
+            System.arraycopy(values, to, values, from + added, tail);
+        }
+        for (int i = from + added; i < newCount; i++) {
+            starts[i] += delta;
+            ends[i] += delta;
+            lookaheads[i] = Math.max(lookaheads[i] + delta, lookahead);
+        }
+        System.arraycopy(relexed.typeIds, 0, typeIds, from, added);
+        System.arraycopy(relexed.starts, 0, starts, from, added);
+        System.arraycopy(relexed.ends, 0, ends, from, added);
+        System.arraycopy(relexed.lookaheads, 0, lookaheads, from, added);
+        if (values != null) {
+            for (int i = 0; i < added; i++) {
+                values[from + i] = relexed.values == null ? null : relexed.values[i];
+            }
+            if (newCount < count) {
+                // (anything left past the end is stale)
+                Arrays.fill(values, newCount, count, null);
+            }
+        }
+        count = newCount;
+    }
+
+    private void addToken(int typeId, int start, int end, String value, int lookahead) {
+        if (count == typeIds.length) {
+            int capacity = count * 2;
+            typeIds = Arrays.copyOf(typeIds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            if (lookaheads != null) {
+                lookaheads = Arrays.copyOf(lookaheads, capacity);
+            }
+            if (values != null) {
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+        if (value != null) {
+            if (values == null) {
+                values = new String[typeIds.length];
+            }
+            values[count] = value;
+        }
+        typeIds[count] = typeId;
+        starts[count] = start;
+        ends[count] = end;
+        if (lookaheads != null) {
+            lookaheads[count] = lookahead;
         }
+        count++;
     }
 
 }
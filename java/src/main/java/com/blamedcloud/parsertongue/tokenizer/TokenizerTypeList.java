@@ -4,6 +4,8 @@ import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.ANN
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.COMMENT_NAME;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.COMPOSITION_NAME;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.CONTROL_NAME;
+import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.CUT;
+import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.CUT_NAME;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.DEFINE_NAME;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.END_NAME;
 import static com.blamedcloud.parsertongue.tokenizer.DefaultGrammarConstants.EXTERNAL_NAME;
@@ -22,10 +24,12 @@ public class TokenizerTypeList implements Iterable<TokenType> {
 
     private List<TokenType> typeList;
     private Map<String, Integer> indexLookup;
+    private CompiledTokenizerTypeList compiled;
 
     public TokenizerTypeList() {
         typeList = new ArrayList<>();
         indexLookup = new HashMap<>();
+        compiled = null;
     }
 
     public int size() {
@@ -36,9 +40,18 @@ public class TokenizerTypeList implements Iterable<TokenType> {
         if (!indexLookup.containsKey(tt.getName())) {
             indexLookup.put(tt.getName(), typeList.size());
             typeList.add(tt);
+            compiled = null;
         }
     }
 
+    // compiled lazily, and again after any new TokenType is added
+    public CompiledTokenizerTypeList compile() {
+        if (compiled == null) {
+            compiled = new CompiledTokenizerTypeList(this);
+        }
+        return compiled;
+    }
+
     public void extend(TokenizerTypeList ttl) {
         for (TokenType tt : ttl) {
             add(tt);
@@ -89,6 +102,7 @@ public class TokenizerTypeList implements Iterable<TokenType> {
         grammarTTL.add(new ExactToken(REGEX_NAME, "~"));
         grammarTTL.add(new ExactToken(ANNOTATION_NAME, "@"));
         grammarTTL.add(new ExactToken(COMPOSITION_NAME, "."));
+        grammarTTL.add(new ExactToken(CUT_NAME, CUT));
         grammarTTL.add(new RegexToken(CONTROL_NAME, "[()\\[\\]{}|,]"));
         grammarTTL.add(new RegexToken(IDENTIFIER_NAME, "[a-zA-Z][a-zA-Z0-9_]*"));
         grammarTTL.add(new RegexToken(TERMINAL_NAME, "'([^']*)'|\"([^\"]*)\""));
@@ -0,0 +1,105 @@
+package com.blamedcloud.parsertongue.utility;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+// A Reader that maps a file one window at a time and decodes it.
+// A character split across the end of a window is left undecoded,
+// and the next window starts at its first byte.
+public class MappedFileReader extends Reader {
+
+    public static final long DEFAULT_WINDOW_SIZE = 1L << 26;
+
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private final long windowSize;
+    private final long fileSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private boolean flushed;
+    private int leftoverChar;
+
+    public MappedFileReader(FileChannel channel, CharsetDecoder decoder, long windowSize) throws IOException {
+        if (windowSize < 4 || windowSize > MappedFiles.MAX_MAPPING_SIZE) {
+            throw new IllegalArgumentException("Bad window size: " + windowSize);
+        }
+        this.channel = channel;
+        this.decoder = decoder;
+        this.windowSize = windowSize;
+        fileSize = channel.size();
+        window = null;
+        windowStart = 0;
+        flushed = false;
+        leftoverChar = -1;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (leftoverChar != -1) {
+            cbuf[off] = (char) leftoverChar;
+            leftoverChar = -1;
+            return 1;
+        }
+        if (len == 1) {
+            // a surrogate pair needs room for two chars
+            char[] pair = new char[2];
+            int read = read(pair, 0, 2);
+            if (read == 2) {
+                leftoverChar = pair[1];
+            }
+            if (read > 0) {
+                cbuf[off] = pair[0];
+            }
+            return read == -1 ? -1 : 1;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (out.position() == off && !flushed) {
+            if (window == null && !mapWindow(windowStart)) {
+                flushed = true;
+                break;
+            }
+            boolean lastWindow = windowStart + window.limit() == fileSize;
+            CoderResult result = decoder.decode(window, out, lastWindow);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isUnderflow() && out.position() == off) {
+                if (lastWindow) {
+                    decoder.flush(out);
+                    flushed = true;
+                } else {
+                    // at most part of a character is left in this window
+                    mapWindow(windowStart + window.position());
+                }
+            }
+        }
+        int read = out.position() - off;
+        return read == 0 ? -1 : read;
+    }
+
+    private boolean mapWindow(long start) throws IOException {
+        if (start >= fileSize) {
+            return false;
+        }
+        long size = Math.min(windowSize, fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.blamedcloud.parsertongue.utility;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads files through FileChannel.map. Streaming parses of a Path read
+// it through a series of mapped windows, so there's no limit on its size.
+// Decoding a whole file from a single mapping (at most 2GB) is slower
+// than Files.readString (see FileReadBenchmark), which parseFile uses.
+public class MappedFiles {
+
+    public static final long MAX_MAPPING_SIZE = Integer.MAX_VALUE;
+
+    private MappedFiles() {}
+
+    public static boolean fitsInOneMapping(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.size() <= MAX_MAPPING_SIZE;
+        }
+    }
+
+    // decodes the whole (UTF-8) file, which must fit in one mapping
+    public static CharBuffer decode(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_MAPPING_SIZE) {
+                throw new IOException("File is too large to map at once: " + path);
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return newDecoder().decode(bytes);
+        }
+    }
+
+    // reads the (UTF-8) file through mapped windows of the given size
+    public static Reader newReader(Path path, long windowSize) throws IOException {
+        return new MappedFileReader(FileChannel.open(path, StandardOpenOption.READ), newDecoder(), windowSize);
+    }
+
+    public static Reader newReader(Path path) throws IOException {
+        return newReader(path, MappedFileReader.DEFAULT_WINDOW_SIZE);
+    }
+
+    // malformed input is an error, as it is for Files.readString
+    private static CharsetDecoder newDecoder() {
+        return StandardCharsets.UTF_8.newDecoder()
+                                     .onMalformedInput(CodingErrorAction.REPORT)
+                                     .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+}
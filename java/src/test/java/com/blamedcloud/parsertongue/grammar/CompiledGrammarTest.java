@@ -0,0 +1,86 @@
+package com.blamedcloud.parsertongue.grammar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
+import com.blamedcloud.parsertongue.parser.Parser;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+public class CompiledGrammarTest {
+
+    private static final int TEST_ITERATIONS = 200;
+    private static final int THREAD_COUNT = 8;
+
+    @Test
+    public void testSnapshot() {
+        Parser parser = Parser.newBuilder(new File("src/test/resources/regexRule.ebnf")).build();
+        parser.setRuleTransform("start", pr -> new StringParseResult("before"));
+        CompiledGrammar compiled = parser.compile();
+
+        // none of these should reach the snapshot
+        parser.setRuleTransform("start", pr -> new StringParseResult("after"));
+        parser.getGrammar().setStart("regex1");
+        parser.setTTL(TokenizerTypeList.getTTLForAlphabet("x"));
+
+        assertEquals("start", compiled.getStartRuleName());
+        ParseResultTransformer result = compiled.parseString("111223333");
+        assertTrue(result.isValid());
+        assertEquals("before", result.getResult().toString());
+        assertFalse(parser.checkString("111223333"));
+    }
+
+    @Test
+    public void testExternal() {
+        List<File> dependentFiles = new ArrayList<>();
+        for (String name : new String[] {"aToNbToN", "aToN", "bMaybe_abStar", "moreBs", "equalABs", "b_aStar_c"}) {
+            dependentFiles.add(new File("src/test/resources/" + name + ".ebnf"));
+        }
+        Parser parser = Parser.newBuilder(new File("src/test/resources/testAllExternal.ebnf")).setDependentGrammarFiles(dependentFiles).build();
+        CompiledGrammar compiled = parser.compile();
+
+        for (String parseString : new String[] {"1aaabbb", "2aaaa", "3bababab", "4bababb", "5bbabaa", "6baac", "1aab", "6bca"}) {
+            assertEquals(parseString, parser.checkString(parseString), compiled.checkString(parseString));
+        }
+    }
+
+    @Test
+    public void testConcurrentParses() throws Exception {
+        Grammar grammar = Grammar.newBuilder(new File("src/test/resources/palindrome.ebnf")).build();
+        Map<String, Boolean> classification = grammar.classifyFirstNStrings(TEST_ITERATIONS);
+        CompiledGrammar compiled = grammar.compile(TokenizerTypeList.getTTLForTerminals(grammar.getAlphabet()), false);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(executor.submit(() -> {
+                    for (Map.Entry<String, Boolean> entry : classification.entrySet()) {
+                        if (compiled.checkString(entry.getKey()) != entry.getValue()) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.blamedcloud.parsertongue.grammar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultException;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+public class DeferredTransformsTest {
+
+    private static final int TEST_ITERATIONS = 200;
+
+    private int calls;
+
+    @Test
+    public void testSameResults() throws Exception {
+        String[] grammarFiles = {"b_aStar_c", "aToNbToN", "equalABs", "moreBs", "matchedParens", "palindrome", "testAllInternal"};
+        GrammarComparison.compare(grammarFiles, TEST_ITERATIONS, (grammar, ttl) -> {
+            for (Rule rule : grammar.getRules()) {
+                // tags each rule's result, so a transformer that was skipped would show
+                String name = rule.lhs().getValue();
+                rule.setTransformer(r -> new StringParseResult(name + r));
+            }
+            return (s, inLanguage, message) -> {
+                for (ParseEngine engine : new ParseEngine[] {ParseEngine.BACKTRACKING, ParseEngine.STACK}) {
+                    grammar.setEngine(engine);
+                    for (PackratMemo memo : new PackratMemo[] {null, new PackratMemo()}) {
+                        grammar.setDeferredTransforms(false);
+                        String expected = parse(grammar, s, ttl, memo).toString();
+                        grammar.setDeferredTransforms(true);
+                        assertEquals("different results for " + message, expected, parse(grammar, s, ttl, memo).toString());
+                    }
+                }
+            };
+        });
+    }
+
+    @Test
+    public void testRejectedParses() throws Exception {
+        Grammar grammar = Grammar.newBuilder(new File("src/test/resources/twoRepeats.ebnf")).build();
+        grammar.setRuleTransformer("as", r -> {
+            calls++;
+            return r;
+        });
+        // only parses that split the a's evenly are accepted
+        grammar.setRuleTransformer("start", r -> {
+            ListParseResult halves = (ListParseResult) r;
+            int first = ((ListParseResult) halves.getValue().get(0)).getValue().size();
+            int second = ((ListParseResult) halves.getValue().get(1)).getValue().size();
+            if (first != second) {
+                throw new ParseResultException("uneven");
+            }
+            return new StringParseResult(first + "+" + second);
+        });
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("a");
+
+        for (ParseEngine engine : new ParseEngine[] {ParseEngine.BACKTRACKING, ParseEngine.STACK}) {
+            grammar.setEngine(engine);
+
+            grammar.setDeferredTransforms(false);
+            calls = 0;
+            assertEquals("4+4", parse(grammar, "aaaaaaaa", ttl, null).getResult().toString());
+            int eagerCalls = calls;
+
+            grammar.setDeferredTransforms(true);
+            calls = 0;
+            assertEquals("4+4", parse(grammar, "aaaaaaaa", ttl, null).getResult().toString());
+            // two for each of the five complete parses tried
+            assertEquals(10, calls);
+            assertTrue(calls < eagerCalls);
+
+            ParseResultTransformer odd = parse(grammar, "aaa", ttl, null);
+            assertEquals("uneven", odd.getError());
+        }
+    }
+
+    private static ParseResultTransformer parse(Grammar grammar, String s, TokenizerTypeList ttl, PackratMemo memo) throws Exception {
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize(s);
+        return memo == null ? grammar.tryParse(tokens) : grammar.tryParse(tokens, memo);
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.blamedcloud.parsertongue.grammar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.expecterator.ParseResultExpecterator;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+public class FirstSetTest {
+
+    @Test
+    public void testCalculator() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/calculator.ebnf");
+
+        FirstSet integer = grammar.getRuleMap().get("integer").getFirstSet();
+        assertEquals(Set.of("-", "0"), integer.getTerminals());
+        assertEquals(1, integer.getRegexTypes().size());
+        assertFalse(integer.isNullable());
+
+        // left corners are followed through every rule
+        FirstSet expr = grammar.getRuleMap().get("expr").getFirstSet();
+        assertEquals(Set.of("-", "0", "("), expr.getTerminals());
+        assertEquals(integer.getRegexTypes(), expr.getRegexTypes());
+
+        // and the nodes of the right hand side have their own sets
+        RHSTree partials = grammar.getRuleMap().get("expr").rhs().getChild(1);
+        assertEquals(RHSType.REPEAT, partials.getType());
+        assertEquals(Set.of("+", "-"), partials.getFirstSet().getTerminals());
+        assertTrue(partials.getFirstSet().isNullable());
+
+        Tokenizer tokens = new Tokenizer(TokenizerTypeList.getTTLForTerminals(grammar.getAlphabet()), true);
+        tokens.tokenize("+");
+        assertTrue(partials.canStart(tokens));
+        assertFalse(grammar.getRuleMap().get("group_expr").rhs().canStart(tokens));
+    }
+
+    @Test
+    public void testNullable() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/moreBs.ebnf");
+
+        assertTrue(grammar.getRuleMap().get("equal").getFirstSet().isNullable());
+        assertEquals(Set.of("a", "b"), grammar.getRuleMap().get("equal").getFirstSet().getTerminals());
+        assertFalse(grammar.getRuleMap().get("onlyB").getFirstSet().isNullable());
+        assertEquals(Set.of("b"), grammar.getRuleMap().get("onlyB").getFirstSet().getTerminals());
+
+        // nothing but a nullable tree can match once the tokens run out
+        Tokenizer tokens = new Tokenizer(TokenizerTypeList.getTTLForAlphabet("ab"), true);
+        tokens.tokenize("");
+        assertTrue(grammar.getRuleMap().get("equal").rhs().canStart(tokens));
+        assertFalse(grammar.getRuleMap().get("onlyB").rhs().canStart(tokens));
+    }
+
+    @Test
+    public void testRegexPrefix() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/regexRule.ebnf");
+        RHSTree regex1 = grammar.getRuleMap().get("regex1").rhs();
+        Tokenizer tokens = new Tokenizer(TokenizerTypeList.getTTLForAlphabet("abcd12"), true);
+
+        // 'a' and 'ab' can start a match of 'ab?c*d{0,3}', 'b' and '1' can't
+        tokens.tokenize("ab");
+        assertTrue(regex1.canStart(tokens));
+        tokens.nextToken();
+        assertFalse(regex1.canStart(tokens));
+        tokens.tokenize("1");
+        assertFalse(regex1.canStart(tokens));
+    }
+
+    @Test
+    public void testSkippedAlternativesError() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/calculator.ebnf");
+        RHSTree integer = grammar.getRuleMap().get("integer").rhs();
+        Tokenizer tokens = new Tokenizer(TokenizerTypeList.getTTLForTerminals(grammar.getAlphabet()), true);
+
+        // no alternative can start with '+', so the error says what could have
+        tokens.tokenize("+");
+        ParseResultExpecterator expecterator = integer.getExpecterator(tokens);
+        assertTrue(expecterator.hasNext());
+        Optional<ParseResultTransformer> result = expecterator.tryNext();
+        assertTrue(result.isPresent());
+        assertFalse(result.get().isValid());
+        assertEquals("ERROR: Expected '-' or '0' or token of type: 'pos_int', got: '+'", result.get().getError());
+        assertFalse(expecterator.hasNext());
+
+        tokens.tokenize("");
+        result = integer.getExpecterator(tokens).tryNext();
+        assertEquals("ERROR: Expected '-' or '0' or token of type: 'pos_int', got: ''", result.get().getError());
+    }
+
+    private Grammar getGrammar(String path) throws Exception {
+        return Grammar.newBuilder(new File(path)).build();
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.blamedcloud.parsertongue.grammar;
+
+import java.io.File;
+import java.util.Map;
+
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+// Compares another way of parsing against the default one, on the first
+// strings of each grammar's language. Each grammar classifies its strings
+// before it is configured, and the comparator it is configured with is
+// then given every string along with its classification.
+public class GrammarComparison {
+
+    public static final String RESOURCES = "src/test/resources/";
+
+    @FunctionalInterface
+    public interface Configurator {
+        Comparator configure(Grammar grammar, TokenizerTypeList ttl) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Comparator {
+        // message names the grammar and the string, for assertions
+        void compare(String input, boolean inLanguage, String message) throws Exception;
+    }
+
+    private GrammarComparison() {}
+
+    public static void compare(String[] grammarFiles, int n, Configurator configurator) throws Exception {
+        for (String grammarFile : grammarFiles) {
+            Grammar grammar = Grammar.newBuilder(new File(RESOURCES + grammarFile + ".ebnf")).build();
+            Map<String, Boolean> classification = grammar.classifyFirstNStrings(n);
+            TokenizerTypeList ttl = TokenizerTypeList.getTTLForTerminals(grammar.getAlphabet());
+            Comparator comparator = configurator.configure(grammar, ttl);
+            for (Map.Entry<String, Boolean> entry : classification.entrySet()) {
+                comparator.compare(entry.getKey(), entry.getValue(), grammarFile + ": " + entry.getKey());
+            }
+        }
+    }
+
+    public static ParseResultTransformer tryParse(Grammar grammar, String input, TokenizerTypeList ttl, PackratMemo memo) throws Exception {
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize(input);
+        return memo == null ? grammar.tryParse(tokens) : grammar.tryParse(tokens, memo);
+    }
+
+}
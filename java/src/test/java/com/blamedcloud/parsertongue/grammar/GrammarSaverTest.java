@@ -23,6 +23,12 @@ public class GrammarSaverTest {
         testGrammar(filePath);
     }
 
+    @Test
+    public void testCutGrammar() throws Exception {
+        String filePath = "src/test/resources/cut.ebnf";
+        testGrammar(filePath);
+    }
+
     private void testGrammar(String filePath) throws Exception {
         Grammar grammar = getGrammar(filePath);
         Tokenizer originalTokens = getTokensFromFile(filePath);
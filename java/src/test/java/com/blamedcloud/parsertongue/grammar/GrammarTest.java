@@ -9,6 +9,7 @@ import java.util.Map;
 
 import org.junit.Test;
 
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
 import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
 import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
 
@@ -158,6 +159,37 @@ public class GrammarTest {
         }
     }
 
+    @Test
+    public void testCut() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/cut.ebnf");
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("abcghijxy");
+
+        for (ParseEngine engine : new ParseEngine[] {ParseEngine.BACKTRACKING, ParseEngine.STACK}) {
+            grammar.setEngine(engine);
+            for (PackratMemo memo : new PackratMemo[] {null, new PackratMemo()}) {
+                assertTrue(isInLanguage(grammar, "ab", ttl, memo));
+                assertTrue(isInLanguage(grammar, "xy", ttl, memo));
+                assertTrue(isInLanguage(grammar, "ghi", ttl, memo));
+
+                assertFalse(isInLanguage(grammar, "ac", ttl, memo));
+                assertFalse(isInLanguage(grammar, "xyy", ttl, memo));
+                assertFalse(isInLanguage(grammar, "ghj", ttl, memo));
+            }
+        }
+
+        // the cuts aren't part of the results
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize("ab");
+        assertEquals("[a, b]", grammar.tryParse(tokens).getResult().toString());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testCutEarley() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/cut.ebnf");
+        grammar.setEngine(ParseEngine.EARLEY);
+        isInLanguage(grammar, "ab", TokenizerTypeList.getTTLForAlphabet("abcghijxy"));
+    }
+
     private int countOccurences(String string, String character) {
         return string.length() - string.replace(character, "").length();
     }
@@ -168,6 +200,15 @@ public class GrammarTest {
         return grammar.isInLanguage(tokens);
     }
 
+    private boolean isInLanguage(Grammar grammar, String input, TokenizerTypeList ttl, PackratMemo memo) throws Exception {
+        if (memo == null) {
+            return isInLanguage(grammar, input, ttl);
+        }
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize(input);
+        return grammar.tryParse(tokens, memo).isValid();
+    }
+
     private Grammar getGrammar(String path) throws Exception {
         return Grammar.newBuilder(new File(path)).build();
     }
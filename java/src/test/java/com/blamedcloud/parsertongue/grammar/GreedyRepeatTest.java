@@ -0,0 +1,67 @@
+package com.blamedcloud.parsertongue.grammar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+public class GreedyRepeatTest {
+
+    private static final int TEST_ITERATIONS = 300;
+
+    @Test
+    public void testSameLanguages() throws Exception {
+        String[] grammarFiles = {"b_aStar_c", "aToNbToN", "bMaybe_abStar", "equalABs", "moreBs", "matchedParens", "palindrome", "palindromeChunks", "twoRepeats", "testAllInternal"};
+        GrammarComparison.compare(grammarFiles, TEST_ITERATIONS, (grammar, ttl) -> {
+            grammar.setGreedyRepeats(true);
+            return (s, inLanguage, message) -> {
+                assertEquals(message, inLanguage, GrammarComparison.tryParse(grammar, s, ttl, null).isValid());
+                assertEquals(message, inLanguage, GrammarComparison.tryParse(grammar, s, ttl, new PackratMemo()).isValid());
+            };
+        });
+    }
+
+    @Test
+    public void testLongestFirst() throws Exception {
+        Grammar grammar = Grammar.newBuilder(new File("src/test/resources/twoRepeats.ebnf")).build();
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("a");
+
+        assertEquals("[[], [a, a, a]]", parse(grammar, "aaa", ttl).getResult().toString());
+        grammar.setGreedyRepeats(true);
+        assertEquals("[[a, a, a], []]", parse(grammar, "aaa", ttl).getResult().toString());
+    }
+
+    @Test
+    public void testLongRepeat() throws Exception {
+        Grammar grammar = Grammar.newBuilder(new File("src/test/resources/b_aStar_c.ebnf")).build();
+        grammar.setGreedyRepeats(true);
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("abc");
+        StringBuilder sb = new StringBuilder("b");
+        for (int i = 0; i < 100000; i++) {
+            sb.append('a');
+        }
+        sb.append('c');
+
+        // one element deep, however many there are
+        ParseResultTransformer result = parse(grammar, sb.toString(), ttl);
+        assertTrue(result.isValid());
+        ListParseResult list = (ListParseResult) result.getResult();
+        ListParseResult group = (ListParseResult) list.getValue().get(1);
+        assertEquals(100000, ((ListParseResult) group.getValue().get(0)).size());
+    }
+
+    private static ParseResultTransformer parse(Grammar grammar, String s, TokenizerTypeList ttl) throws Exception {
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize(s);
+        return grammar.tryParse(tokens);
+    }
+
+}
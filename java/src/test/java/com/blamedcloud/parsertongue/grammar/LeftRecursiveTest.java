@@ -12,6 +12,8 @@ import java.util.Set;
 
 import org.junit.Test;
 
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
 import com.blamedcloud.parsertongue.grammar.transformer.LeftRecursionTransformer;
 import com.blamedcloud.parsertongue.tokenizer.RegexToken;
 import com.blamedcloud.parsertongue.tokenizer.Token;
@@ -135,6 +137,41 @@ public class LeftRecursiveTest {
         assertTrue( isInLanguage(newGrammar, "1123", ttl));
     }
 
+    @Test
+    public void testNativeLeftRecursion() throws Exception {
+        // parsed as is, without the LeftRecursionTransformer
+        Grammar grammar = getGrammar("src/test/resources/leftRecursive/simpleDirect.ebnf");
+        assertTrue(grammar.getStartRule().isLeftRecursive());
+        compareGrammars(grammar, "a+", grammar.getAlphabet());
+
+        grammar = getGrammar("src/test/resources/leftRecursive/complexDirect.ebnf");
+        assertTrue(grammar.getStartRule().isLeftRecursive());
+        assertFalse(grammar.getRuleMap().get("first").isLeftRecursive());
+        compareGrammars(grammar, "((12)|3|a|b)c*", grammar.getAlphabet());
+
+        grammar = getGrammar("src/test/resources/leftRecursive/simpleIndirect.ebnf");
+        assertTrue(grammar.getRuleMap().get("first").isLeftRecursive());
+        compareGrammars(grammar, "a(aa)*", grammar.getAlphabet());
+
+        Grammar original = getGrammar("src/test/resources/leftRecursive/complexIndirect.ebnf");
+        Grammar transformed = new LeftRecursionTransformer(getGrammar("src/test/resources/leftRecursive/complexIndirect.ebnf")).getTransformedGrammar();
+        Set<String> alphabet = original.getAlphabet();
+        assertEquals(transformed.classifyFirstNStrings(TEST_ITERATIONS, alphabet), original.classifyFirstNStrings(TEST_ITERATIONS, alphabet));
+    }
+
+    @Test
+    public void testLeftAssociative() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/leftRecursive/simpleDirect.ebnf");
+        Tokenizer tokens = new Tokenizer(TokenizerTypeList.getTTLForAlphabet("a"), true);
+        tokens.tokenize("aaaa");
+        ParseResultTransformer result = grammar.tryParse(tokens);
+        assertTrue(result.isValid());
+        assertEquals("[[[a, a], a], a]", result.getResult().toString());
+
+        tokens.tokenize("aaaa");
+        assertEquals(result.getResult().toString(), grammar.tryParse(tokens, new PackratMemo()).getResult().toString());
+    }
+
     private boolean isInLanguage(Grammar grammar, String input, TokenizerTypeList ttl) throws Exception {
         Tokenizer tokens = new Tokenizer(ttl, true);
         tokens.tokenize(input);
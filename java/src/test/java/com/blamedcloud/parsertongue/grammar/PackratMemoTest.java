@@ -0,0 +1,85 @@
+package com.blamedcloud.parsertongue.grammar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+public class PackratMemoTest {
+
+    private static final int TEST_ITERATIONS = 200;
+
+    @Test
+    public void testSameLanguage() throws Exception {
+        String[] grammarFiles = {"b_aStar_c", "aToNbToN", "aToNbToN2", "equalABs", "moreBs", "matchedParens", "palindrome"};
+        GrammarComparison.compare(grammarFiles, TEST_ITERATIONS, (grammar, ttl) -> (s, inLanguage, message) -> {
+            assertEquals("incorrect classification of " + message, inLanguage, isInLanguage(grammar, s, ttl, new PackratMemo()));
+        });
+    }
+
+    @Test
+    public void testSameResult() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/moreBs.ebnf");
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("ab");
+
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize("bbaabbab");
+        ParseResultTransformer plain = grammar.tryParse(tokens);
+
+        tokens = new Tokenizer(ttl, true);
+        tokens.tokenize("bbaabbab");
+        ParseResultTransformer memoized = grammar.tryParse(tokens, new PackratMemo());
+
+        assertTrue(plain.isValid());
+        assertTrue(memoized.isValid());
+        assertEquals(plain.getResult().toString(), memoized.getResult().toString());
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/equalABs.ebnf");
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("ab");
+        PackratMemo memo = new PackratMemo();
+
+        assertTrue(isInLanguage(grammar, "abbaabab", ttl, memo));
+        assertTrue(memo.getHits() > 0);
+        assertTrue(memo.getMisses() > 0);
+        assertEquals(0, memo.getEvictions());
+
+        // a new parse starts with an empty memo
+        assertFalse(isInLanguage(grammar, "aab", ttl, memo));
+        assertTrue(memo.getMisses() > 0);
+    }
+
+    @Test
+    public void testBudget() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/equalABs.ebnf");
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("ab");
+        PackratMemo memo = new PackratMemo(4);
+
+        assertTrue(isInLanguage(grammar, "abbaabab", ttl, memo));
+        assertTrue(memo.getEvictions() > 0);
+        assertTrue(memo.getCachedResults() <= 4);
+
+        assertFalse(isInLanguage(grammar, "abbaaba", ttl, memo));
+    }
+
+    private boolean isInLanguage(Grammar grammar, String input, TokenizerTypeList ttl, PackratMemo memo) throws Exception {
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize(input);
+        return grammar.tryParse(tokens, memo).isValid();
+    }
+
+    private Grammar getGrammar(String path) throws Exception {
+        return Grammar.newBuilder(new File(path)).build();
+    }
+
+}
@@ -46,6 +46,20 @@ public class RuleTest {
         assertEquals("that", node.getValue());
     }
 
+    @Test
+    public void copyTest() throws Exception {
+        Tokenizer tokenizer = Grammar.newTokenizer();
+        tokenizer.tokenize("this = 'a' , that");
+
+        Rule rule = new Rule(tokenizer);
+        rule.setAnnotation("toInt . concat");
+
+        Rule copy = rule.copy();
+        assertEquals("this", copy.lhs().getValue());
+        assertEquals(RHSType.CONCATENATION, copy.rhs().getType());
+        assertEquals("toInt . concat", copy.getAnnotation());
+    }
+
     @Test
     public void regexRuleTest() throws Exception {
         Tokenizer tokenizer = Grammar.newTokenizer();
@@ -361,4 +375,27 @@ public class RuleTest {
         assertEquals(terminals, rule.getTerminals());
     }
 
+    @Test
+    public void cutRuleTest() throws Exception {
+        Tokenizer tokenizer = Grammar.newTokenizer();
+        tokenizer.tokenize("this = 'a' , ! , that | other");
+
+        RHSTree rhs = new Rule(tokenizer).rhs();
+        assertEquals(RHSType.ALTERNATION, rhs.getType());
+        assertFalse(rhs.hasCut());
+
+        RHSTree concatenation = rhs.getChild(0);
+        assertEquals(RHSType.CONCATENATION, concatenation.getType());
+        assertEquals(2, concatenation.size());
+        assertEquals(1, concatenation.getCutIndex());
+        assertEquals("that", concatenation.getChild(1).getNode().getValue());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void cutWithoutConcatenationTest() throws Exception {
+        Tokenizer tokenizer = Grammar.newTokenizer();
+        tokenizer.tokenize("this = 'a' | !");
+        new Rule(tokenizer);
+    }
+
 }
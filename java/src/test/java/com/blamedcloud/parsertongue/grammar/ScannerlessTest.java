@@ -0,0 +1,63 @@
+package com.blamedcloud.parsertongue.grammar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.parser.Parser;
+import com.blamedcloud.parsertongue.tokenizer.ScannerlessTokenizer;
+
+public class ScannerlessTest {
+
+    private static final int TEST_ITERATIONS = 300;
+
+    // with single character terminals, scannerless input is the same as tokens
+    @Test
+    public void testSameLanguages() throws Exception {
+        String[] grammarFiles = {"b_aStar_c", "aToNbToN", "bMaybe_abStar", "equalABs", "moreBs", "matchedParens", "palindrome", "twoRepeats", "testAllInternal"};
+        GrammarComparison.compare(grammarFiles, TEST_ITERATIONS, (grammar, ttl) -> (s, inLanguage, message) -> {
+            for (ParseEngine engine : new ParseEngine[] {ParseEngine.BACKTRACKING, ParseEngine.STACK}) {
+                grammar.setEngine(engine);
+                ScannerlessTokenizer tokens = new ScannerlessTokenizer(true);
+                tokens.tokenize(s);
+                assertEquals(message, inLanguage, grammar.tryParse(tokens).isValid());
+            }
+        });
+    }
+
+    @Test
+    public void testCalculator() {
+        Parser tokenized = Parser.newBuilder(new File("src/test/resources/calculator.ebnf")).setIgnoreWhiteSpaceDefault(true).build();
+        Parser scannerless = Parser.newBuilder(new File("src/test/resources/calculator.ebnf")).setIgnoreWhiteSpaceDefault(true).setScannerless(true).build();
+
+        String[] valid = {"1", " 12 + 3 ", "-4*(20 - 3)^2", "((7))/ 100"};
+        for (String s : valid) {
+            ParseResultTransformer result = scannerless.parseString(s);
+            assertTrue(s, result.isValid());
+            assertEquals(s, tokenized.parseString(s).getResult().toString(), result.getResult().toString());
+            assertTrue(s, scannerless.compile().checkString(s));
+        }
+
+        String[] invalid = {"", "1 +", "(2", "01", "1 2"};
+        for (String s : invalid) {
+            assertFalse(s, scannerless.checkString(s));
+        }
+    }
+
+    @Test
+    public void testWhiteSpace() {
+        Parser parser = Parser.newBuilder(new File("src/test/resources/calculator.ebnf")).setScannerless(true).build();
+
+        assertTrue(parser.checkString("1+2"));
+        assertFalse(parser.checkString("1 + 2"));
+        assertTrue(parser.checkString(" 1 + 2\n", true));
+        // white space is only skipped before a terminal or regex, not inside one
+        assertFalse(parser.checkString("1 2 + 3", true));
+    }
+
+}
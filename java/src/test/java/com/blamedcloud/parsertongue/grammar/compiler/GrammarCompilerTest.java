@@ -0,0 +1,58 @@
+package com.blamedcloud.parsertongue.grammar.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.GrammarComparison;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultException;
+import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
+import com.blamedcloud.parsertongue.parser.Parser;
+
+public class GrammarCompilerTest {
+
+    private static final int TEST_ITERATIONS = 200;
+
+    @Test
+    public void testSameResults() throws Exception {
+        String[] grammarFiles = {"b_aStar_c", "aToN", "aToNbToN", "aToNbToN2", "bMaybe_abStar", "equalABs", "moreBs", "matchedParens", "palindrome", "palindromeChunks", "testAllInternal"};
+        GrammarComparison.compare(grammarFiles, TEST_ITERATIONS, (grammar, ttl) -> {
+            CompiledParser compiled = GrammarCompiler.compile(grammar, ttl, true);
+            return (s, inLanguage, message) -> {
+                String expected = GrammarComparison.tryParse(grammar, s, ttl, null).toString();
+                assertEquals("different results for " + message, expected, compiled.parseString(s).toString());
+            };
+        });
+    }
+
+    @Test
+    public void testTransformers() {
+        Parser parser = Parser.newBuilder(new File("src/test/resources/b_aStar_c.ebnf")).build();
+        parser.setRuleTransform("start", r -> {
+            ListParseResult as = (ListParseResult) ((ListParseResult) ((ListParseResult) r).getValue().get(1)).getValue().get(0);
+            if (as.getValue().size() > 3) {
+                throw new ParseResultException("too many a's");
+            }
+            return new StringParseResult(String.valueOf(as.getValue().size()));
+        });
+        CompiledParser compiled = GrammarCompiler.compile(parser);
+        // changes to the parser after compiling don't matter
+        parser.setRuleTransform("start", r -> r);
+
+        assertEquals("2", compiled.parseString("baac").getResult().toString());
+        assertEquals("too many a's", compiled.parseString("baaaac").getError());
+        assertFalse(compiled.checkString("bac b"));
+        assertTrue(compiled.getSource().contains("\"c\".equals(tokens[pos])"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLeftRecursive() {
+        GrammarCompiler.compile(Parser.newBuilder(new File("src/test/resources/leftRecursive/simpleDirect.ebnf")).build());
+    }
+
+}
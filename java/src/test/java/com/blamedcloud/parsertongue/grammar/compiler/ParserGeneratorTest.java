@@ -0,0 +1,95 @@
+package com.blamedcloud.parsertongue.grammar.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.blamedcloud.parsertongue.grammar.annotations.AnnotationManager;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultFunction;
+import com.blamedcloud.parsertongue.grammar.result.StringParseResult;
+import com.blamedcloud.parsertongue.parser.Parser;
+
+public class ParserGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAnnotations() throws Exception {
+        Parser parser = Parser.newBuilder(new File("src/test/resources/calculatorAnnotations.ebnf"))
+                              .setIgnoreWhiteSpaceDefault(true)
+                              .setAnnotationManager(AnnotationManager.getDefaultManager())
+                              .build();
+        try (URLClassLoader loader = generate(parser, "Calculator")) {
+            Class<?> generated = loader.loadClass("generated.parsers.Calculator");
+            Object calculator = generated.getConstructor(AnnotationManager.class).newInstance(AnnotationManager.getDefaultManager());
+
+            for (String s : new String[] {"105", "-561", "0", "01", "- 7", "7 +"}) {
+                assertEquals(s, parser.parseString(s).toString(), parseString(calculator, s));
+            }
+
+            ParseResultFunction f = r -> new StringParseResult("zero");
+            parser.setRuleTransform("zero", f);
+            generated.getMethod("setRuleTransform", String.class, ParseResultFunction.class).invoke(calculator, "zero", f);
+            assertEquals(parser.parseString("0").toString(), parseString(calculator, "0"));
+            assertTrue(parseString(calculator, "0").contains("zero"));
+        }
+    }
+
+    @Test
+    public void testExternal() throws Exception {
+        List<File> dependentFiles = new ArrayList<>();
+        for (String name : new String[] {"aToNbToN", "aToN", "bMaybe_abStar", "moreBs", "equalABs", "b_aStar_c"}) {
+            dependentFiles.add(new File("src/test/resources/" + name + ".ebnf"));
+        }
+        Parser parser = Parser.newBuilder(new File("src/test/resources/testAllExternal.ebnf")).setDependentGrammarFiles(dependentFiles).build();
+        try (URLClassLoader loader = generate(parser, "AllExternal")) {
+            Object allExternal = loader.loadClass("generated.parsers.AllExternal").getConstructor().newInstance();
+
+            for (String s : new String[] {"1aaabbb", "2aaaa", "3bababab", "4bababb", "5bbabaa", "6baac", "1aab", "6bca"}) {
+                assertEquals(s, parser.parseString(s).toString(), parseString(allExternal, s));
+            }
+        }
+    }
+
+    private static String parseString(Object generated, String s) throws Exception {
+        return generated.getClass().getMethod("parseString", String.class).invoke(generated, s).toString();
+    }
+
+    // writes and compiles the parser's sources into the temporary folder,
+    // and returns a loader for them
+    private URLClassLoader generate(Parser parser, String className) throws Exception {
+        Path directory = folder.newFolder("generated").toPath();
+        List<Path> files = ParserGenerator.write(parser, directory, "generated.parsers", className);
+        assertEquals(2, files.size());
+
+        List<String> args = new ArrayList<>();
+        args.add("-classpath");
+        args.add(System.getProperty("java.class.path"));
+        args.add("-d");
+        args.add(directory.toString());
+        for (Path file : files) {
+            assertTrue(Files.exists(file));
+            args.add(file.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, args.toArray(new String[0])));
+
+        return new URLClassLoader(new URL[] {directory.toUri().toURL()}, ParserGeneratorTest.class.getClassLoader());
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.blamedcloud.parsertongue.grammar.earley;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.grammar.GrammarComparison;
+import com.blamedcloud.parsertongue.grammar.ParseEngine;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.parser.Parser;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+public class EarleyParserTest {
+
+    private static final int TEST_ITERATIONS = 200;
+
+    @Test
+    public void testSameLanguage() throws Exception {
+        String[] grammarFiles = {"b_aStar_c", "aToNbToN", "aToNbToN2", "equalABs", "moreBs", "matchedParens", "palindrome", "leftRecursive/complexIndirect"};
+        GrammarComparison.compare(grammarFiles, TEST_ITERATIONS, (grammar, ttl) -> {
+            grammar.setEngine(ParseEngine.EARLEY);
+            return (s, inLanguage, message) -> {
+                assertEquals("incorrect classification of " + message, inLanguage, tryParse(grammar, s, ttl).isValid());
+            };
+        });
+    }
+
+    @Test
+    public void testSameResults() throws Exception {
+        String[] grammarFiles = {"b_aStar_c", "aToNbToN", "matchedParens", "palindrome", "testAllInternal"};
+        GrammarComparison.compare(grammarFiles, TEST_ITERATIONS, (grammar, ttl) -> (s, inLanguage, message) -> {
+            if (!inLanguage) {
+                // the errors aren't the same
+                return;
+            }
+            grammar.setEngine(ParseEngine.BACKTRACKING);
+            String expected = tryParse(grammar, s, ttl).toString();
+            grammar.setEngine(ParseEngine.EARLEY);
+            assertEquals("different results for " + message, expected, tryParse(grammar, s, ttl).toString());
+        });
+    }
+
+    @Test
+    public void testAmbiguous() throws Exception {
+        // every split of this is a parse, far too many to backtrack through
+        Grammar grammar = getGrammar("src/test/resources/equalABs.ebnf");
+        grammar.setEngine(ParseEngine.EARLEY);
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("ab");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            sb.append("abba");
+        }
+        assertTrue(tryParse(grammar, sb.toString(), ttl).isValid());
+        sb.append("a");
+        assertFalse(tryParse(grammar, sb.toString(), ttl).isValid());
+
+        // left recursion needs no special handling
+        grammar = getGrammar("src/test/resources/leftRecursive/simpleDirect.ebnf");
+        grammar.setEngine(ParseEngine.EARLEY);
+        assertEquals("[[[a, a], a], a]", tryParse(grammar, "aaaa", TokenizerTypeList.getTTLForAlphabet("a")).getResult().toString());
+    }
+
+    @Test
+    public void testRegexRules() {
+        Parser parser = Parser.newBuilder(new File("src/test/resources/regexRule.ebnf")).setEngine(ParseEngine.EARLEY).build();
+        assertEquals(ParseEngine.EARLEY, parser.getGrammar().getEngine());
+
+        assertTrue(parser.checkString("a"));
+        assertTrue(parser.checkString("abccccd"));
+        assertTrue(parser.checkString("acddd"));
+        assertFalse(parser.checkString("abcdddd"));
+
+        assertTrue(parser.checkString("111223333"));
+        assertFalse(parser.checkString("1221"));
+        assertEquals("111223333", parser.parseString("111223333").getResult().toString());
+    }
+
+    private ParseResultTransformer tryParse(Grammar grammar, String input, TokenizerTypeList ttl) throws Exception {
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize(input);
+        return grammar.tryParse(tokens);
+    }
+
+    private Grammar getGrammar(String path) throws Exception {
+        return Grammar.newBuilder(new File(path)).build();
+    }
+
+}
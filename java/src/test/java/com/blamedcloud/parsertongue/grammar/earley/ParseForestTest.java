@@ -0,0 +1,89 @@
+package com.blamedcloud.parsertongue.grammar.earley;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+public class ParseForestTest {
+
+    @Test
+    public void testCountParses() throws Exception {
+        // a string of n a's has catalan(n - 1) parses
+        Grammar grammar = getGrammar("src/test/resources/catalan.ebnf");
+        BigInteger catalan = BigInteger.ONE;
+        for (int n = 1; n <= 60; n++) {
+            ParseForest forest = parseForest(grammar, "a".repeat(n), "a");
+            assertTrue(forest.isValid());
+            assertEquals("wrong count for " + n, catalan, forest.countParses());
+            // catalan(n) = catalan(n - 1) * 2(2n - 1) / (n + 1)
+            catalan = catalan.multiply(BigInteger.valueOf(2 * (2 * n - 1))).divide(BigInteger.valueOf(n + 1));
+        }
+
+        ParseForest forest = parseForest(grammar, "aab", "ab");
+        assertFalse(forest.isValid());
+        assertEquals(BigInteger.ZERO, forest.countParses());
+    }
+
+    @Test
+    public void testPickParses() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/catalan.ebnf");
+        ParseForest forest = parseForest(grammar, "aaaa", "a");
+        assertEquals(BigInteger.valueOf(5), forest.countParses());
+        Set<String> parses = forest.parses().map(ParseResult::toString).collect(Collectors.toSet());
+        assertEquals(5, parses.size());
+        assertTrue(parses.contains("[a, [a, [a, a]]]"));
+        assertTrue(parses.contains("[[[a, a], a], a]"));
+        assertTrue(parses.contains("[[a, a], [a, a]]"));
+
+        // one parse out of a huge number, without building the rest
+        forest = parseForest(grammar, "a".repeat(200), "a");
+        BigInteger last = forest.countParses().subtract(BigInteger.ONE);
+        String rightmost = forest.getParse(last).getResult().toString();
+        assertTrue(rightmost.startsWith("[[[[") || rightmost.startsWith("[a, [a, "));
+        assertEquals(3, forest.parses().limit(3).count());
+    }
+
+    @Test
+    public void testSameAsEarley() throws Exception {
+        String[] grammarFiles = {"b_aStar_c", "aToNbToN", "matchedParens", "palindrome", "equalABs"};
+        for (String grammarFile : grammarFiles) {
+            Grammar grammar = getGrammar("src/test/resources/" + grammarFile + ".ebnf");
+            TokenizerTypeList ttl = TokenizerTypeList.getTTLForTerminals(grammar.getAlphabet());
+            for (Map.Entry<String, Boolean> entry : grammar.classifyFirstNStrings(100).entrySet()) {
+                String s = entry.getKey();
+                boolean valid = entry.getValue();
+                Tokenizer tokens = new Tokenizer(ttl, true);
+                tokens.tokenize(s);
+                ParseForest forest = grammar.parseForest(tokens);
+                assertEquals("different classification for " + s + " in " + grammarFile, valid, forest.isValid());
+                if (valid) {
+                    assertEquals(forest.countParses().longValue(), forest.parses().map(ParseResult::toString).distinct().count());
+                }
+            }
+        }
+    }
+
+    private ParseForest parseForest(Grammar grammar, String input, String alphabet) throws Exception {
+        Tokenizer tokens = new Tokenizer(TokenizerTypeList.getTTLForAlphabet(alphabet), true);
+        tokens.tokenize(input);
+        return grammar.parseForest(tokens);
+    }
+
+    private Grammar getGrammar(String path) throws Exception {
+        return Grammar.newBuilder(new File(path)).build();
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.blamedcloud.parsertongue.grammar.predictive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+public class PredictiveTableTest {
+
+    @Test
+    public void testLL1Rules() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/matchedParens.ebnf");
+        PredictiveTable table = grammar.getPredictiveTable();
+        assertTrue(table.isLL1(grammar.getRuleMap().get("start")));
+        assertTrue(table.isLL1(grammar.getRuleMap().get("matched")));
+
+        // both alternatives start with 'a'
+        grammar = getGrammar("src/test/resources/aToN2.ebnf");
+        assertFalse(grammar.getPredictiveTable().isLL1(grammar.getRuleMap().get("start")));
+
+        // rules that reach a regex never are
+        grammar = getGrammar("src/test/resources/calculator.ebnf");
+        table = grammar.getPredictiveTable();
+        assertTrue(table.isLL1(grammar.getRuleMap().get("zero")));
+        assertFalse(table.isLL1(grammar.getRuleMap().get("integer")));
+        assertFalse(table.isLL1(grammar.getRuleMap().get("expr")));
+    }
+
+    @Test
+    public void testConflicts() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/moreBs.ebnf");
+        PredictiveTable table = grammar.getPredictiveTable();
+        assertTrue(table.isLL1(grammar.getRuleMap().get("A")));
+        assertTrue(table.isLL1(grammar.getRuleMap().get("B")));
+        // two alternatives start with A
+        assertFalse(table.isLL1(grammar.getRuleMap().get("start")));
+        // '' is taken on anything else, but 'a' and 'b' can also follow equal
+        assertFalse(table.isLL1(grammar.getRuleMap().get("equal")));
+    }
+
+    @Test
+    public void testSameResults() throws Exception {
+        String[] grammars = {"matchedParens", "palindrome", "moreBs", "b_aStar_c", "aToNbToN", "testAllInternal"};
+        for (String name : grammars) {
+            Grammar grammar = getGrammar("src/test/resources/" + name + ".ebnf");
+            Map<String, Boolean> predictive = grammar.classifyFirstNStrings(200);
+            grammar.setPredictiveParsing(false);
+            assertEquals(grammar.classifyFirstNStrings(200), predictive);
+
+            TokenizerTypeList ttl = TokenizerTypeList.getTTLForTerminals(grammar.getAlphabet());
+            for (String s : predictive.keySet()) {
+                Tokenizer tokens = new Tokenizer(ttl, true);
+                tokens.tokenize(s);
+                grammar.setPredictiveParsing(false);
+                String expected = grammar.tryParse(tokens).toString();
+                tokens.tokenize(s);
+                grammar.setPredictiveParsing(true);
+                assertEquals(expected, grammar.tryParse(tokens).toString());
+            }
+        }
+    }
+
+    private Grammar getGrammar(String path) throws Exception {
+        return Grammar.newBuilder(new File(path)).build();
+    }
+
+}
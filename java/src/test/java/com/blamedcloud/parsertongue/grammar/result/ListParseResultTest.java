@@ -0,0 +1,87 @@
+package com.blamedcloud.parsertongue.grammar.result;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.grammar.ParseEngine;
+import com.blamedcloud.parsertongue.grammar.compiler.GrammarCompiler;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+public class ListParseResultTest {
+
+    @Test
+    public void testPrepend() {
+        ListParseResult rest = new ListParseResult(new StringParseResult("c"));
+        ListParseResult bc = rest.prepend(new StringParseResult("b"));
+        ListParseResult abc = bc.prepend(new StringParseResult("a"));
+        ListParseResult xbc = bc.prepend(new StringParseResult("x"));
+
+        assertEquals("[c]", rest.toString());
+        assertEquals("[b, c]", bc.toString());
+        assertEquals("[a, b, c]", abc.toString());
+        assertEquals("[x, b, c]", xbc.toString());
+        assertEquals(3, abc.size());
+        assertSame(abc.getValue().get(1), xbc.getValue().get(1));
+    }
+
+    @Test
+    public void testChangesAreNotShared() {
+        ListParseResult bc = new ListParseResult(new StringParseResult("c")).prepend(new StringParseResult("b"));
+        ListParseResult abc = bc.prepend(new StringParseResult("a"));
+
+        bc.add(new StringParseResult("d"));
+        abc.getValue().set(0, new StringParseResult("z"));
+        assertEquals("[b, c, d]", bc.toString());
+        assertEquals("[z, b, c]", abc.toString());
+
+        // lists made from a changed list see it as it was then
+        ListParseResult abcd = bc.prepend(new StringParseResult("a"));
+        bc.getValue().clear();
+        assertEquals("[a, b, c, d]", abcd.toString());
+        assertEquals(0, bc.size());
+    }
+
+    @Test
+    public void testCopy() {
+        ListParseResult inner = new ListParseResult(new StringParseResult("b"));
+        ListParseResult outer = inner.prepend(new StringParseResult("a")).prepend(inner);
+        ListParseResult copy = outer.copy();
+
+        inner.add(new StringParseResult("c"));
+        assertEquals("[[b, c], a, b]", outer.toString());
+        assertEquals("[[b], a, b]", copy.toString());
+    }
+
+    // each parse tried gets its own copy of the first half, so marking it
+    // doesn't show up in the parses tried after it
+    @Test
+    public void testTransformersCanChangeTheirResults() throws Exception {
+        Grammar grammar = Grammar.newBuilder(new File("src/test/resources/twoRepeats.ebnf")).build();
+        grammar.setRuleTransformer("start", r -> {
+            ListParseResult halves = (ListParseResult) r;
+            ListParseResult first = (ListParseResult) halves.getValue().get(0);
+            first.add(new StringParseResult("x"));
+            ListParseResult second = (ListParseResult) halves.getValue().get(1);
+            if (second.size() < 2) {
+                throw new ParseResultException("too short");
+            }
+            return new StringParseResult(first + "+" + second);
+        });
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("a");
+
+        for (ParseEngine engine : new ParseEngine[] {ParseEngine.BACKTRACKING, ParseEngine.STACK}) {
+            grammar.setEngine(engine);
+            Tokenizer tokens = new Tokenizer(ttl, true);
+            tokens.tokenize("aaa");
+            assertEquals(engine.toString(), "[x]+[a, a, a]", grammar.tryParse(tokens).getResult().toString());
+        }
+        assertEquals("[x]+[a, a, a]", GrammarCompiler.compile(grammar, ttl, true).parseString("aaa").getResult().toString());
+    }
+
+}
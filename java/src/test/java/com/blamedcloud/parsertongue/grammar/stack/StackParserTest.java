@@ -0,0 +1,77 @@
+package com.blamedcloud.parsertongue.grammar.stack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.Grammar;
+import com.blamedcloud.parsertongue.grammar.GrammarComparison;
+import com.blamedcloud.parsertongue.grammar.ParseEngine;
+import com.blamedcloud.parsertongue.grammar.expecterator.PackratMemo;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.Tokenizer;
+import com.blamedcloud.parsertongue.tokenizer.TokenizerTypeList;
+
+public class StackParserTest {
+
+    private static final int TEST_ITERATIONS = 200;
+
+    @Test
+    public void testSameResults() throws Exception {
+        String[] grammarFiles = {"b_aStar_c", "aToN", "aToNbToN", "aToNbToN2", "bMaybe_abStar", "equalABs", "moreBs", "matchedParens", "palindrome", "palindromeChunks", "testAllInternal", "leftRecursive/complexIndirect"};
+        for (boolean predictive : new boolean[] {true, false}) {
+            GrammarComparison.compare(grammarFiles, TEST_ITERATIONS, (grammar, ttl) -> {
+                grammar.setPredictiveParsing(predictive);
+                return (s, inLanguage, message) -> {
+                    grammar.setEngine(ParseEngine.BACKTRACKING);
+                    String expected = tryParse(grammar, s, ttl).toString();
+                    grammar.setEngine(ParseEngine.STACK);
+                    assertEquals("different results for " + message, expected, tryParse(grammar, s, ttl).toString());
+                };
+            });
+        }
+    }
+
+    @Test
+    public void testPackrat() throws Exception {
+        Grammar grammar = getGrammar("src/test/resources/leftRecursive/simpleDirect.ebnf");
+        grammar.setEngine(ParseEngine.STACK);
+        Tokenizer tokens = new Tokenizer(TokenizerTypeList.getTTLForAlphabet("a"), true);
+        tokens.tokenize("aaaa");
+        assertEquals("[[[a, a], a], a]", grammar.tryParse(tokens, new PackratMemo()).getResult().toString());
+    }
+
+    @Test
+    public void testLongInput() throws Exception {
+        // one nested expecterator per repetition would overflow the stack long before this
+        Grammar grammar = getGrammar("src/test/resources/b_aStar_c.ebnf");
+        grammar.setPredictiveParsing(false);
+        grammar.setEngine(ParseEngine.STACK);
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("abc");
+        String as = "a".repeat(200000);
+
+        ParseResultTransformer result = tryParse(grammar, "b" + as + "c", ttl);
+        assertTrue(result.isValid());
+        ListParseResult list = (ListParseResult) result.getResult();
+        ListParseResult repeat = (ListParseResult) ((ListParseResult) list.getValue().get(1)).getValue().get(0);
+        assertEquals(200000, repeat.getValue().size());
+
+        assertFalse(tryParse(grammar, "b" + as + "b", ttl).isValid());
+    }
+
+    private ParseResultTransformer tryParse(Grammar grammar, String input, TokenizerTypeList ttl) throws Exception {
+        Tokenizer tokens = new Tokenizer(ttl, true);
+        tokens.tokenize(input);
+        return grammar.tryParse(tokens);
+    }
+
+    private Grammar getGrammar(String path) throws Exception {
+        return Grammar.newBuilder(new File(path)).build();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.blamedcloud.parsertongue.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.blamedcloud.parsertongue.grammar.result.IntParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ListParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+
+public class IncrementalParseTest {
+
+    @Test
+    public void testSameResults() {
+        Parser parser = Parser.newBuilder(new File("src/test/resources/calculator.ebnf")).setIgnoreWhiteSpaceDefault(true).build();
+        String alphabet = "0123+-*() ";
+        Random random = new Random(5);
+        IncrementalParse parse = parser.parseIncrementally("1 + (2 * 3) - 4 * (5 + 6)");
+        for (int i = 0; i < 1000; i++) {
+            String text = parse.getText().toString();
+            int offset = random.nextInt(text.length() + 1);
+            int deleted = random.nextInt(Math.min(2, text.length() - offset) + 1);
+            String inserted = random.nextBoolean() ? "" : String.valueOf(alphabet.charAt(random.nextInt(alphabet.length())));
+
+            ParseResultTransformer result = parse.edit(offset, deleted, inserted);
+            String edited = text.substring(0, offset) + inserted + text.substring(offset + deleted);
+            assertEquals(edited, parse.getText().toString());
+            ParseResultTransformer expected = parser.parseString(edited);
+            assertEquals(edited, expected.isValid(), result.isValid());
+            if (expected.isValid()) {
+                assertEquals(edited, expected.getResult().toString(), result.getResult().toString());
+            }
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        Parser parser = Parser.newBuilder(new File("src/test/resources/calculator.ebnf")).setIgnoreWhiteSpaceDefault(true).build();
+        parser.setRuleTransform("pos_int", i -> new IntParseResult(i.toString()));
+        parser.setRuleTransform("expr", IncrementalParseTest::sum);
+
+        StringBuilder sb = new StringBuilder("1");
+        for (int i = 0; i < 500; i++) {
+            sb.append(" + 1");
+        }
+        IncrementalParse parse = parser.parseIncrementally(sb.toString());
+        assertEquals("501", parse.getResult().getResult().toString());
+        long fullMisses = parse.getMemo().getMisses();
+
+        // 1 + ... + 1 + 1 + ... -> 1 + ... + 1 + 21 + ...
+        parse.edit(1000, 0, "2");
+        assertEquals("521", parse.getResult().getResult().toString());
+        assertTrue(parse.getMemo().getMisses() * 10 < fullMisses);
+
+        parse.edit(1000, 2, "(1");
+        assertFalse(parse.getResult().isValid());
+        parse.edit(parse.getText().length(), 0, ")");
+        assertEquals("501", parse.getResult().getResult().toString());
+    }
+
+    // 1 + (1 + ...) + ... as an IntParseResult
+    private static ParseResult sum(ParseResult pr) {
+        ListParseResult list = ListParseResult.flattenList(pr);
+        int total = 0;
+        for (ParseResult element : list.getValue()) {
+            String value = element.toString();
+            if (Character.isDigit(value.charAt(0))) {
+                total += Integer.parseInt(value);
+            }
+        }
+        return new IntParseResult(Integer.toString(total));
+    }
+
+}
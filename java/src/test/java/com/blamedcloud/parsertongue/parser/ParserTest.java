@@ -1,16 +1,32 @@
 package com.blamedcloud.parsertongue.parser;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.blamedcloud.parsertongue.grammar.result.ParseResult;
+import com.blamedcloud.parsertongue.grammar.result.ParseResultTransformer;
+import com.blamedcloud.parsertongue.tokenizer.StreamingTokenizer;
 
 public class ParserTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testAllExternal() {
 
@@ -65,4 +81,91 @@ public class ParserTest {
         assertFalse(parser.checkString("13"));
     }
 
+    @Test
+    public void testStreaming() throws Exception {
+
+        File grammarFile = new File("src/test/resources/logLines.ebnf");
+        Parser parser = Parser.newBuilder(grammarFile).setIgnoreWhiteSpaceDefault(true).build();
+
+        String log = "INFO: starting up;\nWARN: disk almost full;\nERROR: disk full;\nINFO: ;\n";
+        ParseResultTransformer result = parser.parse(new StringReader(log));
+        assertTrue(result.isValid());
+        assertEquals(parser.parseString(log).getResult().toString(), result.getResult().toString());
+
+        List<ParseResult> entries = new ArrayList<>();
+        assertTrue(parser.parse(new StringReader(log), entries::add).isValid());
+        assertEquals(4, entries.size());
+
+        Path logFile = folder.newFile().toPath();
+        Files.writeString(logFile, log);
+        assertEquals(result.getResult().toString(), parser.parse(logFile).getResult().toString());
+        assertEquals(result.getResult().toString(), parser.parseFile(logFile.toFile()).getResult().toString());
+
+        assertTrue(parser.check(new StringReader("")));
+        assertFalse(parser.check(new StringReader("INFO: missing end")));
+        assertFalse(parser.check(new StringReader("DEBUG: unknown level;")));
+    }
+
+    @Test
+    public void testStreamingMemory() throws Exception {
+
+        File grammarFile = new File("src/test/resources/logLines.ebnf");
+        Parser parser = Parser.newBuilder(grammarFile).build();
+
+        int entryCount = 20000;
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < entryCount; i++) {
+            log.append("INFO: all is well;\n");
+        }
+
+        StreamingTokenizer tokens = new StreamingTokenizer(new StringReader(log.toString()), parser.getTTL(), true);
+        int[] maxRetained = {0};
+        ParseResultTransformer result = parser.getGrammar().tryParseStreaming(tokens, r -> {
+            maxRetained[0] = Math.max(maxRetained[0], tokens.retainedSize());
+        });
+        assertTrue(result.isValid());
+        assertEquals(entryCount * 6, tokens.size());
+        assertTrue(maxRetained[0] < 100);
+    }
+
+    @Test
+    public void testParseAll() throws Exception {
+
+        File grammarFile = new File("src/test/resources/regexRule.ebnf");
+        Parser parser = Parser.newBuilder(grammarFile).build();
+
+        List<String> parseStrings = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            parseStrings.add(i % 3 == 0 ? "ba" : "abccccd");
+        }
+
+        BatchResult batch = parser.parseAll(parseStrings);
+        assertEquals(parseStrings.size(), batch.size());
+        for (int i = 0; i < parseStrings.size(); i++) {
+            assertEquals(parser.checkString(parseStrings.get(i)), batch.get(i).isValid());
+        }
+        assertEquals(333, batch.getValidCount());
+        assertFalse(batch.allValid());
+        assertTrue(batch.getElapsedNanos() > 0);
+        assertTrue(batch.getMinLatencyNanos() <= batch.getLatencyPercentileNanos(50));
+        assertTrue(batch.getLatencyPercentileNanos(50) <= batch.getMaxLatencyNanos());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            parser.setBatchExecutor(executor);
+            Path validFile = folder.newFile().toPath();
+            Files.writeString(validFile, "111223333");
+            Path invalidFile = folder.newFile().toPath();
+            Files.writeString(invalidFile, "1221");
+
+            batch = parser.parseAll(Stream.of(validFile, invalidFile, validFile));
+            assertTrue(batch.get(0).isValid());
+            assertFalse(batch.get(1).isValid());
+            assertTrue(batch.get(2).isValid());
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
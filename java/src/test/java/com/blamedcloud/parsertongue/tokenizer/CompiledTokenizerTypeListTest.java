@@ -0,0 +1,151 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CompiledTokenizerTypeListTest {
+
+    @Test
+    public void firstExactMatchTest() {
+        TokenizerTypeList ttl = new TokenizerTypeList();
+        ttl.add(new ExactToken("ab", "ab"));
+        ttl.add(new ExactToken("a", "a"));
+        ttl.add(new ExactToken("abc", "abc"));
+        CompiledTokenizerTypeList compiled = ttl.compile();
+
+        assertEquals(0, compiled.firstExactMatch("abc", 0, 3));
+        assertEquals(1, compiled.firstExactMatch("ac", 0, 2));
+        assertEquals(-1, compiled.firstExactMatch("bc", 0, 2));
+        assertEquals(-1, compiled.firstExactMatch("xabc", 0, 4));
+        assertEquals(0, compiled.firstExactMatch("xabc", 1, 4));
+        assertEquals(1, compiled.firstExactMatch("abc", 0, 1));
+    }
+
+    @Test
+    public void listOrderTest() throws Exception {
+        TokenizerTypeList exactFirst = new TokenizerTypeList();
+        exactFirst.add(new ExactToken("a", "a"));
+        exactFirst.add(new RegexToken("word", "[a-z]+"));
+
+        Tokenizer tokenizer = new Tokenizer(exactFirst, true);
+        tokenizer.tokenize("abc ab");
+        assertEquals(list("a", "bc", "a", "b"), values(tokenizer));
+
+        TokenizerTypeList regexFirst = new TokenizerTypeList();
+        regexFirst.add(new RegexToken("word", "[a-z]+"));
+        regexFirst.add(new ExactToken("a", "a"));
+
+        tokenizer = new Tokenizer(regexFirst, true);
+        tokenizer.tokenize("abc ab");
+        assertEquals(list("abc", "ab"), values(tokenizer));
+    }
+
+    @Test
+    public void matchedTokensTest() throws Exception {
+        // a token is whatever its type matched in the text, which a
+        // lookahead means isn't quite what it matches on its own
+        TokenizerTypeList ttl = new TokenizerTypeList();
+        ttl.add(new RegexToken("aBeforeB", "a(?=b)"));
+        ttl.add(new ExactToken("b", "b"));
+
+        Tokenizer tokenizer = new Tokenizer(ttl, false);
+        tokenizer.tokenize("abab");
+        assertEquals(list("a", "b", "a", "b"), values(tokenizer));
+        assertEquals("aBeforeB", tokenizer.getFirstToken().getType().getName());
+        List<Tokenizer> split = tokenizer.splitTokensOn(tokenizer.getLastToken());
+        assertEquals(2, split.size());
+        assertEquals(list("a"), values(split.get(1)));
+
+        try {
+            new Token("a", ttl.get("aBeforeB"));
+            fail("Tokens made directly are checked against their types");
+        } catch (RuntimeException e) {
+            assertEquals("Token 'a' is not of type 'aBeforeB'!", e.getMessage());
+        }
+    }
+
+    @Test
+    public void exactIdTest() throws Exception {
+        TokenizerTypeList ttl = new TokenizerTypeList();
+        ttl.add(new ExactToken("if", "if"));
+        ttl.add(new RegexToken("quoted", "'([a-z]*)'"));
+        ttl.add(new RegexToken("word", "[a-z]+"));
+        ttl.add(new ExactToken("alsoIf", "if"));
+        ttl.add(new ExactToken("x", "x"));
+        CompiledTokenizerTypeList compiled = ttl.compile();
+
+        assertEquals(compiled.getExactId(0), compiled.getExactId(3));
+        assertEquals(compiled.getExactId(0), compiled.getExactId("if"));
+        assertEquals(compiled.getExactId(4), compiled.getExactId("x"));
+        assertEquals(-1, compiled.getExactId(1));
+        assertEquals(-1, compiled.getExactId("word"));
+
+        Tokenizer tokenizer = new Tokenizer(ttl, true);
+        tokenizer.tokenize("if 'if' fizz x");
+        assertEquals(list("if", "if", "fizz", "x"), values(tokenizer));
+        assertEquals(compiled, tokenizer.getTokenTypes());
+
+        tokenizer.setIndex(0);
+        assertEquals(compiled.getExactId("if"), tokenizer.currentExactId());
+        tokenizer.setIndex(1);
+        assertEquals(-1, tokenizer.currentExactId());
+        assertTrue(tokenizer.currentValueEquals("if"));
+        assertFalse(tokenizer.currentValueEquals("'if'"));
+        tokenizer.setIndex(2);
+        assertTrue(tokenizer.currentValueEquals("fizz"));
+        assertFalse(tokenizer.currentValueEquals("fiz"));
+        assertEquals(8, tokenizer.currentToken().getStart());
+    }
+
+    @Test
+    public void recompileTest() throws Exception {
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForAlphabet("ab");
+        Tokenizer tokenizer = new Tokenizer(ttl, false);
+        tokenizer.tokenize("abab");
+        assertEquals(4, tokenizer.size());
+
+        ttl.add(new ExactToken("c", "c"));
+        tokenizer.tokenize("abcab");
+        assertEquals(5, tokenizer.size());
+    }
+
+    @Test
+    public void manyTerminalsTest() throws Exception {
+        List<String> terminals = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            terminals.add("<" + i + ">");
+        }
+        TokenizerTypeList ttl = TokenizerTypeList.getTTLForTerminals(terminals);
+        Tokenizer tokenizer = new Tokenizer(ttl, true);
+        tokenizer.tokenize("<1><10> <499><5>");
+        assertEquals(list("<1>", "<10>", "<499>", "<5>"), values(tokenizer));
+
+        // a shorter exact token later in the list does not win
+        ttl.add(new ExactToken("<1", "<1"));
+        ttl.add(new ExactToken("0>", "0>"));
+        tokenizer.tokenize("<10>");
+        assertEquals(list("<10>"), values(tokenizer));
+    }
+
+    private static List<String> list(String... values) {
+        return Arrays.asList(values);
+    }
+
+    private static List<String> values(Tokenizer tokenizer) {
+        List<String> values = new ArrayList<>();
+        tokenizer.setIndex(0);
+        do {
+            values.add(tokenizer.currentToken().getValue());
+        } while (tokenizer.nextToken());
+        return values;
+    }
+
+}
@@ -134,4 +134,28 @@ public class GrammarTTLTest {
         assertTrue(currentToken.getType().isSameAs(regexType));
     }
 
+    @Test
+    public void TestOffsets() throws Exception {
+        Tokenizer tokenizer = Grammar.newTokenizer();
+
+        String input = "rule = 'a' , { \"b\" } ; # comment";
+        tokenizer.tokenize(input);
+
+        assertEquals(8, tokenizer.size());
+        assertEquals(input, tokenizer.getSource());
+
+        do {
+            Token currentToken = tokenizer.currentToken();
+            assertTrue(currentToken.hasSource());
+            assertEquals(currentToken.getFullText(), input.substring(currentToken.getStart(), currentToken.getEnd()));
+        } while (tokenizer.nextToken());
+
+        tokenizer.setIndex(2);
+        Token terminal = tokenizer.currentToken();
+        assertEquals("a", terminal.getValue());
+        assertEquals("'a'", terminal.getFullText());
+        assertEquals(7, terminal.getStart());
+        assertEquals(10, terminal.getEnd());
+    }
+
 }
@@ -0,0 +1,85 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+public class StreamingTokenizerTest {
+
+    private static final String[] GRAMMAR_FILES = {"calculator", "calculatorAnnotations", "testAllExternal", "regexRule", "palindromeChunks"};
+
+    @Test
+    public void sameTokensTest() throws Exception {
+        for (String grammarFile : GRAMMAR_FILES) {
+            String text = Files.readString(new File("src/test/resources/" + grammarFile + ".ebnf").toPath());
+            Tokenizer tokenizer = new Tokenizer();
+            tokenizer.tokenize(text);
+
+            // tiny chunks make tokens (and comments) straddle buffer refills
+            for (int chunkSize : new int[] {1, 3, 7, StreamingTokenizer.DEFAULT_CHUNK_SIZE}) {
+                StreamingTokenizer streaming = new StreamingTokenizer(new StringReader(text), TokenizerTypeList.defaultGrammarTTL(), true, chunkSize);
+                assertTrue(grammarFile + " with chunk size " + chunkSize, tokenizer.hasSameTokens(streaming));
+                assertFalse(streaming.hasError());
+            }
+        }
+    }
+
+    @Test
+    public void lazyTest() throws Exception {
+        StreamingTokenizer tokenizer = new StreamingTokenizer(new StringReader("a b c"), TokenizerTypeList.getTTLForAlphabet("abc"), true);
+        assertEquals(0, tokenizer.retainedSize());
+
+        assertEquals("a", tokenizer.currentToken().getValue());
+        assertEquals(1, tokenizer.retainedSize());
+
+        assertTrue(tokenizer.nextToken());
+        assertTrue(tokenizer.nextToken());
+        assertEquals("c", tokenizer.currentToken().getValue());
+        assertFalse(tokenizer.nextToken());
+        assertTrue(tokenizer.isExhausted());
+        assertEquals(3, tokenizer.size());
+    }
+
+    @Test
+    public void commitTest() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append("ab");
+        }
+        StreamingTokenizer tokenizer = new StreamingTokenizer(new StringReader(text.toString()), TokenizerTypeList.getTTLForAlphabet("ab"), false, 16);
+
+        int maxRetained = 0;
+        while (tokenizer.nextToken()) {
+            tokenizer.commit(tokenizer.getIndex());
+            maxRetained = Math.max(maxRetained, tokenizer.retainedSize());
+        }
+        assertEquals(20000, tokenizer.size());
+        assertTrue(maxRetained <= 32);
+
+        // can still backtrack to the last commit, but not before it
+        tokenizer.setIndex(19999);
+        assertEquals("b", tokenizer.currentToken().getValue());
+        try {
+            tokenizer.setIndex(0);
+            tokenizer.currentToken();
+            assertTrue("released token was returned", false);
+        } catch (RuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void errorTest() throws Exception {
+        StreamingTokenizer tokenizer = new StreamingTokenizer(new StringReader("abx"), TokenizerTypeList.getTTLForAlphabet("ab"), false);
+        assertEquals(2, tokenizer.size());
+        assertTrue(tokenizer.hasError());
+        assertEquals("Beginning of text doesn't match any known TokenTypes: 'x'", tokenizer.getError());
+    }
+
+}
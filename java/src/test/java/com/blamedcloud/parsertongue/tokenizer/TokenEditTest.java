@@ -0,0 +1,109 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TokenEditTest {
+
+    private static TokenizerTypeList getTTL() {
+        TokenizerTypeList ttl = new TokenizerTypeList();
+        ttl.add(new RegexToken("comment", "#[^\n]*", true));
+        ttl.add(new RegexToken("blockComment", "/\\*.*?\\*/", true));
+        ttl.add(new RegexToken("quoted", "'([a-z ]*)'"));
+        ttl.add(new ExactToken("if", "if"));
+        ttl.add(new RegexToken("word", "[a-z]+"));
+        ttl.add(new RegexToken("number", "[0-9]+"));
+        ttl.add(new ExactToken("plus", "+"));
+        ttl.add(new ExactToken("slash", "/"));
+        ttl.add(new ExactToken("star", "*"));
+        ttl.add(new ExactToken("ellipsis", "..."));
+        ttl.add(new ExactToken("dot", "."));
+        return ttl;
+    }
+
+    @Test
+    public void editTest() throws Exception {
+        Tokenizer tokenizer = new Tokenizer(getTTL(), true);
+        tokenizer.tokenizeForEditing("ab 12 + cd + 34");
+
+        TokenEdit edit = tokenizer.edit(9, 0, "x");
+        assertEquals("ab 12 + cxd + 34", tokenizer.getSource().toString());
+        // (from the "+", whose matching could have looked as far as the edit)
+        assertEquals(2, edit.getStart());
+        assertEquals(4, edit.getOldEnd());
+        assertEquals(4, edit.getNewEnd());
+        assertEquals("cxd", tokenizer.tokenAt(3).getValue());
+
+        // joining two tokens
+        edit = tokenizer.edit(5, 3, "");
+        assertEquals("ab 12cxd + 34", tokenizer.getSource().toString());
+        assertEquals(5, tokenizer.size());
+        assertEquals(-1, edit.getShift());
+        assertEquals("12", tokenizer.tokenAt(1).getValue());
+        assertEquals("cxd", tokenizer.tokenAt(2).getValue());
+        assertEquals(0, tokenizer.getIndex());
+    }
+
+    // the edit ends a block comment that the tokens before it began
+    @Test
+    public void lookaheadTest() throws Exception {
+        Tokenizer tokenizer = new Tokenizer(getTTL(), true);
+        tokenizer.tokenizeForEditing("a/*b*c");
+        assertEquals(6, tokenizer.size());
+
+        TokenEdit edit = tokenizer.edit(5, 0, "/");
+        assertEquals(1, edit.getStart());
+        assertEquals(5, edit.getOldEnd());
+        assertEquals(1, edit.getNewEnd());
+        assertEquals("a", tokenizer.tokenAt(0).getValue());
+        assertEquals("c", tokenizer.tokenAt(1).getValue());
+
+        tokenizer.tokenizeForEditing("a ..");
+        edit = tokenizer.edit(4, 0, ".");
+        assertEquals(1, edit.getStart());
+        assertEquals(2, tokenizer.size());
+        assertEquals("...", tokenizer.tokenAt(1).getValue());
+    }
+
+    @Test
+    public void randomEditTest() throws Exception {
+        String alphabet = "abif019+ '#\n/*/*..";
+        Random random = new Random(17);
+        Tokenizer tokenizer = new Tokenizer(getTTL(), true);
+        tokenizer.tokenizeForEditing("if ab + 10 # a comment\n'a b' + ifa / 9 * b . x");
+        for (int i = 0; i < 2000; i++) {
+            int length = tokenizer.getSource().length();
+            int offset = random.nextInt(length + 1);
+            int deleted = random.nextInt(Math.min(3, length - offset) + 1);
+            StringBuilder inserted = new StringBuilder();
+            for (int j = random.nextInt(3); j > 0; j--) {
+                inserted.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = tokenizer.getSource().toString();
+            String edited = text.substring(0, offset) + inserted + text.substring(offset + deleted);
+
+            Tokenizer expected = new Tokenizer(getTTL(), true);
+            boolean valid = true;
+            try {
+                expected.tokenize(edited);
+            } catch (TokenizerException e) {
+                valid = false;
+            }
+            try {
+                tokenizer.edit(offset, deleted, inserted);
+                assertTrue(edited, valid);
+                assertEquals(edited, tokenizer.getSource().toString());
+                assertTrue(edited, tokenizer.hasSameTokens(expected));
+            } catch (TokenizerException e) {
+                // the tokens are left as they were
+                assertTrue(edited, !valid);
+                assertEquals(text, tokenizer.getSource().toString());
+            }
+        }
+    }
+
+}
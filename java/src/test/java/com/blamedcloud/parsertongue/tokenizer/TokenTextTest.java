@@ -0,0 +1,71 @@
+package com.blamedcloud.parsertongue.tokenizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class TokenTextTest {
+
+    @Test
+    public void contiguousTest() throws Exception {
+        Tokenizer tokenizer = new Tokenizer(TokenizerTypeList.getTTLForAlphabet("abc"), false);
+        tokenizer.tokenize("abcab");
+        TokenText text = tokenizer.textFrom(1);
+        assertEquals("", text.toString());
+
+        assertTrue(text.addToken());
+        assertTrue(text.addToken());
+        assertEquals(2, text.tokenCount());
+        assertEquals("bc", text.toString());
+        assertEquals('c', text.charAt(1));
+
+        assertTrue(text.addToken());
+        assertTrue(text.addToken());
+        assertFalse(text.addToken());
+        assertEquals("bcab", text.toString());
+        assertEquals("ca", text.subSequence(1, 3).toString());
+    }
+
+    @Test
+    public void mergedTest() throws Exception {
+        // white space between tokens, and values that aren't their text
+        TokenizerTypeList ttl = new TokenizerTypeList();
+        ttl.add(new RegexToken("quoted", "'([a-z]*)'"));
+        ttl.add(new RegexToken("word", "[a-z]+"));
+        Tokenizer tokenizer = new Tokenizer(ttl, true);
+        tokenizer.tokenize("ab 'cd' '' e  fg");
+        TokenText text = tokenizer.textFrom(0);
+        while (text.addToken()) {
+            // merge them all
+        }
+        assertEquals(5, text.tokenCount());
+        assertEquals("abcdefg", text.toString());
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            sb.append(text.charAt(i));
+        }
+        assertEquals("abcdefg", sb.toString());
+
+        Matcher matcher = Pattern.compile("abcde(fg)?").matcher(text);
+        assertTrue(matcher.matches());
+    }
+
+    @Test
+    public void listTest() throws Exception {
+        Tokenizer tokenizer = new Tokenizer(TokenizerTypeList.getTTLForAlphabet("ab"), false);
+        tokenizer.tokenize("abab");
+        // split tokenizers keep their tokens as a list
+        Tokenizer split = tokenizer.splitTokensOn(tokenizer.getLastToken()).get(1);
+        TokenText text = split.textFrom(0);
+        assertTrue(text.addToken());
+        assertFalse(text.addToken());
+        assertEquals("a", text.toString());
+        assertEquals('a', text.charAt(0));
+    }
+
+}
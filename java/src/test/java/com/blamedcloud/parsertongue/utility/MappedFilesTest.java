@@ -0,0 +1,64 @@
+package com.blamedcloud.parsertongue.utility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFilesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String TEXT = "plain ascii, \u00e9, \u2603, \ud834\udd1e and more ascii\n";
+
+    private Path writeText(String text) throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private String readAll(Reader reader, int bufferSize) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[bufferSize];
+        int read;
+        while ((read = reader.read(buffer, 0, bufferSize)) != -1) {
+            builder.append(buffer, 0, read);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testDecode() throws IOException {
+        Path path = writeText(TEXT);
+        assertTrue(MappedFiles.fitsInOneMapping(path));
+        assertEquals(TEXT, MappedFiles.decode(path).toString());
+        assertEquals("", MappedFiles.decode(writeText("")).toString());
+    }
+
+    @Test
+    public void testWindows() throws IOException {
+        String text = TEXT.repeat(20);
+        Path path = writeText(text);
+        // every window size splits some multi-byte character
+        for (int windowSize = 4; windowSize < 20; windowSize++) {
+            for (int bufferSize : new int[] {1, 2, 7, 4096}) {
+                try (Reader reader = MappedFiles.newReader(path, windowSize)) {
+                    assertEquals(text, readAll(reader, bufferSize));
+                }
+            }
+        }
+        try (Reader reader = MappedFiles.newReader(writeText(""))) {
+            assertEquals(-1, reader.read());
+        }
+    }
+
+}